@@ -0,0 +1,144 @@
+package com.avpines.dynamic.meters.benchmarks;
+
+import com.avpines.dynamic.meters.aop.DynamicMetersAnnotationBeanPostProcessor;
+import com.avpines.dynamic.meters.aop.DynamicTimed;
+import com.avpines.dynamic.meters.timer.DynamicTimer;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares timing a method by hand with {@link DynamicTimed}, with tag values that are plain
+ * argument references and with tag values that are property paths, compiled by SpEL.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AnnotatedTimerBenchmark {
+
+  /**
+   * The argument of the benchmarked methods.
+   */
+  public static class Order {
+
+    private final String tenant;
+
+    Order(String tenant) {
+      this.tenant = tenant;
+    }
+
+    public String getTenant() {
+      return tenant;
+    }
+
+  }
+
+  /**
+   * The same trivial method, timed by hand and by annotations.
+   */
+  public static class Orders {
+
+    private final DynamicTimer timer;
+
+    private final Clock clock;
+
+    Orders(DynamicTimer timer, Clock clock) {
+      this.timer = timer;
+      this.clock = clock;
+    }
+
+    /**
+     * Times the call by hand.
+     *
+     * @param order   The order.
+     * @param channel The channel.
+     * @return the tenant.
+     */
+    public String handWritten(Order order, String channel) {
+      long start = clock.monotonicTime();
+      try {
+        return order.getTenant();
+      } finally {
+        timer.getOrCreate(order.getTenant(), channel)
+            .record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+      }
+    }
+
+    @DynamicTimed(value = "orders.arguments", tags = {"tenant", "#tenant", "channel", "#channel"})
+    public String arguments(String tenant, String channel) {
+      return tenant;
+    }
+
+    @DynamicTimed(value = "orders.properties",
+        tags = {"tenant", "#order.tenant", "channel", "#channel"})
+    public String properties(Order order, String channel) {
+      return order.getTenant();
+    }
+
+  }
+
+  /**
+   * A proxy of {@link Orders}, over a few hot series.
+   */
+  @State(Scope.Benchmark)
+  public static class Proxied {
+
+    @Param({"16"})
+    int series;
+
+    Orders orders;
+
+    Order[] values;
+
+    /**
+     * Proxies the methods, their series are created by the first calls of the warmup.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+      SimpleMeterRegistry registry = new SimpleMeterRegistry();
+      DynamicMetersAnnotationBeanPostProcessor processor =
+          new DynamicMetersAnnotationBeanPostProcessor(() -> registry);
+      processor.setProxyTargetClass(true);
+      DynamicTimer timer = DynamicTimer.builder(registry, "orders.hand-written")
+          .tagKeys("tenant", "channel")
+          .build();
+      Orders target = new Orders(timer, registry.config().clock());
+      orders = (Orders) processor.postProcessAfterInitialization(target, "orders");
+      values = new Order[series];
+      for (int i = 0; i < series; i++) {
+        values[i] = new Order("tenant-" + i);
+      }
+    }
+
+  }
+
+  @Benchmark
+  public String handWritten(Proxied state, Cursors.Existing cursor) {
+    return state.orders.handWritten(state.values[cursor.next(state.series)], "web");
+  }
+
+  @Benchmark
+  public String annotatedArguments(Proxied state, Cursors.Existing cursor) {
+    return state.orders.arguments(state.values[cursor.next(state.series)].getTenant(), "web");
+  }
+
+  @Benchmark
+  public String annotatedProperties(Proxied state, Cursors.Existing cursor) {
+    return state.orders.properties(state.values[cursor.next(state.series)], "web");
+  }
+
+}
@@ -0,0 +1,58 @@
+package com.avpines.dynamic.meters.benchmarks;
+
+import java.util.Arrays;
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks once per thread count in {@link #THREADS}, with the GC profiler attached and
+ * a JSON result file per thread count.
+ *
+ * <p>Any JMH command line options are honored, e.g. {@code -p series=1000 -p tagKeys=3} to narrow
+ * the matrix. Passing {@code -t} runs only that thread count, and {@code --jmh} hands the remaining
+ * arguments to the plain JMH launcher.
+ */
+public final class BenchmarkRunner {
+
+  static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+  private BenchmarkRunner() {
+  }
+
+  /**
+   * Entry point of the benchmarks jar.
+   *
+   * @param args JMH command line options.
+   * @throws Exception if the options cannot be parsed or a benchmark fails.
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length > 0 && args[0].equals("--jmh")) {
+      Main.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+    CommandLineOptions cli = new CommandLineOptions(args);
+    int[] threads = cli.getThreads().hasValue() ? new int[]{cli.getThreads().get()} : THREADS;
+    for (int t : threads) {
+      ChainedOptionsBuilder builder = new OptionsBuilder()
+          .parent(cli)
+          .threads(t)
+          .addProfiler(GCProfiler.class)
+          .resultFormat(ResultFormatType.JSON)
+          .result("jmh-result-" + t + "-threads.json");
+      // the includes of the command line are merged in from the parent, an extra one would widen
+      // them.
+      if (cli.getIncludes().isEmpty()) {
+        builder.include(GetOrCreateBenchmark.class.getSimpleName());
+      }
+      Options options = builder.build();
+      new Runner(options).run();
+    }
+  }
+
+}
@@ -0,0 +1,89 @@
+package com.avpines.dynamic.meters.benchmarks;
+
+import com.avpines.dynamic.meters.counter.DynamicCounter;
+import com.avpines.dynamic.meters.counter.DynamicCounterBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures incrementing a hot {@link DynamicCounter}, through {@code getOrCreate(...).increment()}
+ * and through {@link DynamicCounter#increment(String...)}, with and without per thread buffering.
+ * Contention shows with more threads, e.g. {@code -t 8}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CounterIncrementBenchmark {
+
+  /**
+   * A counter over a few hot series.
+   */
+  @State(Scope.Benchmark)
+  public static class Hot {
+
+    @Param({"false", "true"})
+    boolean buffered;
+
+    @Param({"3"})
+    int tagKeys;
+
+    @Param({"16"})
+    int series;
+
+    DynamicCounter counter;
+
+    String[][] values;
+
+    /**
+     * Builds the counter, the series are created by the first increments of the warmup.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+      DynamicCounterBuilder builder = DynamicCounter.builder(new SimpleMeterRegistry(), "hot");
+      for (int i = 0; i < tagKeys; i++) {
+        builder.tagKey("key-" + i);
+      }
+      if (buffered) {
+        builder.buffered(Duration.ofSeconds(1));
+      }
+      counter = builder.build();
+      values = new String[series][];
+      for (int i = 0; i < series; i++) {
+        values[i] = SeriesFixture.tagValues(tagKeys, i);
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      counter.flush();
+    }
+
+  }
+
+  @Benchmark
+  public void getOrCreateIncrement(Hot state, Cursors.Existing cursor) {
+    state.counter.getOrCreate(state.values[cursor.next(state.series)]).increment();
+  }
+
+  @Benchmark
+  public void increment(Hot state, Cursors.Existing cursor) {
+    state.counter.increment(state.values[cursor.next(state.series)]);
+  }
+
+}
@@ -0,0 +1,58 @@
+package com.avpines.dynamic.meters.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per thread positions over the benchmark fixtures.
+ */
+public final class Cursors {
+
+  private Cursors() {
+  }
+
+  /**
+   * Walks over the existing series with a large odd stride from a random start, so threads do not
+   * march in lock step and consecutive lookups hit different bins.
+   */
+  @State(Scope.Thread)
+  public static class Existing {
+
+    private static final int STRIDE = 0x9E3779B1;
+
+    int position = ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+
+    int next(int bound) {
+      position += STRIDE;
+      return (position & Integer.MAX_VALUE) % bound;
+    }
+
+  }
+
+  /**
+   * Produces tag values that were never seen before. Building them allocates a String and an
+   * array, which the {@code -prof gc} numbers of the miss benchmark include.
+   */
+  @State(Scope.Thread)
+  public static class Fresh {
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    final String prefix = "fresh-" + THREADS.incrementAndGet() + "-";
+
+    long counter;
+
+    String[] next(int tagKeys) {
+      String[] v = new String[tagKeys];
+      for (int j = 0; j < tagKeys - 1; j++) {
+        v[j] = "value-0";
+      }
+      v[tagKeys - 1] = prefix + counter++;
+      return v;
+    }
+
+  }
+
+}
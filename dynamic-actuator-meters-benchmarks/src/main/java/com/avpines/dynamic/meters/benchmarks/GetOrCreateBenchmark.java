@@ -0,0 +1,37 @@
+package com.avpines.dynamic.meters.benchmarks;
+
+import io.micrometer.core.instrument.Meter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code getOrCreate} of every dynamic meter type, for series that already exist (hit)
+ * and for series that are seen for the first time (miss).
+ *
+ * <p>Run with {@code -prof gc} to get the allocation rate per operation, a hit is expected not to
+ * allocate at all.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class GetOrCreateBenchmark {
+
+  @Benchmark
+  public Meter hit(HitState state, Cursors.Existing cursor) {
+    return state.lookup.getOrCreate(state.values[cursor.next(state.series)]);
+  }
+
+  @Benchmark
+  public Meter miss(MissState state, Cursors.Fresh cursor) {
+    return state.lookup.getOrCreate(cursor.next(state.tagKeys));
+  }
+
+}
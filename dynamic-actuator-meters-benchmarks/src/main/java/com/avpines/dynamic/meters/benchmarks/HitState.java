@@ -0,0 +1,20 @@
+package com.avpines.dynamic.meters.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A fixture shared by all the benchmark threads, populated once per trial since hits do not change
+ * it.
+ */
+@State(Scope.Benchmark)
+public class HitState extends SeriesFixture {
+
+  @Setup(Level.Trial)
+  public void setup() {
+    populate();
+  }
+
+}
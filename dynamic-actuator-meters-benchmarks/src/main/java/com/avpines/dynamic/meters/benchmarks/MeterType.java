@@ -0,0 +1,112 @@
+package com.avpines.dynamic.meters.benchmarks;
+
+import com.avpines.dynamic.meters.AbstractDynamicMeterBuilder;
+import com.avpines.dynamic.meters.counter.DynamicCounter;
+import com.avpines.dynamic.meters.counter.DynamicCounterBuilder;
+import com.avpines.dynamic.meters.distributionsummary.DynamicDistributionSummary;
+import com.avpines.dynamic.meters.distributionsummary.DynamicDistributionSummaryBuilder;
+import com.avpines.dynamic.meters.gauge.DynamicGauge;
+import com.avpines.dynamic.meters.gauge.DynamicGaugeBuilder;
+import com.avpines.dynamic.meters.gauge.SupplierDynamicGauge;
+import com.avpines.dynamic.meters.gauge.SupplierDynamicGaugeBuilder;
+import com.avpines.dynamic.meters.timer.DynamicTimer;
+import com.avpines.dynamic.meters.timer.DynamicTimerBuilder;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The dynamic meter types under benchmark, each knows how to build its dynamic meter and expose
+ * its {@code getOrCreate} as a {@link Lookup}.
+ */
+public enum MeterType {
+
+  COUNTER {
+    @Override
+    @NotNull Lookup create(
+        MeterRegistry registry, String name, String[] tagKeys, Configurer configurer) {
+      DynamicCounterBuilder builder = DynamicCounter.builder(registry, name).tagKeys(tagKeys);
+      configurer.accept(builder);
+      return builder.build()::getOrCreate;
+    }
+  },
+
+  TIMER {
+    @Override
+    @NotNull Lookup create(
+        MeterRegistry registry, String name, String[] tagKeys, Configurer configurer) {
+      DynamicTimerBuilder builder = DynamicTimer.builder(registry, name).tagKeys(tagKeys);
+      configurer.accept(builder);
+      return builder.build()::getOrCreate;
+    }
+  },
+
+  DISTRIBUTION_SUMMARY {
+    @Override
+    @NotNull Lookup create(
+        MeterRegistry registry, String name, String[] tagKeys, Configurer configurer) {
+      DynamicDistributionSummaryBuilder builder = DynamicDistributionSummary
+          .builder(registry, name)
+          .tagKeys(tagKeys);
+      configurer.accept(builder);
+      return builder.build()::getOrCreate;
+    }
+  },
+
+  GAUGE {
+    @Override
+    @NotNull Lookup create(
+        MeterRegistry registry, String name, String[] tagKeys, Configurer configurer) {
+      DynamicGaugeBuilder<AtomicLong> builder = DynamicGauge
+          .builder(registry, name, AtomicLong.class)
+          .tagKeys(tagKeys);
+      configurer.accept(builder);
+      DynamicGauge<AtomicLong> dg = builder.build();
+      AtomicLong state = new AtomicLong();
+      return v -> dg.getOrCreate(state, AtomicLong::get, v);
+    }
+  },
+
+  SUPPLIER_GAUGE {
+    @Override
+    @NotNull Lookup create(
+        MeterRegistry registry, String name, String[] tagKeys, Configurer configurer) {
+      SupplierDynamicGaugeBuilder builder = SupplierDynamicGauge
+          .builder(registry, name)
+          .tagKeys(tagKeys);
+      configurer.accept(builder);
+      SupplierDynamicGauge dg = builder.build();
+      Supplier<Number> supplier = () -> 1;
+      return v -> dg.getOrCreate(supplier, v);
+    }
+  };
+
+  @NotNull Lookup create(MeterRegistry registry, String name, String[] tagKeys) {
+    return create(registry, name, tagKeys, b -> { });
+  }
+
+  abstract @NotNull Lookup create(
+      MeterRegistry registry, String name, String[] tagKeys, Configurer configurer);
+
+  /**
+   * The {@code getOrCreate} of a dynamic meter, with all non tag arguments bound.
+   */
+  @FunctionalInterface
+  interface Lookup {
+
+    Meter getOrCreate(String[] tagValues);
+
+  }
+
+  /**
+   * Sets options shared by all the dynamic meter builders.
+   */
+  @FunctionalInterface
+  interface Configurer extends Consumer<AbstractDynamicMeterBuilder<?, ?>> {
+
+  }
+
+}
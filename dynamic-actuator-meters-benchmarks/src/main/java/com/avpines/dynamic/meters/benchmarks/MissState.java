@@ -0,0 +1,21 @@
+package com.avpines.dynamic.meters.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A fixture shared by all the benchmark threads. Misses keep adding series, so it is populated
+ * again before every iteration to measure misses against an index of roughly {@code series}
+ * entries.
+ */
+@State(Scope.Benchmark)
+public class MissState extends SeriesFixture {
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    populate();
+  }
+
+}
@@ -0,0 +1,75 @@
+package com.avpines.dynamic.meters.benchmarks;
+
+import com.avpines.dynamic.meters.timer.DynamicTimer;
+import com.avpines.dynamic.meters.timer.DynamicTimerBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures recording into a hot, histogram backed {@link DynamicTimer} through {@link
+ * DynamicTimer#record(long, TimeUnit, String...)}, by sample rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SampledTimerBenchmark {
+
+  /**
+   * A timer with percentiles and a histogram over a few hot series.
+   */
+  @State(Scope.Benchmark)
+  public static class Hot {
+
+    @Param({"1", "10", "100"})
+    int sampleRate;
+
+    @Param({"3"})
+    int tagKeys;
+
+    @Param({"16"})
+    int series;
+
+    DynamicTimer timer;
+
+    String[][] values;
+
+    /**
+     * Builds the timer, the series are created by the first records of the warmup.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+      DynamicTimerBuilder builder = DynamicTimer.builder(new SimpleMeterRegistry(), "hot")
+          .customizer(b -> b.publishPercentiles(0.5, 0.99).publishPercentileHistogram())
+          .sampled(sampleRate);
+      for (int i = 0; i < tagKeys; i++) {
+        builder.tagKey("key-" + i);
+      }
+      timer = builder.build();
+      values = new String[series][];
+      for (int i = 0; i < series; i++) {
+        values[i] = SeriesFixture.tagValues(tagKeys, i);
+      }
+    }
+
+  }
+
+  @Benchmark
+  public void record(Hot state, Cursors.Existing cursor) {
+    state.timer.record(1_000, TimeUnit.NANOSECONDS, state.values[cursor.next(state.series)]);
+  }
+
+}
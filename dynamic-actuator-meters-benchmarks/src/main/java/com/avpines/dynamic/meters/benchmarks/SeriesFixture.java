@@ -0,0 +1,68 @@
+package com.avpines.dynamic.meters.benchmarks;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A dynamic meter with {@code series} series already registered, over {@code tagKeys} tag keys.
+ */
+@State(Scope.Benchmark)
+public abstract class SeriesFixture {
+
+  static final String NAME = "benchmark.meter";
+
+  @Param({"COUNTER", "TIMER", "DISTRIBUTION_SUMMARY", "GAUGE", "SUPPLIER_GAUGE"})
+  MeterType meterType;
+
+  @Param({"1", "2", "3", "4", "5"})
+  int tagKeys;
+
+  @Param({"10", "1000", "100000", "1000000"})
+  int series;
+
+  MeterRegistry registry;
+
+  MeterType.Lookup lookup;
+
+  /**
+   * Tag values of every registered series. These are copies of the registered values, callers
+   * rarely hand in the very same String instances, so lookups must not win on identity.
+   */
+  String[][] values;
+
+  void populate() {
+    String[] keys = new String[tagKeys];
+    for (int i = 0; i < tagKeys; i++) {
+      keys[i] = "key-" + i;
+    }
+    registry = new SimpleMeterRegistry();
+    lookup = meterType.create(registry, NAME, keys);
+    values = new String[series][];
+    for (int i = 0; i < series; i++) {
+      String[] registered = tagValues(tagKeys, i);
+      lookup.getOrCreate(registered);
+      String[] copy = new String[tagKeys];
+      for (int j = 0; j < tagKeys; j++) {
+        copy[j] = new String(registered[j]);
+      }
+      values[i] = copy;
+    }
+  }
+
+  /**
+   * The tag values of the series at {@code index}. The last key is unique per series, the others
+   * repeat with a low cardinality, like an endpoint or a status would.
+   */
+  static String[] tagValues(int tagKeys, int index) {
+    String[] v = new String[tagKeys];
+    for (int j = 0; j < tagKeys - 1; j++) {
+      v[j] = "value-" + (index % (4 << j));
+    }
+    v[tagKeys - 1] = "series-" + index;
+    return v;
+  }
+
+}
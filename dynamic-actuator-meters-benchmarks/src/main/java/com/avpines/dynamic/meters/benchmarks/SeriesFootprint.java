@@ -0,0 +1,64 @@
+package com.avpines.dynamic.meters.benchmarks;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Prints the retained heap per series of a dynamic meter, with and without dictionary encoding.
+ * Callers usually build tag values on the fly, so every series is handed fresh String instances.
+ *
+ * <p>Usage: {@code java -cp benchmarks.jar com.avpines.dynamic.meters.benchmarks.SeriesFootprint
+ * [meterType] [tagKeys] [series]}.
+ */
+public final class SeriesFootprint {
+
+  private SeriesFootprint() {
+  }
+
+  /**
+   * Entry point.
+   *
+   * @param args Optional meter type, number of tag keys and number of series.
+   */
+  public static void main(String[] args) {
+    MeterType type = args.length > 0 ? MeterType.valueOf(args[0]) : MeterType.COUNTER;
+    int tagKeys = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+    int series = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+    for (boolean encoded : new boolean[]{false, true}) {
+      // keeps the registry reachable while measuring.
+      MeterRegistry registry = new SimpleMeterRegistry();
+      long before = usedHeap();
+      populate(registry, type, tagKeys, series, encoded);
+      long after = usedHeap();
+      System.out.printf("%s tagKeys=%d series=%d dictionaryEncoding=%b: %d bytes/series (%d)%n",
+          type, tagKeys, series, encoded, (after - before) / series, registry.getMeters().size());
+    }
+  }
+
+  private static void populate(
+      MeterRegistry registry, MeterType type, int tagKeys, int series, boolean encoded) {
+    String[] keys = new String[tagKeys];
+    for (int i = 0; i < tagKeys; i++) {
+      keys[i] = "key-" + i;
+    }
+    MeterType.Lookup lookup = type.create(registry, SeriesFixture.NAME, keys, b -> {
+      if (encoded) {
+        b.dictionaryEncoding();
+      }
+    });
+    for (int i = 0; i < series; i++) {
+      lookup.getOrCreate(SeriesFixture.tagValues(tagKeys, i));
+    }
+  }
+
+  private static long usedHeap() {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+    }
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+
+}
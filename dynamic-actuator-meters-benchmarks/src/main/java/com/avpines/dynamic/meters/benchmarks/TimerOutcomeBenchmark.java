@@ -0,0 +1,101 @@
+package com.avpines.dynamic.meters.benchmarks;
+
+import com.avpines.dynamic.meters.timer.DynamicTimer;
+import com.avpines.dynamic.meters.timer.OutcomeTagValues;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures timing operations by their outcome with {@link DynamicTimer#recordCallable}, {@link
+ * DynamicTimer#recordStage}, on stages that are already complete, and {@link DynamicTimer#start()},
+ * against a Micrometer {@link Timer.Sample}, so {@code -prof gc} shows what the timing itself
+ * allocates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TimerOutcomeBenchmark {
+
+  /**
+   * A timer by operation and outcome, and a completed stage.
+   */
+  @State(Scope.Benchmark)
+  public static class Outcomes {
+
+    static final OutcomeTagValues PLACE = OutcomeTagValues.of("place");
+
+    static final String[] PLACED = {"place", OutcomeTagValues.SUCCESS};
+
+    MeterRegistry registry;
+
+    DynamicTimer timer;
+
+    CompletableFuture<String> done;
+
+    /**
+     * Builds the timer, its series are created by the first calls of the warmup.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+      registry = new SimpleMeterRegistry();
+      timer = DynamicTimer.builder(registry, "outcomes")
+          .tagKeys("operation", "exception")
+          .build();
+      done = CompletableFuture.completedFuture("done");
+    }
+
+  }
+
+  @Benchmark
+  public String recordCallable(Outcomes state) throws Exception {
+    return state.timer.recordCallable(() -> "done", Outcomes.PLACE);
+  }
+
+  @Benchmark
+  public CompletionStage<String> recordStage(Outcomes state) {
+    return state.timer.recordStage(() -> state.done, Outcomes.PLACE);
+  }
+
+  /**
+   * Holds a sample between its start and stop, as a request does when it is stopped by another
+   * frame than the one that started it, so the sample escapes.
+   */
+  @State(Scope.Thread)
+  public static class Pending {
+
+    DynamicTimer.Sample dynamic;
+
+    Timer.Sample micrometer;
+
+  }
+
+  @Benchmark
+  public long startStop(Outcomes state, Pending pending) {
+    pending.dynamic = state.timer.start();
+    return pending.dynamic.stop(Outcomes.PLACED);
+  }
+
+  @Benchmark
+  public long micrometerSample(Outcomes state, Pending pending) {
+    pending.micrometer = Timer.start(state.registry);
+    return pending.micrometer.stop(state.timer.getOrCreate(Outcomes.PLACED));
+  }
+
+}
@@ -0,0 +1,313 @@
+package com.avpines.dynamic.meters;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Common parent class for all the dynamic meter builders.
+ *
+ * @param <B> The builder of the underlying meter, which customizers operate on.
+ * @param <A> The builder type (For Builder pattern inheritance).
+ */
+public abstract class AbstractDynamicMeterBuilder<B, A extends AbstractDynamicMeterBuilder<B, A>> {
+
+  protected MeterRegistry registry;
+  protected String name;
+  protected Collection<UnaryOperator<B>> customizers;
+  protected Collection<String> tagKeys;
+  protected DynamicMeterOptions.DynamicMeterOptionsBuilder options;
+  protected Collection<String[]> preRegistered;
+  protected Map<String, UnaryOperator<String>> normalizers;
+
+  /**
+   * Construct a new AbstractDynamicMeterBuilder.
+   *
+   * @param registry To register generated meters.
+   * @param name     The meter name, all underlying meters that will be created will share this
+   *                 name.
+   */
+  protected AbstractDynamicMeterBuilder(MeterRegistry registry, String name) {
+    this.registry = registry;
+    this.name = name;
+    this.customizers = new ArrayList<>();
+    this.tagKeys = new ArrayList<>();
+    this.options = DynamicMeterOptions.builder();
+    this.preRegistered = new ArrayList<>();
+    this.normalizers = new LinkedHashMap<>();
+  }
+
+  public A customizers(@NotNull Collection<UnaryOperator<B>> customizers) {
+    this.customizers.addAll(customizers);
+    return self();
+  }
+
+  public A customizer(@NotNull UnaryOperator<B> customizer) {
+    this.customizers.add(customizer);
+    return self();
+  }
+
+  public A tagKeys(@NotNull Collection<String> tagKeys) {
+    this.tagKeys.addAll(tagKeys);
+    return self();
+  }
+
+  public A tagKeys(String @NotNull... tagKeys) {
+    return tagKeys(Arrays.asList(tagKeys));
+  }
+
+  public A tagKey(@NotNull String tagKey) {
+    this.tagKeys.add(tagKey);
+    return self();
+  }
+
+  /**
+   * Bound the number of series. Once exceeded, series are evicted according to the {@link
+   * #evictionPolicy(EvictionPolicy) eviction policy} and removed from the registry, so both the
+   * heap and the scrape size stay bounded.
+   *
+   * <p>Evictions are done in small batches to amortize their cost, and a thread that holds on to
+   * an evicted meter will keep recording into a meter that is no longer published.
+   *
+   * @param maxSeries The maximum number of series, must be positive.
+   * @return this builder.
+   */
+  public A maxSeries(int maxSeries) {
+    if (maxSeries <= 0) {
+      throw new IllegalArgumentException(
+          String.format("Max series must be positive, got '%d'", maxSeries));
+    }
+    this.options.maxSeries(maxSeries);
+    return self();
+  }
+
+  /**
+   * The policy used to evict series once {@link #maxSeries(int)} is exceeded, defaults to {@link
+   * EvictionPolicy#LRU}.
+   *
+   * @param evictionPolicy The eviction policy.
+   * @return this builder.
+   */
+  public A evictionPolicy(@NotNull EvictionPolicy evictionPolicy) {
+    this.options.evictionPolicy(evictionPolicy);
+    return self();
+  }
+
+  /**
+   * Remove series that were not accessed for the given duration, along with their meters in the
+   * registry. Idle series are found by a low priority background sweep, so they may linger for up
+   * to a quarter of the duration longer. A thread that holds on to a removed meter will keep
+   * recording into a meter that is no longer published.
+   *
+   * @param expireAfterIdle How long a series may be idle, must be positive.
+   * @return this builder.
+   */
+  public A expireAfterIdle(@NotNull Duration expireAfterIdle) {
+    if (expireAfterIdle.isNegative() || expireAfterIdle.isZero()) {
+      throw new IllegalArgumentException(
+          String.format("Idle expiry must be positive, got '%s'", expireAfterIdle));
+    }
+    this.options.expireAfterIdle(expireAfterIdle);
+    return self();
+  }
+
+  /**
+   * Intern tag values into a dictionary per tag key. All the series that share a tag value share
+   * a single {@link io.micrometer.core.instrument.Tag} instance, and the index is keyed by those
+   * instances, which cuts the heap used per series when values repeat across many series. Lookups
+   * pay for an extra hash lookup per tag key. A value is dropped from its dictionary once its last
+   * series is removed, so eviction and expiry bound the dictionaries too.
+   *
+   * @return this builder.
+   */
+  public A dictionaryEncoding() {
+    this.options.dictionaryEncoding(true);
+    return self();
+  }
+
+  /**
+   * Bound the number of distinct values of a tag key, values beyond the bound are replaced by
+   * {@value TagValueLimit#DEFAULT_OVERFLOW_VALUE}. See {@link #maxTagValues(String, int, String)}.
+   *
+   * @param tagKey    One of the tag keys.
+   * @param maxValues The maximum number of distinct values, must be positive.
+   * @return this builder.
+   */
+  public A maxTagValues(@NotNull String tagKey, int maxValues) {
+    return maxTagValues(tagKey, maxValues, TagValueLimit.DEFAULT_OVERFLOW_VALUE);
+  }
+
+  /**
+   * Bound the number of distinct values of a tag key. The first values that are seen are kept,
+   * and any other value is replaced by the overflow value before the series is looked up, so
+   * unexpected values fold into a single series instead of adding series. Unlike {@link
+   * #maxSeries(int)}, nothing is ever evicted, and values stay admitted after their series are
+   * gone.
+   *
+   * @param tagKey        One of the tag keys.
+   * @param maxValues     The maximum number of distinct values, must be positive.
+   * @param overflowValue Replaces the values beyond the bound.
+   * @return this builder.
+   */
+  public A maxTagValues(@NotNull String tagKey, int maxValues, @NotNull String overflowValue) {
+    if (maxValues <= 0) {
+      throw new IllegalArgumentException(
+          String.format("Max tag values must be positive, got '%d'", maxValues));
+    }
+    this.options.tagValueLimit(tagKey, new TagValueLimit(maxValues, overflowValue));
+    return self();
+  }
+
+  /**
+   * Normalize the values of a tag key before the series is looked up, e.g. with the {@link
+   * TagValueNormalizers}, so that raw values such as URIs with ids or mixed-case names map to a
+   * single series. Normalizers of the same tag key are applied in the order they were added. The
+   * normalized value of every raw value is memoized, see {@link #normalizationCacheSize(int)}, so
+   * normalizers must be pure.
+   *
+   * @param tagKey     One of the tag keys.
+   * @param normalizer Normalizes a raw value, must not return {@code null}.
+   * @return this builder.
+   */
+  public A normalizer(@NotNull String tagKey, @NotNull UnaryOperator<String> normalizer) {
+    this.normalizers.merge(tagKey, normalizer, (first, then) -> v -> then.apply(first.apply(v)));
+    return self();
+  }
+
+  /**
+   * The maximum number of raw values whose normalized values are memoized per tag key, defaults
+   * to 10,000. Values that are not memoized are normalized again.
+   *
+   * @param cacheSize The maximum number of memoized values, must be positive.
+   * @return this builder.
+   */
+  public A normalizationCacheSize(int cacheSize) {
+    if (cacheSize <= 0) {
+      throw new IllegalArgumentException(
+          String.format("Normalization cache size must be positive, got '%d'", cacheSize));
+    }
+    this.options.normalizationCacheSize(cacheSize);
+    return self();
+  }
+
+  /**
+   * Index series by their leading tag values as well, in tag key order, so that {@link
+   * DynamicMeter#forEachWithPrefix} and {@link DynamicMeter#removeByPrefix} only visit the matching
+   * series instead of scanning all of them. Creating and removing a series updates the index too.
+   *
+   * @return this builder.
+   */
+  public A prefixIndex() {
+    this.options.prefixIndex(true);
+    return self();
+  }
+
+  /**
+   * Register the series with the given tag values as soon as the meter is built, in parallel on
+   * the common {@link java.util.concurrent.ForkJoinPool}, so that the first recordings into them do
+   * not pay for registering them. Only for meters that can be created without params, which make
+   * it public. How long the warm-up took is logged.
+   *
+   * @param tagValues The tag values of the series.
+   * @return this builder.
+   */
+  protected A preRegister(@NotNull Collection<String[]> tagValues) {
+    this.preRegistered.addAll(tagValues);
+    return self();
+  }
+
+  /**
+   * Publish meters about the dynamic meter itself to the same registry, tagged by {@code meter},
+   * the name of the dynamic meter:
+   * <ul>
+   *   <li>{@code dynamic.meters.lookups}: lookups that found their series ({@code result=hit}),
+   *   and ones that took the creation path ({@code result=miss}).</li>
+   *   <li>{@code dynamic.meters.creation}: how long the creation of a new series took, including
+   *   the registration of its meter.</li>
+   *   <li>{@code dynamic.meters.series}: the current number of series.</li>
+   *   <li>{@code dynamic.meters.registration.failures}: meters of new series that failed to
+   *   register.</li>
+   * </ul>
+   * Lookups are counted by striped counters, so hits stay cheap.
+   *
+   * @return this builder.
+   */
+  public A selfMetrics() {
+    this.options.selfMetrics(true);
+    return self();
+  }
+
+  protected abstract A self();
+
+  /**
+   * Starts a newly built meter, once it is fully constructed, and registers its {@link
+   * #preRegister(Collection) pre-registered} series. Every builder hands its meter through here.
+   *
+   * @param meter The meter.
+   * @param <M>   The meter type.
+   * @return the meter.
+   */
+  protected <M extends DynamicMeter<?, ?, ?>> M start(@NotNull M meter) {
+    meter.start();
+    if (!preRegistered.isEmpty()) {
+      meter.preRegister(preRegistered);
+    }
+    return meter;
+  }
+
+  /**
+   * The options to build the dynamic meter with: the ones set on this builder, as adjusted by the
+   * {@link DynamicMeters#setPolicy policy} of the registry, if any.
+   *
+   * @return the options.
+   * @throws IllegalArgumentException if the options use a feature the meter does not support.
+   */
+  protected DynamicMeterOptions options() {
+    DynamicMeterOptions built = options.tagValueNormalizers(normalizers).build();
+    DynamicMeterPolicy policy = DynamicMeters.policy(registry);
+    DynamicMeterOptions adjusted =
+        policy != null ? policy.apply(name, List.copyOf(tagKeys), built) : built;
+    if (adjusted.getFlushInterval() != null && !buffers()) {
+      throw new IllegalArgumentException(
+          String.format("Meter '%s' does not buffer amounts", name));
+    }
+    if (!adjusted.getRollUps().isEmpty() && !rollsUp()) {
+      throw new IllegalArgumentException(
+          String.format("Meter '%s' does not support roll-ups", name));
+    }
+    return adjusted;
+  }
+
+  /**
+   * Whether the built meter applies buffered amounts, see {@link
+   * DynamicMeterOptions#getFlushInterval()}. A flush applies the sum of the amounts of a series at
+   * once, so only meters whose amounts add up, such as counters, can buffer them.
+   *
+   * @return {@code false} by default.
+   */
+  protected boolean buffers() {
+    return false;
+  }
+
+  /**
+   * Whether the built meter registers roll-up meters, see {@link
+   * DynamicMeterOptions#getRollUps()} and {@link DynamicMeter#registerRollUp}.
+   *
+   * @return {@code false} by default.
+   */
+  protected boolean rollsUp() {
+    return false;
+  }
+
+  protected String[] tagKeysArray() {
+    return tagKeys.toArray(new String[0]);
+  }
+
+}
@@ -0,0 +1,43 @@
+package com.avpines.dynamic.meters;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.function.Supplier;
+
+/**
+ * Common parent class for the builders of dynamic meters that keep the values of their series in
+ * a {@link ValueStore}.
+ *
+ * @param <B> The builder of the underlying meter, which customizers operate on.
+ * @param <A> The builder type (For Builder pattern inheritance).
+ */
+public abstract class AbstractDynamicValueMeterBuilder<
+    B, A extends AbstractDynamicValueMeterBuilder<B, A>> extends AbstractDynamicMeterBuilder<B, A> {
+
+  protected Supplier<ValueStore> valueStore;
+
+  /**
+   * Construct a new AbstractDynamicValueMeterBuilder.
+   *
+   * @param registry To register generated meters.
+   * @param name     The meter name, all underlying meters that will be created will share this
+   *                 name.
+   */
+  protected AbstractDynamicValueMeterBuilder(MeterRegistry registry, String name) {
+    super(registry, name);
+    this.valueStore = ValueStore::onHeap;
+    this.options.slotted(true);
+  }
+
+  /**
+   * Keep the values in direct buffers instead of on the heap, so they do not add to the heap nor
+   * to the work of the garbage collector as series grow to the millions. The meters, tags and
+   * index entries of the series themselves remain on the heap.
+   *
+   * @return this builder.
+   */
+  public A offHeap() {
+    this.valueStore = ValueStore::offHeap;
+    return self();
+  }
+
+}
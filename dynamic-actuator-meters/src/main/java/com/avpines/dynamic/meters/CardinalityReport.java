@@ -0,0 +1,65 @@
+package com.avpines.dynamic.meters;
+
+import java.util.List;
+import lombok.Value;
+
+/**
+ * The cardinality of a dynamic meter, see {@link DynamicMeter#inspect(int)}.
+ */
+@Value
+public class CardinalityReport {
+
+  /**
+   * The name of the dynamic meter.
+   */
+  String name;
+
+  /**
+   * The number of series that were inspected.
+   */
+  int series;
+
+  /**
+   * A rough estimate of the heap held by the series, their index entries, tags and registered
+   * meters, not counting state that is specific to the meter type, such as histograms.
+   */
+  long estimatedBytes;
+
+  /**
+   * The values of every tag key, in tag key order.
+   */
+  List<TagKeyCardinality> tagKeys;
+
+  /**
+   * The values of a single tag key.
+   */
+  @Value
+  public static class TagKeyCardinality {
+
+    String key;
+
+    /**
+     * An estimate of the number of distinct values, accurate to a few percent.
+     */
+    long distinctValues;
+
+    /**
+     * The values with the most series, most first. The counts are exact for small numbers of
+     * distinct values, and lower bounds otherwise.
+     */
+    List<ValueCount> topValues;
+
+  }
+
+  /**
+   * A tag value and the number of series with it.
+   */
+  @Value
+  public static class ValueCount {
+
+    String value;
+    long series;
+
+  }
+
+}
@@ -0,0 +1,29 @@
+package com.avpines.dynamic.meters;
+
+import io.micrometer.core.instrument.Meter;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A meter that is handed out while the real meter is registered in the background, see {@link
+ * DynamicMeterOptions#getRegistrationExecutor()}. It buffers the recordings until it is bound to
+ * the real meter, replays them into it, and forwards all the later recordings to it.
+ *
+ * @param <T> The meter type.
+ */
+public interface DeferredMeter<T extends Meter> {
+
+  /**
+   * This deferred meter, as the meter type it stands in for.
+   *
+   * @return this meter.
+   */
+  @NotNull T meter();
+
+  /**
+   * Replays the buffered recordings into the registered meter, and forwards to it from now on.
+   *
+   * @param meter The registered meter.
+   */
+  void bind(@NotNull T meter);
+
+}
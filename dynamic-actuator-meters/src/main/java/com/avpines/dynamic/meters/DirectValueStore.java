@@ -0,0 +1,65 @@
+package com.avpines.dynamic.meters;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A {@link ValueStore} over chunks of direct buffers, so the values do not add to the heap nor to
+ * the work of the garbage collector, no matter how many series there are. The memory is freed
+ * along with the store.
+ */
+final class DirectValueStore implements ValueStore {
+
+  private static final int CHUNK_BITS = 12;
+
+  private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+  private static final VarHandle VALUES =
+      MethodHandles.byteBufferViewVarHandle(double[].class, ByteOrder.nativeOrder());
+
+  private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+
+  @Override
+  public synchronized void ensureCapacity(int slot) {
+    int chunk = slot >>> CHUNK_BITS;
+    ByteBuffer[] current = chunks;
+    if (chunk < current.length) {
+      return;
+    }
+    ByteBuffer[] grown = Arrays.copyOf(current, Math.max(chunk + 1, current.length * 2));
+    for (int i = current.length; i < grown.length; i++) {
+      // atomic access needs aligned values.
+      grown[i] = ByteBuffer.allocateDirect((Double.BYTES << CHUNK_BITS) + Double.BYTES - 1)
+          .alignedSlice(Double.BYTES);
+    }
+    chunks = grown;
+  }
+
+  @Override
+  public double get(int slot) {
+    return (double) VALUES.getVolatile(chunks[slot >>> CHUNK_BITS], offset(slot));
+  }
+
+  @Override
+  public void set(int slot, double value) {
+    VALUES.setVolatile(chunks[slot >>> CHUNK_BITS], offset(slot), value);
+  }
+
+  @Override
+  public void add(int slot, double amount) {
+    ByteBuffer chunk = chunks[slot >>> CHUNK_BITS];
+    int offset = offset(slot);
+    double current;
+    do {
+      current = (double) VALUES.getVolatile(chunk, offset);
+    } while (!VALUES.compareAndSet(chunk, offset, current, current + amount));
+  }
+
+  private static int offset(int slot) {
+    return (slot & CHUNK_MASK) * Double.BYTES;
+  }
+
+}
@@ -0,0 +1,56 @@
+package com.avpines.dynamic.meters;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Estimates the number of distinct values it was given in fixed memory, with a HyperLogLog of
+ * 4096 registers, whose standard error is about 1.6%.
+ */
+final class DistinctValues {
+
+  private static final int PRECISION = 12;
+
+  private static final int REGISTERS = 1 << PRECISION;
+
+  private final byte[] registers = new byte[REGISTERS];
+
+  void add(@NotNull String value) {
+    long hash = mix(value.hashCode());
+    int register = (int) (hash >>> (Long.SIZE - PRECISION));
+    int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+    if (rank > registers[register]) {
+      registers[register] = (byte) rank;
+    }
+  }
+
+  long estimate() {
+    double sum = 0;
+    int zeros = 0;
+    for (byte register : registers) {
+      sum += 1.0 / (1L << register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+    double estimate = alpha * REGISTERS * REGISTERS / sum;
+    if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+      // linear counting is more accurate for small cardinalities.
+      estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  /**
+   * Spreads the bits of a string hash over a long, the finalizer of MurmurHash3.
+   */
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+}
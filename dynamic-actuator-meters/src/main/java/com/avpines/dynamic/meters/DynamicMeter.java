@@ -4,23 +4,41 @@ import io.micrometer.core.instrument.ImmutableTag;
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.step.StepMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
 import java.util.function.UnaryOperator;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Value;
 import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -31,16 +49,31 @@ import org.jetbrains.annotations.Nullable;
  * @param <E> The builder for the meter [T].
  * @param <R> The additional arguments type ({@link MeterParams}).
  */
+@Slf4j
 @Value
 @NonFinal
 @Getter(value = AccessLevel.NONE)
 public abstract class DynamicMeter<T extends Meter, E, R extends MeterParams> {
 
+  /**
+   * The number of sweeps a series has to stay idle for to expire.
+   */
+  private static final int IDLE_SWEEPS = 4;
+
+  /**
+   * Rough heap estimates for {@link #inspect(int)}: per series, for its index entry, key and a
+   * registered meter with its id, and per tag, for the tag and the value string headers.
+   */
+  private static final long SERIES_BYTES = 200;
+
+  private static final long TAG_BYTES = 80;
+
   MeterRegistry registry;
 
   /**
    * The name of this meter.
    */
+  @Getter
   String name;
 
   /**
@@ -54,9 +87,10 @@ public abstract class DynamicMeter<T extends Meter, E, R extends MeterParams> {
   BiFunction<E, Collection<Tag>, E> tagger;
 
   /**
-   * Customizes the meter, e.g., add description or percentiles.
+   * Customize the meter, e.g., add description or percentiles. Compiled once into an array that
+   * is applied in order to the builder of every new series, so a creation does not compose them.
    */
-  UnaryOperator<E> customizer;
+  UnaryOperator<E>[] customizers;
 
   /**
    * Registers the meter in the {@link MeterRegistry}.
@@ -68,7 +102,144 @@ public abstract class DynamicMeter<T extends Meter, E, R extends MeterParams> {
    */
   String[] tagKeys;
 
-  ConcurrentMap<String, T> meters;
+  /**
+   * Policies for managing the series of this meter.
+   */
+  DynamicMeterOptions options;
+
+  /**
+   * The underlying meters, indexed by their tag values.
+   */
+  ConcurrentMap<SeriesKey, Series<T>> meters;
+
+  /**
+   * The policy to evict series with, {@code null} if the number of series is not bounded.
+   */
+  @Nullable EvictionPolicy evictionPolicy;
+
+  /**
+   * A logical clock that advances whenever a series is created, series remember its value on
+   * access so that they can be ranked for eviction.
+   */
+  AtomicLong clock;
+
+  /**
+   * Set while a thread evicts series, so concurrent creations do not pile up on evictions.
+   */
+  AtomicBoolean evicting;
+
+  /**
+   * Whether idle series expire, see {@link DynamicMeterOptions#getExpireAfterIdle()}.
+   */
+  boolean expiring;
+
+  /**
+   * A dictionary per tag key when tag values are dictionary encoded, see {@link
+   * DynamicMeterOptions#isDictionaryEncoding()}. {@code null} otherwise.
+   */
+  TagDictionary @Nullable [] dictionaries;
+
+  /**
+   * A per thread buffer for the tags of a lookup key, when tag values are dictionary encoded.
+   */
+  @Nullable ThreadLocal<Tag[]> lookupTags;
+
+  /**
+   * A per thread lookup key, so looking up an existing series does not allocate.
+   */
+  ThreadLocal<SeriesKey> probes;
+
+  /**
+   * Counts the sweeps for idle series. Series remember its value on access, which is much cheaper
+   * than reading the time.
+   */
+  AtomicLong sweeps;
+
+  /**
+   * Indexes the series by their leading tag values, see {@link
+   * DynamicMeterOptions#isPrefixIndex()}. {@code null} otherwise.
+   */
+  @Nullable SeriesTrie<T> trie;
+
+  /**
+   * Assigns the series slots, when they are {@link DynamicMeterOptions#isSlotted() slotted} or
+   * their amounts are buffered. {@code null} otherwise.
+   */
+  @Nullable Slots<T> slots;
+
+  /**
+   * Buffers the amounts accumulated into the series, see {@link
+   * DynamicMeterOptions#getFlushInterval()}. {@code null} otherwise.
+   */
+  @Nullable StripedAccumulator<T> accumulator;
+
+  /**
+   * Bound the number of distinct values of the limited tag keys, see {@link
+   * DynamicMeterOptions#getTagValueLimits()}. {@code null} if no tag key is limited.
+   */
+  TagValueLimiter @Nullable [] limiters;
+
+  /**
+   * A per thread buffer for the tag values of a call with the overflowing values replaced, when tag
+   * keys are limited. Like {@link #normalizedValues}, it is only read before a new series is
+   * created.
+   */
+  @Nullable ThreadLocal<String[]> limitedValues;
+
+  /**
+   * Normalize the values of the normalized tag keys, see {@link
+   * DynamicMeterOptions#getTagValueNormalizers()}. {@code null} if no tag key is normalized.
+   */
+  TagValueNormalizer @Nullable [] normalizers;
+
+  /**
+   * A per thread buffer for the normalized tag values of a call, when tag keys are normalized. It
+   * is only read before a new series is created, so creating other series while registering a
+   * meter does not disturb it.
+   */
+  @Nullable ThreadLocal<String[]> normalizedValues;
+
+  /**
+   * Meters about this dynamic meter, see {@link DynamicMeterOptions#isSelfMetrics()}. {@code null}
+   * otherwise.
+   */
+  @Nullable SelfMetrics selfMetrics;
+
+  /**
+   * The id of the first registered meter, see {@link #deferredId(String, List, Meter.Type)}.
+   */
+  @NonFinal
+  volatile Meter.@Nullable Id registeredId;
+
+  /**
+   * The roll-ups of the series, see {@link DynamicMeterOptions#getRollUps()}. {@code null} if
+   * there are none.
+   */
+  @Nullable List<RollUp<T>> rollUps;
+
+  /**
+   * Construct a new DynamicMeter with the {@link DynamicMeterOptions#DEFAULTS default options}.
+   *
+   * @param registry        To register the underlying meters.
+   * @param name            Meter name, all underlying meters will share that name.
+   * @param newInnerBuilder A function to construct the underlying meter builder.
+   * @param tagger          A function to dynamically add the tags.
+   * @param customizers     For any additional customization to the underlying meter.
+   * @param registrar       Function to register the underlying meters.
+   * @param tagKeys         The keys that this meter will have, and allow their values to be added
+   *                        dynamically.
+   */
+  protected DynamicMeter(
+      @NotNull MeterRegistry registry,
+      @NotNull String name,
+      @NotNull BiFunction<String, R, E> newInnerBuilder,
+      @NotNull BiFunction<E, Collection<Tag>, E> tagger,
+      @Nullable Collection<UnaryOperator<E>> customizers,
+      @NotNull Function<E, T> registrar,
+      String @NotNull... tagKeys) {
+    this(registry, name, newInnerBuilder, tagger, customizers, registrar,
+        DynamicMeterOptions.DEFAULTS, tagKeys);
+  }
 
   /**
    * Construct a new DynamicMeter.
@@ -79,6 +250,7 @@ public abstract class DynamicMeter<T extends Meter, E, R extends MeterParams> {
    * @param tagger          A function to dynamically add the tags.
    * @param customizers     For any additional customization to the underlying meter.
    * @param registrar       Function to register the underlying meters.
+   * @param options         Policies for managing the series of this meter.
    * @param tagKeys         The keys that this meter will have, and allow their values to be added
    *                        dynamically.
    */
@@ -89,31 +261,235 @@ public abstract class DynamicMeter<T extends Meter, E, R extends MeterParams> {
       @NotNull BiFunction<E, Collection<Tag>, E> tagger,
       @Nullable Collection<UnaryOperator<E>> customizers,
       @NotNull Function<E, T> registrar,
+      @NotNull DynamicMeterOptions options,
       String @NotNull... tagKeys) {
     this.registry = registry;
     this.name = name;
     this.newInnerBuilder = newInnerBuilder;
     this.tagger = tagger;
-    this.customizer = reduceCustomizers(customizers);
+    this.customizers = compileCustomizers(customizers);
     this.registrar = registrar;
     this.tagKeys = tagKeys;
+    this.options = options;
     this.meters = new ConcurrentHashMap<>();
+    this.evictionPolicy = options.getMaxSeries() > 0 ? options.getEvictionPolicy() : null;
+    this.clock = new AtomicLong();
+    this.evicting = new AtomicBoolean();
+    this.probes = ThreadLocal.withInitial(SeriesKey::probe);
+    if (options.isDictionaryEncoding()) {
+      this.dictionaries = Arrays.stream(tagKeys).map(TagDictionary::new)
+          .toArray(TagDictionary[]::new);
+      this.lookupTags = ThreadLocal.withInitial(() -> new Tag[tagKeys.length]);
+    } else {
+      this.dictionaries = null;
+      this.lookupTags = null;
+    }
+    this.expiring = options.getExpireAfterIdle() != null;
+    this.sweeps = new AtomicLong();
+    this.trie = options.isPrefixIndex() && tagKeys.length > 0
+        ? new SeriesTrie<>(tagKeys.length)
+        : null;
+    boolean buffered = options.getFlushInterval() != null;
+    this.slots = options.isSlotted() || buffered ? new Slots<>(buffered) : null;
+    if (buffered) {
+      this.accumulator = new StripedAccumulator<>(slots);
+    } else {
+      this.accumulator = null;
+    }
+    if (options.getTagValueLimits().isEmpty()) {
+      this.limiters = null;
+      this.limitedValues = null;
+    } else {
+      this.limiters = limiters(options, tagKeys);
+      this.limitedValues = ThreadLocal.withInitial(() -> new String[tagKeys.length]);
+    }
+    if (options.getTagValueNormalizers().isEmpty()) {
+      this.normalizers = null;
+      this.normalizedValues = null;
+    } else {
+      this.normalizers = normalizers(options, tagKeys);
+      this.normalizedValues = ThreadLocal.withInitial(() -> new String[tagKeys.length]);
+    }
+    this.selfMetrics = options.isSelfMetrics() ? new SelfMetrics(registry, name) : null;
+    this.rollUps = options.getRollUps().isEmpty()
+        ? null
+        : rollUps(registry, name, options, tagKeys);
+  }
+
+  /**
+   * Starts a newly constructed meter: schedules its maintenance, reports its size to its self
+   * metrics and makes it visible to {@link DynamicMeters#all()}. These hand the meter to other
+   * threads, so the builder calls this once, after the constructors of all the subclasses are done.
+   */
+  void start() {
+    if (expiring) {
+      Housekeeping.schedule(this, DynamicMeter::expireIdle,
+          options.getExpireAfterIdle().dividedBy(IDLE_SWEEPS));
+    }
+    if (accumulator != null) {
+      Housekeeping.schedule(this, DynamicMeter::flushAccumulated, options.getFlushInterval());
+    }
+    if (selfMetrics != null) {
+      selfMetrics.watch(this);
+    }
+    DynamicMeters.add(this);
+  }
+
+  private static TagValueLimiter @NotNull [] limiters(
+      DynamicMeterOptions options, String[] tagKeys) {
+    List<TagValueLimiter> limiters = new ArrayList<>();
+    options.getTagValueLimits().forEach((tagKey, limit) ->
+        limiters.add(new TagValueLimiter(indexOf(tagKeys, tagKey), limit)));
+    return limiters.toArray(new TagValueLimiter[0]);
+  }
+
+  private static TagValueNormalizer @NotNull [] normalizers(
+      DynamicMeterOptions options, String[] tagKeys) {
+    List<TagValueNormalizer> normalizers = new ArrayList<>();
+    options.getTagValueNormalizers().forEach((tagKey, normalizer) ->
+        normalizers.add(new TagValueNormalizer(indexOf(tagKeys, tagKey), tagKey, normalizer,
+            options.getNormalizationCacheSize())));
+    return normalizers.toArray(new TagValueNormalizer[0]);
+  }
+
+  private static <T extends Meter> @NotNull List<RollUp<T>> rollUps(
+      MeterRegistry registry, String name, DynamicMeterOptions options, String[] tagKeys) {
+    if (!cumulative(registry)) {
+      throw new IllegalArgumentException(
+          String.format("Roll-ups of '%s' need a cumulative registry, '%s' publishes steps",
+              name, registry.getClass().getSimpleName()));
+    }
+    List<RollUp<T>> rollUps = new ArrayList<>();
+    options.getRollUps().forEach((rollUpName, keys) -> {
+      if (rollUpName.equals(name)) {
+        throw new IllegalArgumentException(
+            String.format("Roll-up '%s' must not share the name of its meter", rollUpName));
+      }
+      rollUps.add(new RollUp<>(rollUpName, keys, tagKeys));
+    });
+    return rollUps;
+  }
+
+  /**
+   * Whether the meters of the registry are cumulative. Roll-ups sum the values of their series, and
+   * the meters of a step registry only have the values of the last step, so the sums would go
+   * back, and a removed series would only keep the last step of its values.
+   */
+  private static boolean cumulative(MeterRegistry registry) {
+    if (registry instanceof CompositeMeterRegistry) {
+      return ((CompositeMeterRegistry) registry).getRegistries().stream()
+          .allMatch(DynamicMeter::cumulative);
+    }
+    return !(registry instanceof StepMeterRegistry);
+  }
+
+  private static int indexOf(String[] tagKeys, String tagKey) {
+    int index = Arrays.asList(tagKeys).indexOf(tagKey);
+    if (index < 0) {
+      throw new IllegalArgumentException(
+          String.format("Tag key '%s' is not one of '%s'", tagKey, Arrays.toString(tagKeys)));
+    }
+    return index;
   }
 
   protected T getOrCreate(R params, String @NotNull... tagValues) {
     validate(tagValues);
-    var key = key(tagValues);
-    return meters.computeIfAbsent(key, k -> {
-      var builder = newInnerBuilder.apply(name, params);
-      if (customizer != null) {
-        builder = customizer.apply(builder);
-      }
-      List<Tag> tags = IntStream.range(0, this.tagKeys.length)
-          .mapToObj(i -> new ImmutableTag(tagKeys[i], tagValues[i]))
-          .collect(Collectors.toList());
-      tagger.apply(builder, tags);
-      return registrar.apply(builder);
-    });
+    tagValues = overflow(normalize(tagValues));
+    // Fast path, a hit does not allocate.
+    Series<T> existing = lookup(tagValues);
+    if (existing != null) {
+      T meter = existing.meter;
+      if (meter != null) {
+        hit(existing);
+        return meter;
+      }
+    }
+    return miss(params, tagValues).meter;
+  }
+
+  /**
+   * Registers the series with the given tag values ahead of time, in parallel on the common {@link
+   * ForkJoinPool}, see {@link #preRegister(Stream, ForkJoinPool)}.
+   *
+   * @param tagValues The tag values of the series.
+   * @return how long the warm-up took.
+   */
+  protected WarmUpReport preRegister(@NotNull Collection<String[]> tagValues) {
+    return preRegister(tagValues.stream(), ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Registers the series with the given tag values ahead of time, so that the first recordings
+   * into them find their meters in the index rather than registering them. The tag values are
+   * split among the threads of the pool, series that already exist are left as they are. Only
+   * for meters that can be created without params, which make it public.
+   *
+   * @param tagValues The tag values of the series.
+   * @param pool      The pool to register the series on.
+   * @return how long the warm-up took.
+   */
+  protected WarmUpReport preRegister(
+      @NotNull Stream<String[]> tagValues, @NotNull ForkJoinPool pool) {
+    long start = System.nanoTime();
+    LongAdder requested = new LongAdder();
+    // a parallel stream runs its tasks on the pool it is started from.
+    pool.submit(() -> tagValues.parallel().forEach(values -> {
+      getOrCreate(null, values);
+      requested.increment();
+    })).join();
+    WarmUpReport report = new WarmUpReport(
+        requested.intValue(), meters.size(), Duration.ofNanos(System.nanoTime() - start));
+    LOG.debug("Pre-registered '{}' series of '{}' in '{}'",
+        report.getRequested(), name, report.getElapsed());
+    return report;
+  }
+
+  /**
+   * Accumulates an amount into the series with the given tag values, creating it if needed. When
+   * {@link DynamicMeterOptions#getFlushInterval() buffered}, the amount is added to a table of the
+   * current thread and applied to the meter by the next flush, otherwise it is applied right away.
+   *
+   * @param params    Params to create the meter with, if needed.
+   * @param amount    The amount.
+   * @param tagValues The tag values.
+   */
+  protected void accumulate(R params, double amount, String @NotNull... tagValues) {
+    validate(tagValues);
+    tagValues = overflow(normalize(tagValues));
+    Series<T> series = lookup(tagValues);
+    if (series != null && series.meter != null) {
+      hit(series);
+    } else {
+      series = miss(params, tagValues);
+    }
+    if (accumulator != null) {
+      accumulator.add(series, amount);
+    } else {
+      applyAccumulated(series.meter, amount);
+    }
+  }
+
+  /**
+   * Applies an accumulated amount to a meter, see {@link #accumulate(MeterParams, double,
+   * String...)}. Not supported by default, the builder of a meter that overrides this declares
+   * it, see {@link AbstractDynamicMeterBuilder#buffers()}.
+   *
+   * @param meter  The meter.
+   * @param amount The amount.
+   */
+  protected void applyAccumulated(@NotNull T meter, double amount) {
+    throw new UnsupportedOperationException(
+        String.format("Meter '%s' does not accumulate amounts", name));
+  }
+
+  /**
+   * Applies the buffered amounts to their meters, see {@link
+   * DynamicMeterOptions#getFlushInterval()}. Does nothing when amounts are not buffered.
+   */
+  protected void flushAccumulated() {
+    if (accumulator != null) {
+      accumulator.flush(this::applyAccumulated);
+    }
   }
 
   /**
@@ -123,8 +499,704 @@ public abstract class DynamicMeter<T extends Meter, E, R extends MeterParams> {
    * @return the meter, if one was found.
    */
   protected Optional<T> get(String @NotNull... tagValues) {
+    return Optional.ofNullable(find(tagValues));
+  }
+
+  /**
+   * Like {@link #get(String...)}, without wrapping the result. Lets subclasses look up an existing
+   * meter before paying for the construction of its {@link MeterParams}. A meter that is found
+   * counts as a {@link DynamicMeterOptions#isSelfMetrics() hit}, a missing one is counted as a miss
+   * by the {@link #getOrCreate(MeterParams, String...)} that creates it.
+   *
+   * @param tagValues The tag values to check if a meter exists for.
+   * @return the meter, or {@code null} if none was found.
+   */
+  protected @Nullable T find(String @NotNull... tagValues) {
+    validate(tagValues);
+    tagValues = overflow(normalize(tagValues));
+    Series<T> series = lookup(tagValues);
+    T meter = series != null ? series.meter : null;
+    if (meter == null) {
+      return null;
+    }
+    hit(series);
+    return meter;
+  }
+
+  /**
+   * The number of series currently registered by this dynamic meter.
+   *
+   * @return the number of series.
+   */
+  public int size() {
+    return meters.size();
+  }
+
+  /**
+   * The keys of the tags that this meter produces.
+   *
+   * @return the tag keys, in order.
+   */
+  public @NotNull List<String> getTagKeys() {
+    return List.of(tagKeys);
+  }
+
+  /**
+   * Inspects the cardinality of this meter: the number of series, the number of distinct values
+   * of every tag key and its values with the most series. The series are scanned once, without a
+   * snapshot, and the values are summarized in bounded memory, so it is safe to inspect a meter of
+   * millions of series, at the cost of estimates. Series that are created or removed concurrently
+   * may or may not be counted.
+   *
+   * @param topValues The number of values with the most series to report per tag key.
+   * @return the report.
+   */
+  public @NotNull CardinalityReport inspect(int topValues) {
+    if (topValues < 0) {
+      throw new IllegalArgumentException(
+          String.format("Top values must not be negative, got '%d'", topValues));
+    }
+    DistinctValues[] distinct = new DistinctValues[tagKeys.length];
+    TopValues[] top = new TopValues[tagKeys.length];
+    for (int i = 0; i < tagKeys.length; i++) {
+      distinct[i] = new DistinctValues();
+      top[i] = new TopValues(Math.max(1024, topValues * 16));
+    }
+    int series = 0;
+    long valueBytes = 0;
+    for (Series<T> s : meters.values()) {
+      series++;
+      for (int i = 0; i < tagKeys.length; i++) {
+        String value = value(s.key, i);
+        distinct[i].add(value);
+        top[i].add(value);
+        valueBytes += value.length();
+      }
+    }
+    List<CardinalityReport.TagKeyCardinality> keys = new ArrayList<>(tagKeys.length);
+    for (int i = 0; i < tagKeys.length; i++) {
+      keys.add(new CardinalityReport.TagKeyCardinality(
+          tagKeys[i], distinct[i].estimate(), top[i].top(topValues)));
+    }
+    long estimatedBytes = series * (SERIES_BYTES + tagKeys.length * TAG_BYTES) + valueBytes;
+    return new CardinalityReport(name, series, estimatedBytes, keys);
+  }
+
+  /**
+   * Applies the action to the underlying meters whose leading tag values are the given ones, in
+   * tag key order. Meters that are created or removed concurrently may or may not be visited.
+   *
+   * @param action       The action to apply to each matching meter.
+   * @param prefixValues Values for the first tag keys, at most one per tag key. No values match
+   *                     all the meters.
+   */
+  public void forEachWithPrefix(
+      @NotNull Consumer<? super T> action, String @NotNull... prefixValues) {
+    forEachSeries(prefixValues, series -> {
+      T meter = series.meter;
+      if (meter != null) {
+        action.accept(meter);
+      }
+    });
+  }
+
+  /**
+   * Removes the underlying meters whose leading tag values are the given ones, in tag key order,
+   * from this dynamic meter and from the registry. Useful to drop all the series of a
+   * decommissioned tenant or host at once. Without a {@link DynamicMeterOptions#isPrefixIndex()
+   * prefix index}, all the series are scanned.
+   *
+   * @param prefixValues Values for the first tag keys, at most one per tag key. No values remove
+   *                     all the meters.
+   * @return the number of removed meters.
+   */
+  public int removeByPrefix(String @NotNull... prefixValues) {
+    List<Series<T>> matching = new ArrayList<>();
+    forEachSeries(prefixValues, matching::add);
+    int removed = 0;
+    for (Series<T> series : matching) {
+      if (remove(series, s -> true)) {
+        removed++;
+      }
+    }
+    return removed;
+  }
+
+  private void forEachSeries(String @NotNull [] prefixValues, Consumer<Series<T>> action) {
+    if (prefixValues.length > tagKeys.length) {
+      throw new IllegalArgumentException(
+          String.format("Expected at most '%d' values, got '%d'. Keys: '%s'",
+              tagKeys.length, prefixValues.length, Arrays.toString(tagKeys)));
+    }
+    if (normalizers != null) {
+      prefixValues = prefixValues.clone();
+      for (TagValueNormalizer normalizer : normalizers) {
+        if (normalizer.index < prefixValues.length) {
+          prefixValues[normalizer.index] = normalizer.normalize(prefixValues[normalizer.index]);
+        }
+      }
+    }
+    if (trie != null) {
+      trie.forEach(prefixValues, action);
+      return;
+    }
+    for (Series<T> series : meters.values()) {
+      if (startsWith(series.key, prefixValues)) {
+        action.accept(series);
+      }
+    }
+  }
+
+  private boolean startsWith(SeriesKey key, String[] prefixValues) {
+    for (int i = 0; i < prefixValues.length; i++) {
+      if (!value(key, i).equals(prefixValues[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The slow path of a lookup that did not find a ready series. Values are only admitted to their
+   * {@link DynamicMeterOptions#getTagValueLimits() limits} here, values beyond a full limit were
+   * already replaced by {@link #overflow(String[])}, so only a limit that just filled up replaces
+   * them again.
+   */
+  private @NotNull Series<T> miss(R params, String @NotNull [] tagValues) {
+    if (selfMetrics != null) {
+      selfMetrics.misses.increment();
+    }
+    String[] limited = limit(tagValues, true, null);
+    if (limited != tagValues) {
+      Series<T> existing = lookup(limited);
+      if (existing != null && existing.meter != null) {
+        touch(existing);
+        return existing;
+      }
+    }
+    return create(params, storedKey(limited));
+  }
+
+  /**
+   * Normalizes the values of the normalized tag keys.
+   *
+   * @param tagValues The raw tag values.
+   * @return the given array if no tag key is normalized, the per thread buffer otherwise.
+   */
+  private String @NotNull [] normalize(String @NotNull [] tagValues) {
+    if (normalizers == null) {
+      return tagValues;
+    }
+    String[] normalized = normalizedValues.get();
+    System.arraycopy(tagValues, 0, normalized, 0, tagValues.length);
+    for (TagValueNormalizer normalizer : normalizers) {
+      normalized[normalizer.index] = normalizer.normalize(tagValues[normalizer.index]);
+    }
+    return normalized;
+  }
+
+  /**
+   * Replaces the values that are beyond the full limits of their tag keys with the overflow
+   * values, before the lookup, so that calls with overflowing values find the overflow series
+   * without allocating, and count as hits.
+   *
+   * @param tagValues The tag values.
+   * @return the given array if no value was replaced, the per thread buffer otherwise.
+   */
+  private String @NotNull [] overflow(String @NotNull [] tagValues) {
+    return limiters == null ? tagValues : limit(tagValues, false, limitedValues.get());
+  }
+
+  /**
+   * Replaces the values that are beyond the limits of their tag keys with the overflow values.
+   *
+   * @param tagValues The tag values.
+   * @param admit     Whether values that are within the limits are admitted, when creating.
+   * @param buffer    The array to replace the values in, or {@code null} for a copy.
+   * @return the given array if no value was replaced, the buffer or a copy otherwise.
+   */
+  private String @NotNull [] limit(
+      String @NotNull [] tagValues, boolean admit, String @Nullable [] buffer) {
+    if (limiters == null) {
+      return tagValues;
+    }
+    String[] limited = tagValues;
+    for (TagValueLimiter limiter : limiters) {
+      String value = tagValues[limiter.index];
+      String replaced = admit ? limiter.admit(value) : limiter.peek(value);
+      if (replaced != value) {
+        if (limited == tagValues && buffer != null) {
+          System.arraycopy(tagValues, 0, buffer, 0, tagValues.length);
+          limited = buffer;
+        } else if (limited == tagValues) {
+          limited = tagValues.clone();
+        }
+        limited[limiter.index] = replaced;
+      }
+    }
+    return limited;
+  }
+
+  /**
+   * Creates the series with the given key, or waits for a concurrent creation of it to complete.
+   * The series is put in the index as pending before its meter is registered, so the registration
+   * does not hold any of the index's locks: unrelated series are not stalled by a slow
+   * registration, and a registration may create other series of this meter. Only the thread that
+   * put the series registers its meter, so every series is registered exactly once.
+   */
+  private @NotNull Series<T> create(R params, SeriesKey key) {
+    while (true) {
+      Series<T> series = new Series<>(key, clock.getAndIncrement(), sweeps.get());
+      Series<T> existing = meters.putIfAbsent(key, series);
+      if (existing == null) {
+        long start = selfMetrics != null ? System.nanoTime() : 0;
+        if (slots != null) {
+          slots.assign(series);
+        }
+        Executor executor = options.getRegistrationExecutor();
+        if (executor != null) {
+          publishLater(params, series, executor);
+        } else {
+          publish(params, series);
+        }
+        if (selfMetrics != null) {
+          selfMetrics.creation.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return series;
+      }
+      if (existing.await() != null) {
+        releaseKey(key);
+        touch(existing);
+        return existing;
+      }
+      // the concurrent registration failed and removed its series, try again.
+    }
+  }
+
+  private void publish(R params, Series<T> series) {
+    T meter;
+    try {
+      meter = register(params, series);
+    } catch (RuntimeException | Error e) {
+      if (selfMetrics != null) {
+        selfMetrics.failures.increment();
+      }
+      meters.remove(series.key, series);
+      release(series);
+      series.complete(null);
+      throw e;
+    }
+    // pending series are never removed, so the series is still indexed.
+    if (trie != null) {
+      trie.add(values(series.key), series);
+    }
+    series.complete(meter);
+    rollUp(series);
+    evictIfNeeded();
+  }
+
+  /**
+   * Hands out a {@link DeferredMeter} for the series, and registers its meter with the executor.
+   * Deferred series are not removed until they are bound, so their meters cannot be registered
+   * after they are removed.
+   */
+  private void publishLater(R params, Series<T> series, Executor executor) {
+    DeferredMeter<T> deferred = defer(name, tags(series.key));
+    if (deferred == null) {
+      publish(params, series);
+      return;
+    }
+    if (trie != null) {
+      trie.add(values(series.key), series);
+    }
+    series.complete(deferred.meter());
+    rollUp(series);
+    try {
+      executor.execute(() -> bind(params, series, deferred));
+    } catch (RejectedExecutionException e) {
+      bind(params, series, deferred);
+    }
+    evictIfNeeded();
+  }
+
+  private void bind(R params, Series<T> series, DeferredMeter<T> deferred) {
+    T meter;
+    try {
+      meter = register(params, series);
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to register a meter of '{}' with tag values '{}'", name, series.key, e);
+      if (selfMetrics != null) {
+        selfMetrics.failures.increment();
+      }
+      meters.computeIfPresent(series.key, (k, v) -> {
+        if (v != series) {
+          return v;
+        }
+        if (trie != null) {
+          trie.remove(values(k), v);
+        }
+        release(v);
+        unroll(v);
+        return null;
+      });
+      return;
+    }
+    deferred.bind(meter);
+    series.meter = meter;
+  }
+
+  /**
+   * Creates a meter that stands in for the meter of a new series until it is registered, when
+   * registrations are {@link DynamicMeterOptions#getRegistrationExecutor() deferred}.
+   *
+   * @param name The meter name.
+   * @param tags The tags of the series.
+   * @return a deferred meter, or {@code null} to register the meter on the calling thread, see
+   *     {@link #deferredId(String, List, Meter.Type)} for its id.
+   */
+  protected @Nullable DeferredMeter<T> defer(@NotNull String name, @NotNull List<Tag> tags) {
+    return null;
+  }
+
+  /**
+   * The id of a deferred meter. Customizers cannot tell series apart, so the name, description,
+   * base unit and customizer tags that the registered meters of this dynamic meter have are the
+   * same for every series. They are taken from the first registered meter, without running the
+   * customizers on the calling thread, and only the series tags are missing until then.
+   *
+   * @param name The meter name.
+   * @param tags The tags of the series.
+   * @param type The type of the meter.
+   * @return the id that the deferred meter reports until it is bound.
+   */
+  protected @NotNull Meter.Id deferredId(
+      @NotNull String name, @NotNull List<Tag> tags, @NotNull Meter.Type type) {
+    Meter.Id registered = registeredId;
+    return registered == null
+        ? new Meter.Id(name, Tags.of(tags), null, null, type)
+        : new Meter.Id(registered.getName(), Tags.of(registered.getTagsAsIterable()).and(tags),
+            registered.getBaseUnit(), registered.getDescription(), type);
+  }
+
+  /**
+   * The measures that the roll-ups of this meter sum over its series, see {@link
+   * RollUpSeries#sum(int)}. Not supported by default, the builder of a meter that overrides this
+   * and {@link #registerRollUp} declares it, see {@link AbstractDynamicMeterBuilder#rollsUp()}.
+   *
+   * @return the measures, by index.
+   */
+  protected @NotNull List<ToDoubleFunction<? super T>> rollUpMeasures() {
+    throw new UnsupportedOperationException(
+        String.format("Meter '%s' does not support roll-ups", name));
+  }
+
+  /**
+   * Registers the meter of a new roll-up series, typically a function meter over the {@link
+   * RollUpSeries#sum(int) sums} of the series. Not supported by default.
+   *
+   * @param registry The registry of this dynamic meter.
+   * @param name     The name of the roll-up.
+   * @param tags     The tags of the roll-up series.
+   * @param series   The roll-up series.
+   * @return the registered meter.
+   */
+  protected @NotNull Meter registerRollUp(@NotNull MeterRegistry registry, @NotNull String name,
+      @NotNull List<Tag> tags, @NotNull RollUpSeries<T> series) {
+    throw new UnsupportedOperationException(
+        String.format("Meter '%s' does not support roll-ups", this.name));
+  }
+
+  /**
+   * Called once the meter of a new series is registered, before it is handed out, e.g. to register
+   * meters that go along with it. Does nothing by default.
+   *
+   * @param meter The registered meter.
+   */
+  protected void registered(@NotNull T meter) {
+  }
+
+  /**
+   * Called once the meter of a removed series is removed from the registry, see {@link
+   * #registered(Meter)}. Does nothing by default.
+   *
+   * @param meter The removed meter.
+   */
+  protected void unregistered(@NotNull T meter) {
+  }
+
+  /**
+   * Binds the params of a new series to the slot it was assigned, for meters that keep their values
+   * in {@link DynamicMeterOptions#isSlotted() slots}. Called before the meter of the series is
+   * registered, returns the params as-is by default.
+   *
+   * @param params    The params the series is created with.
+   * @param slot      The slot of the series.
+   * @param tagValues The tag values of the series.
+   * @return the params to build the meter with.
+   */
+  protected R withSlot(R params, int slot, String @NotNull [] tagValues) {
+    return params;
+  }
+
+  /**
+   * Called when the series that was assigned the slot is removed, before the slot may be assigned
+   * to a new series. Does nothing by default.
+   *
+   * @param slot The slot.
+   */
+  protected void slotReleased(int slot) {
+  }
+
+  /**
+   * The slot of the series with the given tag values, creating the series if needed. Only for
+   * meters that keep their values in {@link DynamicMeterOptions#isSlotted() slots}. A series that
+   * is removed concurrently may have its slot reused by a new series.
+   *
+   * @param params    Params to create the meter with, if needed.
+   * @param tagValues The tag values.
+   * @return the slot.
+   */
+  protected int slotOf(R params, String @NotNull... tagValues) {
     validate(tagValues);
-    return Optional.ofNullable(meters.get(key(tagValues)));
+    tagValues = overflow(normalize(tagValues));
+    Series<T> series = lookup(tagValues);
+    if (series != null && series.meter != null) {
+      hit(series);
+      return series.slot;
+    }
+    return miss(params, tagValues).slot;
+  }
+
+  private @NotNull T register(R params, Series<T> series) {
+    SeriesKey key = series.key;
+    var builder = newInnerBuilder.apply(
+        name, slots != null ? withSlot(params, series.slot, values(key)) : params);
+    for (UnaryOperator<E> customizer : customizers) {
+      builder = customizer.apply(builder);
+    }
+    tagger.apply(builder, tags(key));
+    T meter = registrar.apply(builder);
+    if (registeredId == null) {
+      registeredId = meter.getId();
+    }
+    registered(meter);
+    return meter;
+  }
+
+  private @NotNull List<Tag> tags(SeriesKey key) {
+    Tag[] tags = new Tag[tagKeys.length];
+    for (int i = 0; i < tags.length; i++) {
+      tags[i] = tag(key, i);
+    }
+    return Arrays.asList(tags);
+  }
+
+  private @Nullable Series<T> lookup(String @NotNull [] tagValues) {
+    SeriesKey probe = probes.get();
+    if (dictionaries == null) {
+      try {
+        return meters.get(probe.wrap(tagValues));
+      } finally {
+        probe.clear();
+      }
+    }
+    Tag[] tags = lookupTags.get();
+    for (int i = 0; i < tagValues.length; i++) {
+      Tag tag = dictionaries[i].find(tagValues[i]);
+      if (tag == null) {
+        // a value that is not in use cannot be part of an existing series.
+        return null;
+      }
+      tags[i] = tag;
+    }
+    return meters.get(probe.wrapTags(tags));
+  }
+
+  /**
+   * The key of a new series. Its dictionary encoded values are acquired, and must be released with
+   * {@link #releaseKey(SeriesKey)} once the key is no longer in the index.
+   */
+  private @NotNull SeriesKey storedKey(String @NotNull [] tagValues) {
+    if (dictionaries == null) {
+      return SeriesKey.copyOf(tagValues);
+    }
+    Tag[] tags = new Tag[tagValues.length];
+    for (int i = 0; i < tagValues.length; i++) {
+      tags[i] = dictionaries[i].acquire(tagValues[i]);
+    }
+    return SeriesKey.copyOfTags(tags);
+  }
+
+  private void releaseKey(SeriesKey key) {
+    if (dictionaries == null) {
+      return;
+    }
+    for (int i = 0; i < dictionaries.length; i++) {
+      dictionaries[i].release(key.tag(i));
+    }
+  }
+
+  private @NotNull Tag tag(SeriesKey key, int index) {
+    return dictionaries != null
+        ? key.tag(index)
+        : new ImmutableTag(tagKeys[index], key.value(index));
+  }
+
+  private @NotNull String value(SeriesKey key, int index) {
+    return dictionaries != null
+        ? key.tag(index).getValue()
+        : key.value(index);
+  }
+
+  private String @NotNull [] values(SeriesKey key) {
+    String[] values = new String[key.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = value(key, i);
+    }
+    return values;
+  }
+
+  private void hit(Series<T> series) {
+    if (selfMetrics != null) {
+      selfMetrics.hits.increment();
+    }
+    touch(series);
+  }
+
+  private void touch(Series<T> series) {
+    if (evictionPolicy != null) {
+      evictionPolicy.touch(series, clock.get(), options.getMaxSeries());
+    }
+    if (expiring) {
+      long sweep = sweeps.get();
+      if (series.lastSweep != sweep) {
+        series.lastSweep = sweep;
+      }
+    }
+  }
+
+  /**
+   * Removes the series that were not accessed during the last {@link #IDLE_SWEEPS} sweeps. Sweeps
+   * run every {@code expireAfterIdle / IDLE_SWEEPS}, so a removed series was idle for at least
+   * {@code expireAfterIdle}. The housekeeping thread runs the sweeps, tests call it directly.
+   */
+  void expireIdle() {
+    long threshold = sweeps.incrementAndGet() - IDLE_SWEEPS;
+    for (Series<T> series : meters.values()) {
+      if (series.lastSweep < threshold) {
+        remove(series, s -> s.lastSweep < threshold);
+      }
+    }
+  }
+
+  /**
+   * Evicts series once there are more than {@link DynamicMeterOptions#getMaxSeries()}. Scanning
+   * all the series is linear, so for large limits a few percent more than the excess are evicted
+   * at once, which amortizes the scan over the creations that follow.
+   */
+  private void evictIfNeeded() {
+    if (evictionPolicy == null) {
+      return;
+    }
+    int max = options.getMaxSeries();
+    if (meters.size() <= max || !evicting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      int excess = meters.size() - (max - (max >> 5));
+      if (excess <= 0) {
+        return;
+      }
+      long now = clock.get();
+      PriorityQueue<Candidate<T>> victims = new PriorityQueue<>(
+          excess, Comparator.comparingLong((Candidate<T> c) -> c.rank).reversed());
+      for (Series<T> series : meters.values()) {
+        if (!removable(series)) {
+          continue;
+        }
+        long rank = evictionPolicy.rank(series, now, max);
+        if (victims.size() < excess) {
+          victims.add(new Candidate<>(rank, series));
+        } else if (rank < victims.element().rank) {
+          victims.remove();
+          victims.add(new Candidate<>(rank, series));
+        }
+      }
+      for (Candidate<T> victim : victims) {
+        remove(victim.series, s -> true);
+      }
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+  /**
+   * Removes the series from this dynamic meter and its meter from the registry, if the series
+   * still satisfies the condition and is neither pending nor deferred. Both happen under the lock
+   * of the series' bin, so a concurrent creation of the same series only puts its own pending
+   * series once the meter is removed from the registry, and registers a new meter.
+   *
+   * @return whether the series was removed.
+   */
+  private boolean remove(Series<T> series, Predicate<Series<T>> condition) {
+    boolean[] removed = new boolean[1];
+    meters.computeIfPresent(series.key, (k, v) -> {
+      if (v != series || !removable(v) || !condition.test(v)) {
+        return v;
+      }
+      registry.remove(v.meter);
+      unregistered(v.meter);
+      if (trie != null) {
+        trie.remove(values(k), v);
+      }
+      release(v);
+      unroll(v);
+      removed[0] = true;
+      return null;
+    });
+    return removed[0];
+  }
+
+  private void release(Series<T> series) {
+    releaseKey(series.key);
+    if (slots != null) {
+      slotReleased(series.slot);
+      slots.release(series);
+    }
+  }
+
+  private void rollUp(Series<T> series) {
+    if (rollUps == null) {
+      return;
+    }
+    String[] values = values(series.key);
+    for (RollUp<T> rollUp : rollUps) {
+      RollUpSeries<T> unregistered = rollUp.add(values, series, this::rollUpMeasures);
+      if (unregistered != null) {
+        try {
+          registerRollUp(registry, rollUp.getName(), rollUp.tags(values), unregistered);
+        } catch (RuntimeException e) {
+          LOG.warn("Failed to register roll-up '{}' of '{}'", rollUp.getName(), name, e);
+          // the next series of the roll-up series registers it again.
+          unregistered.registrationFailed();
+        }
+      }
+    }
+  }
+
+  private void unroll(Series<T> series) {
+    if (rollUps == null) {
+      return;
+    }
+    String[] values = values(series.key);
+    for (RollUp<T> rollUp : rollUps) {
+      rollUp.remove(values, series);
+    }
+  }
+
+  private boolean removable(Series<T> series) {
+    T meter = series.meter;
+    return meter != null && !(meter instanceof DeferredMeter);
   }
 
   private void validate(String @NotNull... tagValues) {
@@ -135,15 +1207,20 @@ public abstract class DynamicMeter<T extends Meter, E, R extends MeterParams> {
     }
   }
 
-  private @NotNull String key(String... tagValues) {
-    return Arrays.toString(tagValues);
+  @SuppressWarnings("unchecked")
+  private UnaryOperator<E> @NotNull [] compileCustomizers(
+      @Nullable Collection<UnaryOperator<E>> customizers) {
+    return customizers == null
+        ? new UnaryOperator[0]
+        : customizers.toArray(new UnaryOperator[0]);
   }
 
-  private @Nullable UnaryOperator<E> reduceCustomizers(
-      @Nullable Collection<UnaryOperator<E>> customizers) {
-    return customizers == null || customizers.isEmpty()
-        ? null
-        : customizers.stream().reduce((l, r) -> b -> l.andThen(r).apply(b)).orElse(null);
+  @Value
+  private static class Candidate<T extends Meter> {
+
+    long rank;
+    Series<T> series;
+
   }
 
 }
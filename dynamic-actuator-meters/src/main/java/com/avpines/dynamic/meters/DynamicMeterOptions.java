@@ -0,0 +1,125 @@
+package com.avpines.dynamic.meters;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.UnaryOperator;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Policies that control how a {@link DynamicMeter} manages its series, as opposed to how each of
+ * the underlying meters is built.
+ */
+@Value
+@Builder(toBuilder = true)
+public class DynamicMeterOptions {
+
+  /**
+   * Options of a dynamic meter with no policies at all.
+   */
+  public static final DynamicMeterOptions DEFAULTS = DynamicMeterOptions.builder().build();
+
+  /**
+   * The maximum number of series, {@code 0} for no limit. Once exceeded, series are evicted
+   * according to the {@link #evictionPolicy} and removed from the registry.
+   */
+  @Builder.Default
+  int maxSeries = 0;
+
+  /**
+   * Decides which series to evict once {@link #maxSeries} is exceeded.
+   */
+  @Builder.Default
+  @NotNull EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+
+  /**
+   * Series that were not accessed for this long are removed, along with their meters in the
+   * registry. {@code null} to keep idle series.
+   */
+  @Nullable Duration expireAfterIdle;
+
+  /**
+   * Whether tag values are interned into a dictionary per tag key, so that all the series with the
+   * same tag value share a single {@link io.micrometer.core.instrument.Tag}, which the index is
+   * keyed by.
+   */
+  boolean dictionaryEncoding;
+
+  /**
+   * Whether series are also indexed by a tree with one level per tag key, so that the series that
+   * share leading tag values can be found and removed without scanning all the series.
+   */
+  boolean prefixIndex;
+
+  /**
+   * Registers the meters of new series, {@code null} to register them on the calling thread. Until
+   * its meter is registered, a new series is handed out as a {@link DeferredMeter} that buffers its
+   * recordings.
+   */
+  @Nullable Executor registrationExecutor;
+
+  /**
+   * Amounts that are accumulated into the series are buffered in tables that are confined to the
+   * threads that add them, and flushed into the meters at this interval. {@code null} to apply them
+   * right away.
+   */
+  @Nullable Duration flushInterval;
+
+  /**
+   * Whether every series is assigned a slot, a small int that indexes primitive storage. Set by
+   * the dynamic meters that keep the values of their series themselves, such as {@link
+   * com.avpines.dynamic.meters.gauge.DynamicValueGauge}.
+   */
+  boolean slotted;
+
+  /**
+   * Bounds the number of distinct values of tag keys, by tag key. Values beyond the limit of their
+   * key are replaced by its overflow value before the series is looked up, so they all fold into a
+   * single series per combination of the other tag values.
+   */
+  @Singular
+  @NotNull Map<String, TagValueLimit> tagValueLimits;
+
+  /**
+   * Normalize the values of tag keys, by tag key, before the series is looked up. The normalized
+   * value of every raw value is memoized, up to {@link #normalizationCacheSize} values per tag key.
+   */
+  @Singular
+  @NotNull Map<String, UnaryOperator<String>> tagValueNormalizers;
+
+  /**
+   * The maximum number of raw values whose normalized values are memoized, per tag key.
+   */
+  @Builder.Default
+  int normalizationCacheSize = 10_000;
+
+  /**
+   * Roll-ups by name, each over a subset of the tag keys. A roll-up is a function meter per
+   * combination of values of its tag keys, that sums the series with those values when it is
+   * published, so recording into a series does not record into its roll-ups. Only supported by the
+   * dynamic meters that {@link DynamicMeter#registerRollUp register roll-up meters}.
+   */
+  @Singular
+  @NotNull Map<String, List<String>> rollUps;
+
+  /**
+   * Only 1 in this many events that are recorded through the dynamic meter, rather than through
+   * its underlying meters, are recorded, each with the weight of the events that were skipped. At
+   * {@code 1} every event is recorded.
+   */
+  @Builder.Default
+  int sampleRate = 1;
+
+  /**
+   * Whether the dynamic meter publishes meters about itself to its registry: lookup hits and
+   * misses, the latency of creating series, the number of series and the registrations that
+   * failed.
+   */
+  boolean selfMetrics;
+
+}
@@ -0,0 +1,25 @@
+package com.avpines.dynamic.meters;
+
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Adjusts the options of every dynamic meter that is built for a registry, see {@link
+ * DynamicMeters#setPolicy(io.micrometer.core.instrument.MeterRegistry, DynamicMeterPolicy)}. Lets
+ * options be set by configuration rather than at every builder call site.
+ */
+@FunctionalInterface
+public interface DynamicMeterPolicy {
+
+  /**
+   * Adjusts the options of a dynamic meter that is being built.
+   *
+   * @param name    The name of the dynamic meter.
+   * @param tagKeys The tag keys of the dynamic meter.
+   * @param options The options that were set on the builder.
+   * @return the options to build the dynamic meter with.
+   */
+  @NotNull DynamicMeterOptions apply(
+      @NotNull String name, @NotNull List<String> tagKeys, @NotNull DynamicMeterOptions options);
+
+}
@@ -0,0 +1,113 @@
+package com.avpines.dynamic.meters;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The dynamic meters of this process, for inspection, and the {@link DynamicMeterPolicy policies}
+ * of the registries they are built for. Every dynamic meter joins when it is built, and is only
+ * weakly referenced, so a dynamic meter that is no longer used leaves once it is collected. The
+ * references of collected meters are pruned whenever a meter joins or the meters are listed, so
+ * building short-lived meters does not accumulate them.
+ */
+public final class DynamicMeters {
+
+  /**
+   * The meters, by the order they joined in.
+   */
+  private static final Map<Long, Member> METERS = new ConcurrentSkipListMap<>();
+
+  private static final ReferenceQueue<DynamicMeter<?, ?, ?>> COLLECTED = new ReferenceQueue<>();
+
+  private static final AtomicLong JOINED = new AtomicLong();
+
+  private static final Map<MeterRegistry, DynamicMeterPolicy> POLICIES =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  private DynamicMeters() {
+  }
+
+  /**
+   * Sets the policy that adjusts the options of the dynamic meters that are built for a registry
+   * from now on. The registry is only weakly referenced.
+   *
+   * @param registry The registry.
+   * @param policy   The policy, {@code null} to remove it.
+   */
+  public static void setPolicy(
+      @NotNull MeterRegistry registry, @Nullable DynamicMeterPolicy policy) {
+    if (policy != null) {
+      POLICIES.put(registry, policy);
+    } else {
+      POLICIES.remove(registry);
+    }
+  }
+
+  /**
+   * Removes the policy of a registry, if it is still the given one.
+   *
+   * @param registry The registry.
+   * @param policy   The policy to remove.
+   */
+  public static void removePolicy(
+      @NotNull MeterRegistry registry, @NotNull DynamicMeterPolicy policy) {
+    POLICIES.remove(registry, policy);
+  }
+
+  static @Nullable DynamicMeterPolicy policy(@NotNull MeterRegistry registry) {
+    return POLICIES.get(registry);
+  }
+
+  static void add(@NotNull DynamicMeter<?, ?, ?> meter) {
+    prune();
+    long order = JOINED.getAndIncrement();
+    METERS.put(order, new Member(meter, order));
+  }
+
+  /**
+   * The dynamic meters that are still reachable, in the order they were built.
+   *
+   * @return the dynamic meters.
+   */
+  public static @NotNull List<DynamicMeter<?, ?, ?>> all() {
+    prune();
+    List<DynamicMeter<?, ?, ?>> all = new ArrayList<>();
+    for (Member member : METERS.values()) {
+      DynamicMeter<?, ?, ?> meter = member.get();
+      if (meter != null) {
+        all.add(meter);
+      }
+    }
+    return all;
+  }
+
+  private static void prune() {
+    Reference<? extends DynamicMeter<?, ?, ?>> collected;
+    while ((collected = COLLECTED.poll()) != null) {
+      METERS.remove(((Member) collected).order);
+    }
+  }
+
+  private static final class Member extends WeakReference<DynamicMeter<?, ?, ?>> {
+
+    private final long order;
+
+    private Member(DynamicMeter<?, ?, ?> meter, long order) {
+      super(meter, COLLECTED);
+      this.order = order;
+    }
+
+  }
+
+}
@@ -0,0 +1,93 @@
+package com.avpines.dynamic.meters;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which series are evicted once a {@link DynamicMeter} reaches its maximum number of
+ * series.
+ */
+public enum EvictionPolicy {
+
+  /**
+   * Evicts the least recently used series.
+   */
+  LRU {
+    @Override
+    void touch(Series<?> series, long now, int decayPeriod) {
+      if (series.lastAccess != now) {
+        series.lastAccess = now;
+      }
+    }
+
+    @Override
+    long rank(Series<?> series, long now, int decayPeriod) {
+      return series.lastAccess;
+    }
+  },
+
+  /**
+   * Evicts the least frequently used series, approximately. Each series keeps a small logarithmic
+   * counter that is incremented with a decreasing probability, so hot series rarely write to it.
+   * Like in Redis, the counter decays by one for every decay period of the clock that passed since
+   * the last access to the series, so past popularity fades with time rather than with the number
+   * of evictions, and a burst of one-off series cannot push out a hot one. The clock ticks once
+   * per created series and the decay period is {@link DynamicMeterOptions#getMaxSeries()}.
+   */
+  LFU {
+    @Override
+    void touch(Series<?> series, long now, int decayPeriod) {
+      int f;
+      if (series.lastAccess != now) {
+        int current = series.frequency;
+        f = decayed(series, current, now, decayPeriod);
+        series.lastAccess = now;
+        if (f != current) {
+          series.frequency = f;
+        }
+      } else {
+        f = series.frequency;
+      }
+      if (f < MAX_FREQUENCY && ThreadLocalRandom.current().nextInt(f * FREQUENCY_FACTOR + 1) == 0) {
+        series.frequency = f + 1;
+      }
+    }
+
+    @Override
+    long rank(Series<?> series, long now, int decayPeriod) {
+      int f = decayed(series, series.frequency, now, decayPeriod);
+      // ties are broken by recency.
+      return ((long) f << 48) | (series.lastAccess & 0xFFFF_FFFF_FFFFL);
+    }
+  };
+
+  static final int INITIAL_FREQUENCY = 5;
+
+  private static final int MAX_FREQUENCY = 255;
+
+  private static final int FREQUENCY_FACTOR = 10;
+
+  /**
+   * Records an access to the series.
+   *
+   * @param series      The accessed series.
+   * @param now         The current {@link DynamicMeter} clock.
+   * @param decayPeriod The ticks of the clock it takes for an access to fade, at least 1.
+   */
+  abstract void touch(Series<?> series, long now, int decayPeriod);
+
+  /**
+   * The rank of the series, lower ranks are evicted first.
+   *
+   * @param series      The series to rank.
+   * @param now         The current {@link DynamicMeter} clock.
+   * @param decayPeriod The ticks of the clock it takes for an access to fade, at least 1.
+   * @return its rank.
+   */
+  abstract long rank(Series<?> series, long now, int decayPeriod);
+
+  private static int decayed(Series<?> series, int frequency, long now, int decayPeriod) {
+    long periods = (now - series.lastAccess) / decayPeriod;
+    return periods >= frequency ? 0 : frequency - (int) periods;
+  }
+
+}
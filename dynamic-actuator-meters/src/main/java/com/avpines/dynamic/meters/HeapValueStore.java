@@ -0,0 +1,55 @@
+package com.avpines.dynamic.meters;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * A {@link ValueStore} over chunks of {@code double} arrays, so growing it never copies values and
+ * a slot always stays at the same place.
+ */
+final class HeapValueStore implements ValueStore {
+
+  private static final int CHUNK_BITS = 12;
+
+  private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+  private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(double[].class);
+
+  private volatile double[][] chunks = new double[0][];
+
+  @Override
+  public synchronized void ensureCapacity(int slot) {
+    int chunk = slot >>> CHUNK_BITS;
+    double[][] current = chunks;
+    if (chunk < current.length) {
+      return;
+    }
+    double[][] grown = Arrays.copyOf(current, Math.max(chunk + 1, current.length * 2));
+    for (int i = current.length; i < grown.length; i++) {
+      grown[i] = new double[1 << CHUNK_BITS];
+    }
+    chunks = grown;
+  }
+
+  @Override
+  public double get(int slot) {
+    return (double) VALUES.getVolatile(chunks[slot >>> CHUNK_BITS], slot & CHUNK_MASK);
+  }
+
+  @Override
+  public void set(int slot, double value) {
+    VALUES.setVolatile(chunks[slot >>> CHUNK_BITS], slot & CHUNK_MASK, value);
+  }
+
+  @Override
+  public void add(int slot, double amount) {
+    double[] chunk = chunks[slot >>> CHUNK_BITS];
+    int index = slot & CHUNK_MASK;
+    double current;
+    do {
+      current = (double) VALUES.getVolatile(chunk, index);
+    } while (!VALUES.compareAndSet(chunk, index, current, current + amount));
+  }
+
+}
@@ -0,0 +1,79 @@
+package com.avpines.dynamic.meters;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A single low priority daemon thread, shared by all the dynamic meters, and the stores of their
+ * values, for their periodic maintenance.
+ */
+@Slf4j
+public final class Housekeeping {
+
+  private static final ScheduledExecutorService EXECUTOR =
+      Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "dynamic-meters-housekeeping");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+      });
+
+  private Housekeeping() {
+  }
+
+  /**
+   * Periodically runs a task on the target for as long as the target is reachable. The target is
+   * only weakly referenced, a dynamic meter that is no longer used is not kept alive by its
+   * maintenance.
+   *
+   * @param target The object to maintain.
+   * @param task   The maintenance task.
+   * @param period The period between runs.
+   * @param <T>    The target type.
+   */
+  public static <T> void schedule(
+      @NotNull T target, @NotNull Consumer<T> task, @NotNull Duration period) {
+    long nanos = Math.max(period.toNanos(), 1);
+    WeakTask<T> weakTask = new WeakTask<>(new WeakReference<>(target), task);
+    weakTask.future = EXECUTOR.scheduleWithFixedDelay(
+        weakTask, nanos, nanos, TimeUnit.NANOSECONDS);
+  }
+
+  private static final class WeakTask<T> implements Runnable {
+
+    private final WeakReference<T> target;
+    private final Consumer<T> task;
+    private volatile ScheduledFuture<?> future;
+
+    private WeakTask(WeakReference<T> target, Consumer<T> task) {
+      this.target = target;
+      this.task = task;
+    }
+
+    @Override
+    public void run() {
+      T t = target.get();
+      if (t == null) {
+        ScheduledFuture<?> f = future;
+        if (f != null) {
+          f.cancel(false);
+        }
+        return;
+      }
+      try {
+        task.accept(t);
+      } catch (RuntimeException e) {
+        LOG.warn("Dynamic meter maintenance failed", e);
+      }
+    }
+
+  }
+
+}
@@ -3,10 +3,18 @@ package com.avpines.dynamic.meters;
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -18,6 +26,31 @@ import org.jetbrains.annotations.Nullable;
  */
 public class ParameterlessDynamicMeter<T extends Meter, E> extends DynamicMeter<T, E, VoidParams> {
 
+  /**
+   * Construct a new ParameterlessDynamicMeter with the {@link DynamicMeterOptions#DEFAULTS default
+   * options}.
+   *
+   * @param registry        To register the underlying meters.
+   * @param name            Meter name, all underlying meters will share that name.
+   * @param newInnerBuilder A function to construct the underlying meter builder.
+   * @param tagger          A function to dynamically add the tags.
+   * @param customizers     For any additional customization to the underlying meter.
+   * @param registrar       Function to register the underlying meters.
+   * @param tagKeys         The keys that this meter will have, and allow their values to be added
+   *                        dynamically.
+   */
+  protected ParameterlessDynamicMeter(
+      @NotNull MeterRegistry registry,
+      @NotNull String name,
+      @NotNull Function<String, E> newInnerBuilder,
+      @NotNull BiFunction<E, Collection<Tag>, E> tagger,
+      @Nullable Collection<UnaryOperator<E>> customizers,
+      @NotNull Function<E, T> registrar,
+      String @NotNull... tagKeys) {
+    this(registry, name, newInnerBuilder, tagger, customizers, registrar,
+        DynamicMeterOptions.DEFAULTS, tagKeys);
+  }
+
   /**
    * Construct a new ParameterlessDynamicMeter.
    *
@@ -27,6 +60,7 @@ public class ParameterlessDynamicMeter<T extends Meter, E> extends DynamicMeter<
    * @param tagger          A function to dynamically add the tags.
    * @param customizers     For any additional customization to the underlying meter.
    * @param registrar       Function to register the underlying meters.
+   * @param options         Policies for managing the series of this meter.
    * @param tagKeys         The keys that this meter will have, and allow their values to be added
    *                        dynamically.
    */
@@ -37,9 +71,11 @@ public class ParameterlessDynamicMeter<T extends Meter, E> extends DynamicMeter<
       @NotNull BiFunction<E, Collection<Tag>, E> tagger,
       @Nullable Collection<UnaryOperator<E>> customizers,
       @NotNull Function<E, T> registrar,
+      @NotNull DynamicMeterOptions options,
       String @NotNull... tagKeys) {
     super(
-        registry, name, (s, p) -> newInnerBuilder.apply(s), tagger, customizers, registrar, tagKeys
+        registry, name, (s, p) -> newInnerBuilder.apply(s), tagger, customizers, registrar, options,
+        tagKeys
     );
   }
 
@@ -55,4 +91,64 @@ public class ParameterlessDynamicMeter<T extends Meter, E> extends DynamicMeter<
     return super.getOrCreate(null, tagValues);
   }
 
+  /**
+   * Registers the series with the given tag values ahead of time, in parallel on the common {@link
+   * ForkJoinPool}, so that the first recordings into them do not pay for registering them.
+   *
+   * @param tagValues The tag values of the series, should correspond to the given tag keys when
+   *                  this dynamic meter was constructed.
+   * @return how long the warm-up took.
+   */
+  @Override
+  public WarmUpReport preRegister(@NotNull Collection<String[]> tagValues) {
+    return super.preRegister(tagValues);
+  }
+
+  /**
+   * Registers the series with the given tag values ahead of time, in parallel on the given pool,
+   * so that the first recordings into them do not pay for registering them.
+   *
+   * @param tagValues The tag values of the series, should correspond to the given tag keys when
+   *                  this dynamic meter was constructed.
+   * @param pool      The pool to register the series on.
+   * @return how long the warm-up took.
+   */
+  @Override
+  public WarmUpReport preRegister(
+      @NotNull Stream<String[]> tagValues, @NotNull ForkJoinPool pool) {
+    return super.preRegister(tagValues, pool);
+  }
+
+  /**
+   * Aggregates a batch of events per series, then applies the aggregate of every series to its
+   * meter. The meter of each distinct series is looked up once, no matter how many events it has.
+   *
+   * @param events       The events to record.
+   * @param tagValues    The tag values of the series of an event.
+   * @param newAggregate Creates an empty aggregate for a series.
+   * @param aggregate    Adds an event to the aggregate of its series.
+   * @param apply        Applies the aggregate of a series to its meter.
+   * @param <V>          The event type.
+   * @param <A>          The aggregate type.
+   */
+  protected <V, A> void aggregate(
+      @NotNull Iterable<? extends V> events,
+      @NotNull Function<? super V, String[]> tagValues,
+      @NotNull Supplier<A> newAggregate,
+      @NotNull BiConsumer<A, ? super V> aggregate,
+      @NotNull BiConsumer<T, A> apply) {
+    Map<List<String>, A> aggregates = new HashMap<>();
+    for (V event : events) {
+      String[] values = tagValues.apply(event);
+      A a = aggregates.get(Arrays.asList(values));
+      if (a == null) {
+        a = newAggregate.get();
+        // the key owns a copy, callers may reuse their array.
+        aggregates.put(Arrays.asList(values.clone()), a);
+      }
+      aggregate.accept(a, event);
+    }
+    aggregates.forEach((values, a) -> apply.accept(getOrCreate(values.toArray(new String[0])), a));
+  }
+
 }
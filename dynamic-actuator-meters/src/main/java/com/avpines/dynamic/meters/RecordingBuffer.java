@@ -0,0 +1,165 @@
+package com.avpines.dynamic.meters;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.DoubleConsumer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A bounded buffer of recorded values, for {@link DeferredMeter deferred meters} that need to
+ * replay every single value, e.g., to feed a histogram. Only the first {@link #CAPACITY} values
+ * are kept, which bounds the heap used by a series whose registration is slow. Of the values
+ * recorded once the buffer is full only the count, total and max are kept, and they are replayed
+ * as their max and as many values of their mean as needed, so counts, totals and maxes stay exact
+ * and only the distribution of the overflow is lost.
+ *
+ * <p>The values are kept unboxed, in an array that is allocated with the buffer. A record claims
+ * the next slot with an atomic index and publishes the bits of its value there, and a drain takes
+ * every published value out of its slot, so a slot is passed on exactly once. A deferred meter
+ * only buffers until it is bound, so slots are never reused.
+ */
+public final class RecordingBuffer {
+
+  /**
+   * The maximum number of buffered values.
+   */
+  public static final int CAPACITY = 1024;
+
+  /**
+   * Marks a slot without a value. Slots hold the complement of the bits of their value, and the
+   * complement of {@code EMPTY} is a NaN that {@link Double#doubleToLongBits(double)} never
+   * returns, as it collapses all NaNs to the canonical one.
+   */
+  private static final long EMPTY = 0;
+
+  private final AtomicLongArray values = new AtomicLongArray(CAPACITY);
+
+  /**
+   * The next slot to claim, at most {@link #CAPACITY} once the buffer is full.
+   */
+  private final AtomicInteger next = new AtomicInteger();
+
+  /**
+   * The count, total and max of the values that did not fit, guarded by this buffer.
+   */
+  private long overflowCount;
+
+  private double overflowTotal;
+
+  private double overflowMax;
+
+  /**
+   * Buffers a value, or adds it to the overflow if the buffer is full.
+   *
+   * @param value The recorded value.
+   */
+  public void add(double value) {
+    int slot = next.get() < CAPACITY ? next.getAndIncrement() : CAPACITY;
+    if (slot >= CAPACITY) {
+      overflow(value);
+      return;
+    }
+    values.set(slot, ~Double.doubleToLongBits(value));
+  }
+
+  private synchronized void overflow(double value) {
+    overflowCount++;
+    overflowTotal += value;
+    overflowMax = Math.max(overflowMax, value);
+  }
+
+  /**
+   * Removes the buffered values and the overflow and passes them to the consumer. Safe to call
+   * concurrently with {@link #add(double)} and with other drains, every value is passed exactly
+   * once. A value that is added concurrently may be left for the next drain.
+   *
+   * @param consumer Consumes the buffered values.
+   */
+  public void drainTo(@NotNull DoubleConsumer consumer) {
+    int claimed = Math.min(next.get(), CAPACITY);
+    for (int i = 0; i < claimed; i++) {
+      if (values.get(i) != EMPTY) {
+        long bits = values.getAndSet(i, EMPTY);
+        if (bits != EMPTY) {
+          consumer.accept(Double.longBitsToDouble(~bits));
+        }
+      }
+    }
+    long count;
+    double total;
+    double max;
+    synchronized (this) {
+      count = overflowCount;
+      total = overflowTotal;
+      max = overflowMax;
+      overflowCount = 0;
+      overflowTotal = 0;
+      overflowMax = 0;
+    }
+    if (count > 0) {
+      consumer.accept(max);
+      double mean = count > 1 ? (total - max) / (count - 1) : 0;
+      for (long i = 1; i < count; i++) {
+        consumer.accept(mean);
+      }
+    }
+  }
+
+  /**
+   * The number of recorded values, including the overflow.
+   *
+   * @return the count.
+   */
+  public long count() {
+    long count = 0;
+    int claimed = Math.min(next.get(), CAPACITY);
+    for (int i = 0; i < claimed; i++) {
+      if (values.get(i) != EMPTY) {
+        count++;
+      }
+    }
+    synchronized (this) {
+      return count + overflowCount;
+    }
+  }
+
+  /**
+   * The sum of the recorded values, including the overflow.
+   *
+   * @return the total.
+   */
+  public double total() {
+    double total = 0;
+    int claimed = Math.min(next.get(), CAPACITY);
+    for (int i = 0; i < claimed; i++) {
+      long bits = values.get(i);
+      if (bits != EMPTY) {
+        total += Double.longBitsToDouble(~bits);
+      }
+    }
+    synchronized (this) {
+      return total + overflowTotal;
+    }
+  }
+
+  /**
+   * The maximum of the recorded values, including the overflow, {@code 0} if there are none.
+   *
+   * @return the max.
+   */
+  public double max() {
+    double max;
+    synchronized (this) {
+      max = overflowMax;
+    }
+    int claimed = Math.min(next.get(), CAPACITY);
+    for (int i = 0; i < claimed; i++) {
+      long bits = values.get(i);
+      if (bits != EMPTY) {
+        max = Math.max(max, Double.longBitsToDouble(~bits));
+      }
+    }
+    return max;
+  }
+
+}
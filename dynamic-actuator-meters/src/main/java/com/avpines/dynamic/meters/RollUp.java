@@ -0,0 +1,117 @@
+package com.avpines.dynamic.meters;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A roll-up of a {@link DynamicMeter} over a subset of its tag keys, see {@link
+ * DynamicMeterOptions#getRollUps()}. Groups the series of the dynamic meter by their values of
+ * those keys, into {@link RollUpSeries}.
+ *
+ * <p>Roll-up series are kept once created, so their sums keep the series that were removed.
+ *
+ * @param <T> The meter type of the dynamic meter.
+ */
+final class RollUp<T extends Meter> {
+
+  @Getter
+  private final String name;
+
+  private final String[] tagKeys;
+
+  private final int[] indexes;
+
+  private final ConcurrentMap<List<String>, RollUpSeries<T>> series = new ConcurrentHashMap<>();
+
+  /**
+   * Construct a new RollUp.
+   *
+   * @param name    The name of the roll-up meters.
+   * @param keys    The tag keys to roll up by.
+   * @param allKeys The tag keys of the dynamic meter.
+   * @throws IllegalArgumentException if a key is not one of the tag keys of the dynamic meter.
+   */
+  RollUp(@NotNull String name, @NotNull List<String> keys, String @NotNull [] allKeys) {
+    this.name = name;
+    this.tagKeys = keys.toArray(new String[0]);
+    this.indexes = new int[tagKeys.length];
+    List<String> all = Arrays.asList(allKeys);
+    for (int i = 0; i < tagKeys.length; i++) {
+      indexes[i] = all.indexOf(tagKeys[i]);
+      if (indexes[i] < 0) {
+        throw new IllegalArgumentException(
+            String.format("Roll-up '%s' has tag key '%s', which is not one of '%s'",
+                name, tagKeys[i], all));
+      }
+    }
+  }
+
+  /**
+   * Adds a series of the dynamic meter to the roll-up series of its tag values.
+   *
+   * @param tagValues The tag values of the series.
+   * @param child     The series.
+   * @param measures  Supplies the measures of a new roll-up series.
+   * @return the roll-up series if its meter is not registered yet, for the caller to register it,
+   *     {@code null} otherwise.
+   */
+  @Nullable RollUpSeries<T> add(String @NotNull [] tagValues, @NotNull Series<T> child,
+      @NotNull Supplier<List<ToDoubleFunction<? super T>>> measures) {
+    List<String> values = values(tagValues);
+    RollUpSeries<T> rolledUp = series.get(values);
+    if (rolledUp == null) {
+      RollUpSeries<T> created = new RollUpSeries<>(measures.get());
+      rolledUp = series.putIfAbsent(values, created);
+      if (rolledUp == null) {
+        rolledUp = created;
+      }
+    }
+    return rolledUp.add(child) ? rolledUp : null;
+  }
+
+  /**
+   * Retires a removed series of the dynamic meter from the roll-up series of its tag values.
+   *
+   * @param tagValues The tag values of the series.
+   * @param child     The series.
+   */
+  void remove(String @NotNull [] tagValues, @NotNull Series<T> child) {
+    RollUpSeries<T> rolledUp = series.get(values(tagValues));
+    if (rolledUp != null) {
+      rolledUp.retire(child);
+    }
+  }
+
+  /**
+   * The tags of the roll-up series of the given tag values.
+   *
+   * @param tagValues The tag values of a series of the dynamic meter.
+   * @return the tags.
+   */
+  @NotNull List<Tag> tags(String @NotNull [] tagValues) {
+    List<Tag> tags = new ArrayList<>(tagKeys.length);
+    for (int i = 0; i < tagKeys.length; i++) {
+      tags.add(Tag.of(tagKeys[i], tagValues[indexes[i]]));
+    }
+    return tags;
+  }
+
+  private List<String> values(String[] tagValues) {
+    String[] values = new String[indexes.length];
+    for (int i = 0; i < indexes.length; i++) {
+      values[i] = tagValues[indexes[i]];
+    }
+    return Arrays.asList(values);
+  }
+
+}
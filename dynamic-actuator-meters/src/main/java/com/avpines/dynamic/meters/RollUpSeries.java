@@ -0,0 +1,87 @@
+package com.avpines.dynamic.meters;
+
+import io.micrometer.core.instrument.Meter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A series of a roll-up of a {@link DynamicMeter}, the sum of the series of the dynamic meter that
+ * share its tag values. The sums are only computed when they are read, typically by the function
+ * meter of the roll-up when it is published, so recording into the dynamic meter does not record
+ * into its roll-ups.
+ *
+ * <p>The measures of a removed series are kept, so the sums never go back.
+ *
+ * @param <T> The meter type of the dynamic meter.
+ */
+public final class RollUpSeries<T extends Meter> {
+
+  private final List<ToDoubleFunction<? super T>> measures;
+
+  private final Set<Series<T>> children = new HashSet<>();
+
+  private final double[] retired;
+
+  /**
+   * Whether the meter of this series is registered, or being registered.
+   */
+  private boolean registered;
+
+  RollUpSeries(@NotNull List<ToDoubleFunction<? super T>> measures) {
+    this.measures = measures;
+    this.retired = new double[measures.size()];
+  }
+
+  /**
+   * Adds a series of the dynamic meter.
+   *
+   * @param child The series.
+   * @return whether the meter of this series is to be registered by the caller.
+   */
+  synchronized boolean add(@NotNull Series<T> child) {
+    children.add(child);
+    if (registered) {
+      return false;
+    }
+    registered = true;
+    return true;
+  }
+
+  /**
+   * Lets the next series that is added register the meter of this series again.
+   */
+  synchronized void registrationFailed() {
+    registered = false;
+  }
+
+  synchronized void retire(@NotNull Series<T> child) {
+    T meter = child.meter;
+    if (children.remove(child) && meter != null) {
+      for (int i = 0; i < retired.length; i++) {
+        retired[i] += measures.get(i).applyAsDouble(meter);
+      }
+    }
+  }
+
+  /**
+   * The sum of a measure over the series that this series rolls up, including removed ones.
+   *
+   * @param measure The index of the measure, see {@link DynamicMeter#rollUpMeasures()}.
+   * @return the sum.
+   */
+  public synchronized double sum(int measure) {
+    ToDoubleFunction<? super T> f = measures.get(measure);
+    double sum = retired[measure];
+    for (Series<T> child : children) {
+      T meter = child.meter;
+      if (meter != null) {
+        sum += f.applyAsDouble(meter);
+      }
+    }
+    return sum;
+  }
+
+}
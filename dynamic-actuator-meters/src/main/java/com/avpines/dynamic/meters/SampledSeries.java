@@ -0,0 +1,141 @@
+package com.avpines.dynamic.meters;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Statistic;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToDoubleFunction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Publishes the series of a {@link DynamicMeterOptions#getSampleRate() sampled} dynamic meter. The
+ * meters of the series are registered with a registry of their own, so the sampled events are
+ * recorded once, and each series is published under its own name and tags as a meter of the same
+ * type, whose count and total are the recorded ones times the sample rate.
+ *
+ * <p>The published meter only has a count, a total and a max, the distribution of the sampled
+ * events is not published.
+ *
+ * @param <T> The meter type of the dynamic meter.
+ */
+public final class SampledSeries<T extends Meter> {
+
+  private final MeterRegistry registry;
+
+  private final MeterRegistry sampled;
+
+  private final int sampleRate;
+
+  private final Statistic totalStatistic;
+
+  private final ToDoubleFunction<? super T> count;
+
+  private final ToDoubleFunction<? super T> total;
+
+  private final ToDoubleFunction<? super T> max;
+
+  /**
+   * The published meters, by the id of the meter of their series.
+   */
+  private final ConcurrentMap<Meter.Id, Meter> published = new ConcurrentHashMap<>();
+
+  private SampledSeries(MeterRegistry registry, int sampleRate, Statistic totalStatistic,
+      ToDoubleFunction<? super T> count, ToDoubleFunction<? super T> total,
+      ToDoubleFunction<? super T> max) {
+    this.registry = registry;
+    this.sampled = new SimpleMeterRegistry(SimpleConfig.DEFAULT, registry.config().clock());
+    this.sampleRate = sampleRate;
+    this.totalStatistic = totalStatistic;
+    this.count = count;
+    this.total = total;
+    this.max = max;
+  }
+
+  /**
+   * Sampled timers, published with their total time and max in the base time unit of the timers.
+   *
+   * @param registry   To publish the series.
+   * @param sampleRate The sample rate.
+   * @return the sampled series, {@code null} if the sample rate is {@code 1}.
+   */
+  public static @Nullable SampledSeries<Timer> timers(
+      @NotNull MeterRegistry registry, int sampleRate) {
+    if (sampleRate <= 1) {
+      return null;
+    }
+    return new SampledSeries<>(registry, sampleRate, Statistic.TOTAL_TIME, Timer::count,
+        t -> t.totalTime(t.baseTimeUnit()), t -> t.max(t.baseTimeUnit()));
+  }
+
+  /**
+   * Sampled distribution summaries.
+   *
+   * @param registry   To publish the series.
+   * @param sampleRate The sample rate.
+   * @return the sampled series, {@code null} if the sample rate is {@code 1}.
+   */
+  public static @Nullable SampledSeries<DistributionSummary> summaries(
+      @NotNull MeterRegistry registry, int sampleRate) {
+    if (sampleRate <= 1) {
+      return null;
+    }
+    return new SampledSeries<>(registry, sampleRate, Statistic.TOTAL,
+        DistributionSummary::count, DistributionSummary::totalAmount, DistributionSummary::max);
+  }
+
+  /**
+   * The registry to register the meters of the series with, instead of the registry they are
+   * published to.
+   *
+   * @return the registry of the sampled events.
+   */
+  public @NotNull MeterRegistry registry() {
+    return sampled;
+  }
+
+  /**
+   * Publishes the series of a newly registered meter. The meter is removed again if publishing it
+   * fails.
+   *
+   * @param meter The meter of the series.
+   */
+  public void publish(@NotNull T meter) {
+    Meter.Id id = meter.getId();
+    try {
+      published.put(id, Meter
+          .builder(id.getName(), id.getType(), List.of(
+              new Measurement(() -> count.applyAsDouble(meter) * sampleRate, Statistic.COUNT),
+              new Measurement(() -> total.applyAsDouble(meter) * sampleRate, totalStatistic),
+              new Measurement(() -> max.applyAsDouble(meter), Statistic.MAX)))
+          .tags(id.getTagsAsIterable())
+          .description(id.getDescription())
+          .baseUnit(id.getBaseUnit())
+          .register(registry));
+    } catch (RuntimeException e) {
+      sampled.remove(meter);
+      throw e;
+    }
+  }
+
+  /**
+   * Removes the published meter of a removed series, and its meter.
+   *
+   * @param meter The meter of the series.
+   */
+  public void unpublish(@NotNull T meter) {
+    Meter publishedMeter = published.remove(meter.getId());
+    if (publishedMeter != null) {
+      registry.remove(publishedMeter);
+    }
+    sampled.remove(meter);
+  }
+
+}
@@ -0,0 +1,67 @@
+package com.avpines.dynamic.meters;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Meters that show how a {@link DynamicMeter} behaves, registered under {@link #PREFIX} and
+ * tagged by the name of the dynamic meter, see {@link DynamicMeterOptions#isSelfMetrics()}.
+ *
+ * <p>Lookups are counted by striped {@link LongAdder}s that are published as function counters,
+ * so a hit only pays for an uncontended add.
+ */
+final class SelfMetrics {
+
+  static final String PREFIX = "dynamic.meters.";
+
+  final LongAdder hits = new LongAdder();
+
+  final LongAdder misses = new LongAdder();
+
+  final LongAdder failures = new LongAdder();
+
+  final Timer creation;
+
+  private final MeterRegistry registry;
+
+  private final Tags tags;
+
+  SelfMetrics(@NotNull MeterRegistry registry, @NotNull String name) {
+    this.registry = registry;
+    this.tags = Tags.of("meter", name);
+    FunctionCounter.builder(PREFIX + "lookups", hits, LongAdder::sum)
+        .tags(tags).tag("result", "hit")
+        .description("Lookups that found the series")
+        .register(registry);
+    FunctionCounter.builder(PREFIX + "lookups", misses, LongAdder::sum)
+        .tags(tags).tag("result", "miss")
+        .description("Lookups that took the creation path")
+        .register(registry);
+    FunctionCounter.builder(PREFIX + "registration.failures", failures, LongAdder::sum)
+        .tags(tags)
+        .description("Meters of new series that failed to register")
+        .register(registry);
+    this.creation = Timer.builder(PREFIX + "creation")
+        .tags(tags)
+        .description("Creations of new series, including the registration of their meters")
+        .register(registry);
+  }
+
+  /**
+   * Reports the size of the dynamic meter, once it is fully constructed.
+   *
+   * @param meter The dynamic meter.
+   */
+  void watch(@NotNull DynamicMeter<?, ?, ?> meter) {
+    Gauge.builder(PREFIX + "series", meter, DynamicMeter::size)
+        .tags(tags)
+        .description("The series of the dynamic meter")
+        .register(registry);
+  }
+
+}
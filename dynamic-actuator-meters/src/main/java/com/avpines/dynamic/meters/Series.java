@@ -0,0 +1,107 @@
+package com.avpines.dynamic.meters;
+
+import io.micrometer.core.instrument.Meter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A single series of a {@link DynamicMeter}, the registered meter along with the bookkeeping needed
+ * to manage it.
+ *
+ * <p>A series is put in the index before its meter is registered, so that the registration happens
+ * outside of the index's locks. Until then it is pending: its {@link #meter} is {@code null} and
+ * its {@link #creator} is the thread that registers it, other threads that need the meter wait for
+ * it with {@link #await()}.
+ *
+ * <p>The access fields are only maintained when the dynamic meter needs them, and are updated with
+ * racy writes, which is good enough for ranking series.
+ *
+ * @param <T> The meter type.
+ */
+final class Series<T extends Meter> {
+
+  final SeriesKey key;
+
+  /**
+   * The registered meter, {@code null} while the series is pending.
+   */
+  volatile T meter;
+
+  /**
+   * The thread that registers the meter, {@code null} once the series is no longer pending.
+   */
+  volatile Thread creator;
+
+  /**
+   * The {@link DynamicMeter} clock on the last access to this series.
+   */
+  volatile long lastAccess;
+
+  /**
+   * A logarithmic access frequency, see {@link EvictionPolicy#LFU}.
+   */
+  volatile int frequency;
+
+  /**
+   * The {@link DynamicMeter} sweep count on the last access to this series, see {@link
+   * DynamicMeterOptions#getExpireAfterIdle()}.
+   */
+  volatile long lastSweep;
+
+  /**
+   * The {@link Slots slot} of this series, assigned before its meter is registered, if the
+   * dynamic meter uses slots.
+   */
+  int slot;
+
+  /**
+   * Construct a pending series, to be registered by the current thread.
+   */
+  Series(@NotNull SeriesKey key, long now, long sweep) {
+    this.key = key;
+    this.creator = Thread.currentThread();
+    this.lastAccess = now;
+    this.frequency = EvictionPolicy.INITIAL_FREQUENCY;
+    this.lastSweep = sweep;
+  }
+
+  /**
+   * Completes a pending series and wakes up the threads waiting for it.
+   *
+   * @param meter The registered meter, {@code null} if the registration failed.
+   */
+  synchronized void complete(@Nullable T meter) {
+    this.meter = meter;
+    this.creator = null;
+    notifyAll();
+  }
+
+  /**
+   * Waits until the series is no longer pending. Interrupts are deferred until the wait is over.
+   *
+   * @return the meter, or {@code null} if its registration failed.
+   * @throws IllegalStateException if called by the thread that registers the meter, i.e., the
+   *                               registration of a meter needs the same meter.
+   */
+  @Nullable T await() {
+    if (creator == Thread.currentThread()) {
+      throw new IllegalStateException(
+          String.format("Recursive creation of the series '%s'", key));
+    }
+    boolean interrupted = false;
+    synchronized (this) {
+      while (creator != null) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    return meter;
+  }
+
+}
@@ -0,0 +1,146 @@
+package com.avpines.dynamic.meters;
+
+import io.micrometer.core.instrument.Tag;
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Identifies a single series of a {@link DynamicMeter} by its ordered tag values, or by the shared
+ * tags of its values when the dynamic meter interns them with a {@link TagDictionary}.
+ *
+ * <p>The hash is computed once on construction and the values are compared element by element,
+ * so two different value arrays never share a key (unlike a joined string, where {@code ["a, b"]}
+ * and {@code ["a", "b"]} collide). Lookups go through a {@link #probe() probe}, a reusable key
+ * that wraps the caller's array as-is, so a lookup does not allocate. Only keys that are stored in
+ * the index own a private copy, and a probe is never stored.
+ */
+final class SeriesKey {
+
+  private static final String[] NO_VALUES = new String[0];
+
+  private static final SeriesKey EMPTY = new SeriesKey(NO_VALUES, null);
+
+  // Only a probe reassigns its fields, on the thread that owns it.
+  private String[] values;
+  private Tag[] tags;
+  private int hash;
+
+  private SeriesKey(String[] values, Tag[] tags) {
+    this.values = values;
+    this.tags = tags;
+    this.hash = values != null ? Arrays.hashCode(values) : Arrays.hashCode(tags);
+  }
+
+  /**
+   * A new probe, a lookup key that is pointed at the values of every lookup of a single thread
+   * with {@link #wrap(String[])} or {@link #wrapTags(Tag[])}.
+   *
+   * @return a probe, that must not be stored in the index.
+   */
+  static @NotNull SeriesKey probe() {
+    return new SeriesKey(NO_VALUES, null);
+  }
+
+  /**
+   * Points this probe at the given array, without copying it. The caller must not modify the array
+   * while the probe is in use.
+   *
+   * @param values The tag values.
+   * @return this probe.
+   */
+  @NotNull SeriesKey wrap(String @NotNull [] values) {
+    this.values = values;
+    this.tags = null;
+    this.hash = Arrays.hashCode(values);
+    return this;
+  }
+
+  /**
+   * A key over a private copy of the given array, suitable for storing in the index.
+   *
+   * @param values The tag values.
+   * @return a key that owns its values.
+   */
+  static @NotNull SeriesKey copyOf(String @NotNull [] values) {
+    return values.length == 0 ? EMPTY : new SeriesKey(values.clone(), null);
+  }
+
+  /**
+   * Like {@link #wrap(String[])}, for the interned tags of dictionary encoded tag values.
+   *
+   * @param tags The interned tags.
+   * @return this probe.
+   */
+  @NotNull SeriesKey wrapTags(Tag @NotNull [] tags) {
+    if (tags.length == 0) {
+      // stored keys without tag keys are the plain empty key.
+      return wrap(NO_VALUES);
+    }
+    this.values = null;
+    this.tags = tags;
+    this.hash = Arrays.hashCode(tags);
+    return this;
+  }
+
+  /**
+   * Lets go of the array this probe was pointed at, so it does not outlive the lookup.
+   */
+  void clear() {
+    this.values = NO_VALUES;
+    this.tags = null;
+  }
+
+  /**
+   * Like {@link #copyOf(String[])}, for the interned tags of dictionary encoded tag values.
+   *
+   * @param tags The interned tags.
+   * @return a key that owns its tags.
+   */
+  static @NotNull SeriesKey copyOfTags(Tag @NotNull [] tags) {
+    return tags.length == 0 ? EMPTY : new SeriesKey(null, tags.clone());
+  }
+
+  int size() {
+    return values != null ? values.length : tags.length;
+  }
+
+  /**
+   * The tag value at the given index, only available when the key is not encoded.
+   */
+  String value(int index) {
+    return values[index];
+  }
+
+  /**
+   * The interned tag at the given index, only available when the key is encoded.
+   */
+  Tag tag(int index) {
+    return tags[index];
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof SeriesKey)) {
+      return false;
+    }
+    SeriesKey other = (SeriesKey) o;
+    return hash == other.hash
+        && (values != null
+        ? Arrays.equals(values, other.values)
+        : Arrays.equals(tags, other.tags));
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return values != null ? Arrays.toString(values) : Arrays.toString(tags);
+  }
+
+}
@@ -0,0 +1,123 @@
+package com.avpines.dynamic.meters;
+
+import io.micrometer.core.instrument.Meter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An index of the series of a {@link DynamicMeter} with one level per tag key, in tag key order. A
+ * prefix of tag values leads to the node holding exactly the series that start with it, so prefix
+ * iteration and removal take time proportional to the matching series.
+ *
+ * <p>Every inner node counts the series below it. The count is only changed inside {@code
+ * compute} calls on the parent's map, under the lock of the node's bin, which is also where nodes
+ * that become empty are pruned, so an addition can never land in a pruned node.
+ *
+ * @param <T> The meter type.
+ */
+final class SeriesTrie<T extends Meter> {
+
+  private final int depth;
+
+  private final Node<T> root;
+
+  SeriesTrie(int depth) {
+    this.depth = depth;
+    this.root = new Node<>(null);
+  }
+
+  /**
+   * Adds a series to the index.
+   *
+   * @param values The tag values of the series.
+   * @param series The series.
+   */
+  void add(String @NotNull [] values, @NotNull Series<T> series) {
+    Node<T> node = root;
+    for (int i = 0; i < depth - 1; i++) {
+      node = node.children.compute(values[i], (k, n) -> {
+        Node<T> child = n != null ? n : new Node<>(null);
+        child.size++;
+        return child;
+      });
+    }
+    node.children.put(values[depth - 1], new Node<>(series));
+  }
+
+  /**
+   * Removes a series from the index, if it is still there.
+   *
+   * @param values The tag values of the series.
+   * @param series The series.
+   */
+  void remove(String @NotNull [] values, @NotNull Series<T> series) {
+    @SuppressWarnings("unchecked")
+    Node<T>[] path = new Node[depth];
+    Node<T> node = root;
+    for (int i = 0; i < depth - 1 && node != null; i++) {
+      path[i] = node;
+      node = node.children.get(values[i]);
+    }
+    Node<T> leaf = node != null ? node.children.get(values[depth - 1]) : null;
+    if (leaf == null || leaf.series != series || !node.children.remove(values[depth - 1], leaf)) {
+      return;
+    }
+    for (int i = depth - 2; i >= 0; i--) {
+      path[i].children.computeIfPresent(values[i], (k, n) -> --n.size == 0 ? null : n);
+    }
+  }
+
+  /**
+   * Applies the action to every series that starts with the given tag values.
+   *
+   * @param prefix The leading tag values, at most one per level.
+   * @param action The action to apply.
+   */
+  void forEach(String @NotNull [] prefix, @NotNull Consumer<Series<T>> action) {
+    Node<T> node = root;
+    for (int i = 0; i < prefix.length && node != null; i++) {
+      node = node.series != null ? null : node.children.get(prefix[i]);
+    }
+    if (node != null) {
+      forEach(node, action);
+    }
+  }
+
+  private void forEach(Node<T> node, Consumer<Series<T>> action) {
+    if (node.series != null) {
+      action.accept(node.series);
+      return;
+    }
+    for (Node<T> child : node.children.values()) {
+      forEach(child, action);
+    }
+  }
+
+  private static final class Node<T extends Meter> {
+
+    /**
+     * The series of a leaf, {@code null} for inner nodes.
+     */
+    final Series<T> series;
+
+    /**
+     * The child nodes by the tag value of the next level, {@code null} for leaves.
+     */
+    final ConcurrentMap<String, Node<T>> children;
+
+    /**
+     * The number of series below this inner node.
+     */
+    volatile int size;
+
+    Node(@Nullable Series<T> series) {
+      this.series = series;
+      this.children = series == null ? new ConcurrentHashMap<>() : null;
+    }
+
+  }
+
+}
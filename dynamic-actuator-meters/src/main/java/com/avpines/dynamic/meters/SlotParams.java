@@ -0,0 +1,14 @@
+package com.avpines.dynamic.meters;
+
+import lombok.Value;
+
+/**
+ * Parameters of the meters whose values are kept in a {@link ValueStore}, the slot of their
+ * series.
+ */
+@Value
+public class SlotParams implements MeterParams {
+
+  int slot;
+
+}
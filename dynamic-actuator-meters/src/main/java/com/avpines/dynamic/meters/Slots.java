@@ -0,0 +1,133 @@
+package com.avpines.dynamic.meters;
+
+import io.micrometer.core.instrument.Meter;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Assigns every series of a {@link DynamicMeter} a slot, a small int that indexes primitive
+ * storage such as a {@link ValueStore} or the tables of a {@link StripedAccumulator}. Slots of
+ * removed series are reused, either right away or once their owner {@link #takeReleased() took}
+ * and {@link #reuse(BitSet) returned} them, when the storage needs to discard the slot first.
+ *
+ * @param <T> The meter type.
+ */
+final class Slots<T extends Meter> {
+
+  private static final VarHandle SERIES = MethodHandles.arrayElementVarHandle(Series[].class);
+
+  private final boolean deferReuse;
+
+  /**
+   * The series by their slot, elements are accessed with {@link #SERIES}.
+   */
+  private volatile Series<T>[] bySlot;
+
+  private int nextSlot;
+
+  private final Deque<Integer> free = new ArrayDeque<>();
+
+  private BitSet released = new BitSet();
+
+  /**
+   * Construct new Slots.
+   *
+   * @param deferReuse Whether released slots are only reused once returned with {@link
+   *                   #reuse(BitSet)}.
+   */
+  @SuppressWarnings("unchecked")
+  Slots(boolean deferReuse) {
+    this.deferReuse = deferReuse;
+    this.bySlot = new Series[16];
+  }
+
+  /**
+   * Assigns a slot to a new series.
+   *
+   * @param series The series.
+   */
+  synchronized void assign(@NotNull Series<T> series) {
+    Integer slot = free.poll();
+    int s = slot != null ? slot : nextSlot++;
+    Series<T>[] current = bySlot;
+    if (s >= current.length) {
+      current = Arrays.copyOf(current, Math.max(s + 1, current.length * 2));
+      bySlot = current;
+    }
+    series.slot = s;
+    SERIES.setVolatile(current, s, series);
+  }
+
+  /**
+   * Releases the slot of a removed series.
+   *
+   * @param series The series.
+   */
+  synchronized void release(@NotNull Series<T> series) {
+    SERIES.setVolatile(bySlot, series.slot, null);
+    if (deferReuse) {
+      released.set(series.slot);
+    } else {
+      free.add(series.slot);
+    }
+  }
+
+  /**
+   * Takes the slots that were released since the last call, they are not reused until they are
+   * returned with {@link #reuse(BitSet)}.
+   *
+   * @return the released slots.
+   */
+  synchronized @NotNull BitSet takeReleased() {
+    BitSet taken = released;
+    released = new BitSet();
+    return taken;
+  }
+
+  /**
+   * Makes slots that were {@link #takeReleased() taken} available for new series.
+   *
+   * @param slots The slots.
+   */
+  synchronized void reuse(@NotNull BitSet slots) {
+    slots.stream().forEach(free::add);
+  }
+
+  /**
+   * The number of slots that were ever assigned, an upper bound for the slots in use.
+   *
+   * @return the number of slots.
+   */
+  synchronized int capacity() {
+    return nextSlot;
+  }
+
+  /**
+   * The series by their slot, as of now. Slots that are assigned later may be missing from the
+   * returned array, use {@link #series(Series[], int)} to read it.
+   *
+   * @return the series by their slot.
+   */
+  Series<T> @NotNull [] snapshot() {
+    return bySlot;
+  }
+
+  /**
+   * Reads the series with the given slot from a {@link #snapshot()}.
+   *
+   * @param snapshot The snapshot.
+   * @param slot     The slot.
+   * @return the series, or {@code null} if the slot is not assigned as far as the snapshot knows.
+   */
+  @SuppressWarnings("unchecked")
+  static <T extends Meter> @Nullable Series<T> series(Series<T> @NotNull [] snapshot, int slot) {
+    return slot < snapshot.length ? (Series<T>) SERIES.getVolatile(snapshot, slot) : null;
+  }
+
+}
@@ -0,0 +1,157 @@
+package com.avpines.dynamic.meters;
+
+import io.micrometer.core.instrument.Meter;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.ObjDoubleConsumer;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Accumulates amounts per series in tables that are confined to the threads that add them, and
+ * flushes them into the meters of the series. Adding an amount is a couple of stores into memory
+ * that no other thread writes to.
+ *
+ * <p>Every series has a {@link Slots slot}, and every thread a table of the cumulative sums per
+ * slot. Only the owner of a table writes to it, the flush reads it and keeps the sums it has
+ * already flushed, so no amount is ever lost to a concurrent reset. The slot of a removed series is
+ * reused only after a full flush discarded its sums, and the table of a thread is dropped after the
+ * thread terminates and its sums are flushed. An amount added to a series that no longer owns its
+ * slot is dropped, so a thread that looked up a removed series does not credit the series that
+ * reuses the slot, and the amounts of a series are only flushed once its meter is set.
+ *
+ * @param <T> The meter type.
+ */
+@Slf4j
+final class StripedAccumulator<T extends Meter> {
+
+  private static final VarHandle SUMS = MethodHandles.arrayElementVarHandle(double[].class);
+
+  private final ThreadLocal<Stripe> local = ThreadLocal.withInitial(this::newStripe);
+
+  private final Queue<Stripe> stripes = new ConcurrentLinkedQueue<>();
+
+  private final Slots<T> slots;
+
+  /**
+   * Construct a new StripedAccumulator.
+   *
+   * @param slots The slots of the series, released slots must not be reused until the accumulator
+   *              returns them.
+   */
+  StripedAccumulator(@NotNull Slots<T> slots) {
+    this.slots = slots;
+  }
+
+  /**
+   * Adds an amount to a series, in the table of the current thread.
+   *
+   * @param series The series, must have a slot.
+   * @param amount The amount.
+   */
+  void add(@NotNull Series<T> series, double amount) {
+    int slot = series.slot;
+    if (Slots.series(slots.snapshot(), slot) != series) {
+      // the series was removed, its amounts are discarded anyway.
+      return;
+    }
+    local.get().add(slot, amount);
+  }
+
+  /**
+   * Applies the amounts that were added since the last flush to the meters of their series.
+   *
+   * @param sink Applies an amount to a meter.
+   */
+  synchronized void flush(@NotNull ObjDoubleConsumer<T> sink) {
+    BitSet discarded = slots.takeReleased();
+    Series<T>[] series = slots.snapshot();
+    for (Iterator<Stripe> it = stripes.iterator(); it.hasNext(); ) {
+      Stripe stripe = it.next();
+      // a terminated thread has no more amounts to add, and its last ones are visible.
+      Thread owner = stripe.owner.get();
+      boolean terminated = owner == null || !owner.isAlive();
+      stripe.flush(series, discarded, sink);
+      if (terminated) {
+        it.remove();
+      }
+    }
+    // every table was flushed since these slots were released, they can be reused.
+    slots.reuse(discarded);
+  }
+
+  private static <T extends Meter> void apply(ObjDoubleConsumer<T> sink, T meter, double delta) {
+    try {
+      sink.accept(meter, delta);
+    } catch (RuntimeException e) {
+      // the amount is dropped, and the other series are still flushed.
+      LOG.warn("Failed to flush an amount of '{}' into '{}'", delta, meter.getId(), e);
+    }
+  }
+
+  private Stripe newStripe() {
+    Stripe stripe = new Stripe(Thread.currentThread());
+    stripes.add(stripe);
+    return stripe;
+  }
+
+  private final class Stripe {
+
+    final WeakReference<Thread> owner;
+
+    /**
+     * The cumulative sums per slot, only written by the owner.
+     */
+    volatile double[] sums = new double[16];
+
+    /**
+     * The sums that were already flushed, only accessed by the flush.
+     */
+    double[] flushed = new double[16];
+
+    Stripe(Thread owner) {
+      this.owner = new WeakReference<>(owner);
+    }
+
+    void add(int slot, double amount) {
+      double[] s = sums;
+      if (slot >= s.length) {
+        s = Arrays.copyOf(s, Math.max(slot + 1, s.length * 2));
+        sums = s;
+      }
+      SUMS.setOpaque(s, slot, s[slot] + amount);
+    }
+
+    void flush(Series<T>[] series, BitSet discarded, ObjDoubleConsumer<T> sink) {
+      double[] s = sums;
+      if (flushed.length < s.length) {
+        flushed = Arrays.copyOf(flushed, s.length);
+      }
+      for (int slot = 0; slot < s.length; slot++) {
+        double sum = (double) SUMS.getOpaque(s, slot);
+        double delta = sum - flushed[slot];
+        if (delta == 0) {
+          continue;
+        }
+        Series<T> target = Slots.series(series, slot);
+        T meter = target != null ? target.meter : null;
+        if (meter != null) {
+          flushed[slot] = sum;
+          apply(sink, meter, delta);
+        } else if (target == null && discarded.get(slot)) {
+          flushed[slot] = sum;
+        }
+        // otherwise the series was assigned after the snapshot or is still pending, it is flushed
+        // the next time.
+      }
+    }
+
+  }
+
+}
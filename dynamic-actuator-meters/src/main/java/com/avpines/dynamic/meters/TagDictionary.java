@@ -0,0 +1,94 @@
+package com.avpines.dynamic.meters;
+
+import io.micrometer.core.instrument.ImmutableTag;
+import io.micrometer.core.instrument.Tag;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Interns the values of a single tag key, and holds a single {@link Tag} per value that is shared
+ * by all the series with that value.
+ *
+ * <p>Values are reference counted by the series that use them, and a value is dropped from the
+ * dictionary once its last series is removed, so evicted and expired values do not pile up. A
+ * value that comes back gets a new tag, which is equal to the one it had before, so keys that were
+ * built with the old tag still match it.
+ */
+final class TagDictionary {
+
+  private final String key;
+
+  private final ConcurrentMap<String, Entry> entries;
+
+  TagDictionary(@NotNull String key) {
+    this.key = key;
+    this.entries = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * The tag of a value that is in use.
+   *
+   * @param value The tag value.
+   * @return its tag, or {@code null} if no series uses the value.
+   */
+  @Nullable Tag find(@NotNull String value) {
+    Entry entry = entries.get(value);
+    return entry == null ? null : entry.tag;
+  }
+
+  /**
+   * The tag of a value, interning the value if it is not in use. Every acquired tag must be
+   * {@link #release(Tag) released} once.
+   *
+   * @param value The tag value.
+   * @return its tag.
+   */
+  @NotNull Tag acquire(@NotNull String value) {
+    return entries.compute(value, (v, entry) -> {
+      Entry e = entry != null ? entry : new Entry(new ImmutableTag(key, v));
+      e.refs++;
+      return e;
+    }).tag;
+  }
+
+  /**
+   * Releases an acquired tag, the value is dropped when it is no longer in use.
+   *
+   * @param tag A tag acquired from this dictionary.
+   */
+  void release(@NotNull Tag tag) {
+    entries.computeIfPresent(tag.getValue(), (v, entry) -> {
+      if (entry.tag != tag) {
+        return entry;
+      }
+      return --entry.refs == 0 ? null : entry;
+    });
+  }
+
+  /**
+   * The number of distinct values in use.
+   *
+   * @return the dictionary size.
+   */
+  int size() {
+    return entries.size();
+  }
+
+  private static final class Entry {
+
+    private final Tag tag;
+
+    /**
+     * The number of acquisitions that were not released yet, guarded by the bin lock of the entry.
+     */
+    private int refs;
+
+    private Entry(Tag tag) {
+      this.tag = tag;
+    }
+
+  }
+
+}
@@ -0,0 +1,28 @@
+package com.avpines.dynamic.meters;
+
+import lombok.Value;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Bounds the number of distinct values of a single tag key, values beyond the bound are replaced
+ * by the overflow value. See {@link DynamicMeterOptions#getTagValueLimits()}.
+ */
+@Value
+public class TagValueLimit {
+
+  /**
+   * The value that replaces the values beyond the limit, unless another one is given.
+   */
+  public static final String DEFAULT_OVERFLOW_VALUE = "OTHER";
+
+  /**
+   * The maximum number of distinct values, not counting the overflow value.
+   */
+  int maxValues;
+
+  /**
+   * Replaces the values beyond the limit.
+   */
+  @NotNull String overflowValue;
+
+}
@@ -0,0 +1,74 @@
+package com.avpines.dynamic.meters;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Admits the first {@link TagValueLimit#getMaxValues()} distinct values of a single tag key, and
+ * replaces any other value with the overflow value.
+ *
+ * <p>Values stay admitted after all their series are gone, so the values of a tag key are only
+ * ever the admitted ones and the overflow value.
+ */
+final class TagValueLimiter {
+
+  /**
+   * The position of the tag key among the tag keys of the meter.
+   */
+  final int index;
+
+  private final int maxValues;
+
+  private final String overflowValue;
+
+  private final Set<String> admitted;
+
+  /**
+   * Set once all the values were admitted, so that overflowing values do not take the lock.
+   */
+  private volatile boolean full;
+
+  TagValueLimiter(int index, @NotNull TagValueLimit limit) {
+    this.index = index;
+    this.maxValues = limit.getMaxValues();
+    this.overflowValue = limit.getOverflowValue();
+    this.admitted = ConcurrentHashMap.newKeySet();
+  }
+
+  /**
+   * The value to create a series with, admitting the given value if there is still room for it.
+   *
+   * @param value The tag value.
+   * @return the value itself, or the overflow value if the value is beyond the limit.
+   */
+  @NotNull String admit(@NotNull String value) {
+    if (admitted.contains(value) || value.equals(overflowValue)) {
+      return value;
+    }
+    return full ? overflowValue : admitSlow(value);
+  }
+
+  private synchronized String admitSlow(String value) {
+    if (admitted.contains(value)) {
+      return value;
+    }
+    if (admitted.size() >= maxValues) {
+      full = true;
+      return overflowValue;
+    }
+    admitted.add(value);
+    return value;
+  }
+
+  /**
+   * The value to look a series up with, without admitting the given value.
+   *
+   * @param value The tag value.
+   * @return the value itself, or the overflow value if the value is beyond the limit.
+   */
+  @NotNull String peek(@NotNull String value) {
+    return full && !admitted.contains(value) ? overflowValue : value;
+  }
+
+}
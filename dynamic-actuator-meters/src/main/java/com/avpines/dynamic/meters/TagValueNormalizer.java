@@ -0,0 +1,81 @@
+package com.avpines.dynamic.meters;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Normalizes the values of a single tag key, memoizing the normalized value of every raw value so
+ * that repeated values are normalized once.
+ *
+ * <p>The memo is bounded by two generations of half its size each: new values are added to the
+ * current generation, and once it is full it becomes the previous generation and the one before
+ * it is dropped. Values that are looked up in the previous generation move to the current one, so
+ * values that keep repeating stay memoized. Concurrent misses may normalize the same value more
+ * than once, so normalizers must be pure.
+ */
+final class TagValueNormalizer {
+
+  /**
+   * The position of the tag key among the tag keys of the meter.
+   */
+  final int index;
+
+  private final String tagKey;
+
+  private final UnaryOperator<String> normalizer;
+
+  private final int generationSize;
+
+  private volatile ConcurrentMap<String, String> current;
+
+  private volatile ConcurrentMap<String, String> previous;
+
+  TagValueNormalizer(
+      int index, @NotNull String tagKey, @NotNull UnaryOperator<String> normalizer, int cacheSize) {
+    this.index = index;
+    this.tagKey = tagKey;
+    this.normalizer = normalizer;
+    this.generationSize = Math.max(1, cacheSize / 2);
+    this.current = new ConcurrentHashMap<>();
+    this.previous = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * The normalized value of a raw value.
+   *
+   * @param value The raw tag value.
+   * @return the normalized value.
+   * @throws IllegalStateException if the normalizer returned {@code null}.
+   */
+  @NotNull String normalize(@NotNull String value) {
+    ConcurrentMap<String, String> generation = current;
+    String normalized = generation.get(value);
+    if (normalized != null) {
+      return normalized;
+    }
+    normalized = previous.get(value);
+    if (normalized == null) {
+      normalized = normalizer.apply(value);
+      if (normalized == null) {
+        throw new IllegalStateException(String.format(
+            "The normalizer of tag key '%s' returned null for '%s'", tagKey, value));
+      }
+    }
+    if (generation.size() >= generationSize) {
+      generation = rotate(generation);
+    }
+    generation.put(value, normalized);
+    return normalized;
+  }
+
+  private synchronized ConcurrentMap<String, String> rotate(ConcurrentMap<String, String> full) {
+    if (current == full) {
+      previous = full;
+      current = new ConcurrentHashMap<>();
+    }
+    return current;
+  }
+
+}
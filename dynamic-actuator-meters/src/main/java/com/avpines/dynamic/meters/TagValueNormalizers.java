@@ -0,0 +1,66 @@
+package com.avpines.dynamic.meters;
+
+import java.util.Locale;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Common tag value normalizers, see {@link AbstractDynamicMeterBuilder#normalizer(String,
+ * UnaryOperator)}.
+ */
+public final class TagValueNormalizers {
+
+  private TagValueNormalizers() {
+  }
+
+  /**
+   * Replaces every match of a regular expression, e.g. {@code replaceAll("/\\d+", "/{id}")} turns
+   * {@code /users/42} into the template {@code /users/{id}}.
+   *
+   * @param regex       The regular expression.
+   * @param replacement The replacement, may refer to groups as in {@link
+   *                    java.util.regex.Matcher#replaceAll(String)}.
+   * @return the normalizer.
+   */
+  public static @NotNull UnaryOperator<String> replaceAll(
+      @NotNull String regex, @NotNull String replacement) {
+    Pattern pattern = Pattern.compile(regex);
+    return value -> pattern.matcher(value).replaceAll(replacement);
+  }
+
+  /**
+   * Lower-cases values, in the root locale.
+   *
+   * @return the normalizer.
+   */
+  public static @NotNull UnaryOperator<String> lowerCase() {
+    return value -> value.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Truncates values to a maximum length.
+   *
+   * @param maxLength The maximum length, must be positive.
+   * @return the normalizer.
+   */
+  public static @NotNull UnaryOperator<String> truncate(int maxLength) {
+    if (maxLength <= 0) {
+      throw new IllegalArgumentException(
+          String.format("Max length must be positive, got '%d'", maxLength));
+    }
+    return value -> value.length() <= maxLength ? value : value.substring(0, maxLength);
+  }
+
+  /**
+   * Replaces values with the hex of their {@link String#hashCode() hash code}, which is stable
+   * across processes. Distinct values may share a hash, so only for values whose identity does not
+   * matter much, e.g. to keep very long values apart without publishing them.
+   *
+   * @return the normalizer.
+   */
+  public static @NotNull UnaryOperator<String> hash() {
+    return value -> Integer.toHexString(value.hashCode());
+  }
+
+}
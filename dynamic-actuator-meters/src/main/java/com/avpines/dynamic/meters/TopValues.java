@@ -0,0 +1,93 @@
+package com.avpines.dynamic.meters;
+
+import com.avpines.dynamic.meters.CardinalityReport.ValueCount;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Counts the most frequent values it was given in bounded memory, with the Space-Saving algorithm.
+ * Values are counted exactly until there are more than the capacity, then a new value takes over
+ * the counter of the least counted value, and inherits its count as an error. A value that is more
+ * frequent than {@code 1 / capacity} of all the values is always counted, and counts are never
+ * discarded, so values that become frequent late still make it to the top.
+ */
+final class TopValues {
+
+  private final int capacity;
+
+  private final Map<String, Counter> counters = new HashMap<>();
+
+  /**
+   * The counters, least counted first.
+   */
+  private final NavigableSet<Counter> byCount = new TreeSet<>(
+      Comparator.comparingLong((Counter c) -> c.count).thenComparingLong(c -> c.id));
+
+  private long nextId;
+
+  TopValues(int capacity) {
+    this.capacity = capacity;
+  }
+
+  void add(@NotNull String value) {
+    Counter counter = counters.get(value);
+    if (counter != null) {
+      byCount.remove(counter);
+    } else {
+      if (counters.size() < capacity) {
+        counter = new Counter(nextId++);
+      } else {
+        counter = byCount.pollFirst();
+        counters.remove(counter.value);
+        counter.error = counter.count;
+      }
+      counter.value = value;
+      counters.put(value, counter);
+    }
+    counter.count++;
+    byCount.add(counter);
+  }
+
+  /**
+   * The values with the highest counts, most first, with the number of times they were surely
+   * added: exact unless the value took over the counter of another one.
+   */
+  @NotNull List<ValueCount> top(int n) {
+    List<ValueCount> top = new ArrayList<>(n);
+    for (Iterator<Counter> it = byCount.descendingIterator(); it.hasNext() && top.size() < n; ) {
+      Counter counter = it.next();
+      top.add(new ValueCount(counter.value, counter.count - counter.error));
+    }
+    return top;
+  }
+
+  private static final class Counter {
+
+    final long id;
+
+    String value;
+
+    /**
+     * The number of times the value was added, plus the error.
+     */
+    long count;
+
+    /**
+     * The count that the value inherited when it took over the counter.
+     */
+    long error;
+
+    Counter(long id) {
+      this.id = id;
+    }
+
+  }
+
+}
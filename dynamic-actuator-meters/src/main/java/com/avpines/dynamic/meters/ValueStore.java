@@ -0,0 +1,40 @@
+package com.avpines.dynamic.meters;
+
+/**
+ * Primitive storage for the values of the series of a dynamic meter, addressed by the {@link
+ * SlotParams slot} of the series. All the operations are atomic and do not allocate.
+ */
+public interface ValueStore {
+
+  /**
+   * A store that keeps the values in chunks of {@code double} arrays on the heap.
+   *
+   * @return a new value store.
+   */
+  static ValueStore onHeap() {
+    return new HeapValueStore();
+  }
+
+  /**
+   * A store that keeps the values in chunks of direct buffers, off the heap.
+   *
+   * @return a new value store.
+   */
+  static ValueStore offHeap() {
+    return new DirectValueStore();
+  }
+
+  /**
+   * Makes room for the given slot, before it is accessed.
+   *
+   * @param slot The slot.
+   */
+  void ensureCapacity(int slot);
+
+  double get(int slot);
+
+  void set(int slot, double value);
+
+  void add(int slot, double amount);
+
+}
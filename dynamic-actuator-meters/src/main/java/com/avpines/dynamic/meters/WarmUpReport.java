@@ -0,0 +1,29 @@
+package com.avpines.dynamic.meters;
+
+import java.time.Duration;
+import lombok.Value;
+
+/**
+ * How the pre-registration of the series of a dynamic meter went, see {@link
+ * DynamicMeter#preRegister(java.util.stream.Stream, java.util.concurrent.ForkJoinPool)}.
+ */
+@Value
+public class WarmUpReport {
+
+  /**
+   * The number of tag values that were pre-registered, including ones whose series already
+   * existed.
+   */
+  int requested;
+
+  /**
+   * The number of series of the dynamic meter once the warm-up completed.
+   */
+  int series;
+
+  /**
+   * How long the warm-up took.
+   */
+  Duration elapsed;
+
+}
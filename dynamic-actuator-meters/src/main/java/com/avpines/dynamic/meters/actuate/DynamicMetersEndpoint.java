@@ -0,0 +1,124 @@
+package com.avpines.dynamic.meters.actuate;
+
+import com.avpines.dynamic.meters.CardinalityReport;
+import com.avpines.dynamic.meters.DynamicMeter;
+import com.avpines.dynamic.meters.DynamicMeters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import lombok.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+
+/**
+ * An actuator endpoint to find the dynamic meters that hold the most series, and the tag keys
+ * whose values make them grow.
+ *
+ * <p>{@code /actuator/dynamicmeters} lists the dynamic meters of this process, with most series
+ * first, a page at a time. It only reads the number of series of every meter. {@code
+ * /actuator/dynamicmeters/{name}} inspects the meters with the given name, see {@link
+ * DynamicMeter#inspect(int)}, which scans their series once in bounded memory.
+ *
+ * <p>Responses are bounded rather than streamed: a page holds at most {@value #MAX_PAGE_SIZE}
+ * meters, and a report holds counts and at most {@value #MAX_TOP_VALUES} values per tag key, so
+ * neither grows with the number of series.
+ */
+@Endpoint(id = "dynamicmeters")
+public class DynamicMetersEndpoint {
+
+  static final int DEFAULT_PAGE_SIZE = 50;
+
+  static final int MAX_PAGE_SIZE = 1000;
+
+  static final int DEFAULT_TOP_VALUES = 10;
+
+  static final int MAX_TOP_VALUES = 1000;
+
+  /**
+   * A page of the dynamic meters of this process, with most series first.
+   *
+   * @param page The page, from {@code 0}, defaults to {@code 0}.
+   * @param size The number of meters per page, defaults to {@value #DEFAULT_PAGE_SIZE}, at most
+   *             {@value #MAX_PAGE_SIZE}.
+   * @return the page.
+   */
+  @ReadOperation
+  public MetersPage meters(@Nullable Integer page, @Nullable Integer size) {
+    int p = page != null ? page : 0;
+    int s = size != null ? size : DEFAULT_PAGE_SIZE;
+    if (p < 0 || s <= 0 || s > MAX_PAGE_SIZE) {
+      String message = String.format(
+          "Expected a page from '0' and a size from '1' to '%d', got '%d' and '%d'",
+          MAX_PAGE_SIZE, p, s);
+      throw new InvalidEndpointRequestException(message, message);
+    }
+    List<MeterSummary> meters = new ArrayList<>();
+    for (DynamicMeter<?, ?, ?> meter : DynamicMeters.all()) {
+      meters.add(new MeterSummary(meter.getName(), meter.getTagKeys(), meter.size()));
+    }
+    meters.sort(Comparator.comparingInt(MeterSummary::getSeries).reversed());
+    int from = (int) Math.min((long) p * s, meters.size());
+    int to = Math.min(from + s, meters.size());
+    return new MetersPage(p, s, meters.size(), new ArrayList<>(meters.subList(from, to)));
+  }
+
+  /**
+   * Inspects the cardinality of the dynamic meters with the given name.
+   *
+   * @param name The meter name.
+   * @param top  The number of values with the most series to report per tag key, defaults to
+   *             {@value #DEFAULT_TOP_VALUES}, at most {@value #MAX_TOP_VALUES}.
+   * @return a report per dynamic meter with the name, usually one, or {@code null} if there is
+   *     none.
+   */
+  @ReadOperation
+  public @Nullable List<CardinalityReport> meter(@Selector String name, @Nullable Integer top) {
+    int t = top != null ? top : DEFAULT_TOP_VALUES;
+    if (t < 0 || t > MAX_TOP_VALUES) {
+      String message = String.format(
+          "Expected top values from '0' to '%d', got '%d'", MAX_TOP_VALUES, t);
+      throw new InvalidEndpointRequestException(message, message);
+    }
+    List<CardinalityReport> reports = new ArrayList<>();
+    for (DynamicMeter<?, ?, ?> meter : DynamicMeters.all()) {
+      if (meter.getName().equals(name)) {
+        reports.add(meter.inspect(t));
+      }
+    }
+    return reports.isEmpty() ? null : reports;
+  }
+
+  /**
+   * A page of dynamic meters.
+   */
+  @Value
+  public static class MetersPage {
+
+    int page;
+    int size;
+
+    /**
+     * The number of dynamic meters in all the pages.
+     */
+    int total;
+
+    List<MeterSummary> meters;
+
+  }
+
+  /**
+   * A dynamic meter and its number of series.
+   */
+  @Value
+  public static class MeterSummary {
+
+    String name;
+    List<String> tagKeys;
+    int series;
+
+  }
+
+}
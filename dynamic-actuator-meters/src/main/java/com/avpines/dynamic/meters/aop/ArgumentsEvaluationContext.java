@@ -0,0 +1,96 @@
+package com.avpines.dynamic.meters.aop;
+
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.expression.BeanResolver;
+import org.springframework.expression.ConstructorResolver;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.OperatorOverloader;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.TypeComparator;
+import org.springframework.expression.TypeConverter;
+import org.springframework.expression.TypeLocator;
+import org.springframework.expression.TypedValue;
+
+/**
+ * Exposes the arguments of a single call as variables, over a shared context that holds
+ * everything else. The variable names are resolved to argument indexes once per method, so a call
+ * only allocates this context.
+ */
+final class ArgumentsEvaluationContext implements EvaluationContext {
+
+  private final EvaluationContext shared;
+
+  private final Map<String, Integer> parameters;
+
+  private final Object[] arguments;
+
+  ArgumentsEvaluationContext(
+      @NotNull EvaluationContext shared,
+      @NotNull Map<String, Integer> parameters,
+      Object @NotNull [] arguments) {
+    this.shared = shared;
+    this.parameters = parameters;
+    this.arguments = arguments;
+  }
+
+  @Override
+  public @Nullable Object lookupVariable(@NotNull String name) {
+    Integer index = parameters.get(name);
+    return index != null ? arguments[index] : shared.lookupVariable(name);
+  }
+
+  @Override
+  public void setVariable(@NotNull String name, @Nullable Object value) {
+    throw new UnsupportedOperationException("Tag expressions cannot assign variables");
+  }
+
+  @Override
+  public @NotNull TypedValue getRootObject() {
+    return TypedValue.NULL;
+  }
+
+  @Override
+  public @NotNull List<PropertyAccessor> getPropertyAccessors() {
+    return shared.getPropertyAccessors();
+  }
+
+  @Override
+  public @NotNull List<ConstructorResolver> getConstructorResolvers() {
+    return shared.getConstructorResolvers();
+  }
+
+  @Override
+  public @NotNull List<MethodResolver> getMethodResolvers() {
+    return shared.getMethodResolvers();
+  }
+
+  @Override
+  public @Nullable BeanResolver getBeanResolver() {
+    return shared.getBeanResolver();
+  }
+
+  @Override
+  public @NotNull TypeLocator getTypeLocator() {
+    return shared.getTypeLocator();
+  }
+
+  @Override
+  public @NotNull TypeConverter getTypeConverter() {
+    return shared.getTypeConverter();
+  }
+
+  @Override
+  public @NotNull TypeComparator getTypeComparator() {
+    return shared.getTypeComparator();
+  }
+
+  @Override
+  public @NotNull OperatorOverloader getOperatorOverloader() {
+    return shared.getOperatorOverloader();
+  }
+
+}
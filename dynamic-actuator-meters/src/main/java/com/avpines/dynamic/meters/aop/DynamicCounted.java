@@ -0,0 +1,35 @@
+package com.avpines.dynamic.meters.aop;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Counts the calls of a method with a dynamic counter, whose tag values are taken from the method
+ * arguments, see {@link DynamicMetersAnnotationBeanPostProcessor}.
+ *
+ * <p>Calls that throw are counted as well.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface DynamicCounted {
+
+  /**
+   * The name of the dynamic counter. Methods that share it share the dynamic counter, and must
+   * declare the same tag keys.
+   *
+   * @return the counter name.
+   */
+  String value();
+
+  /**
+   * Tag keys, each followed by the SpEL expression of its value, see {@link DynamicTimed#tags()}.
+   *
+   * @return the tag keys and expressions.
+   */
+  String[] tags() default {};
+
+}
@@ -0,0 +1,48 @@
+package com.avpines.dynamic.meters.aop;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+
+/**
+ * Proxies the beans with methods annotated with {@link DynamicTimed} or {@link DynamicCounted},
+ * to time and count their calls with dynamic meters.
+ *
+ * <p>The tag expressions of a bean are parsed when it is proxied, and the dynamic meters of a
+ * method are built by its first call, and shared by the methods that declare the same name. A call
+ * then costs about as much as recording into the dynamic meter by hand: plain argument references
+ * read the argument, and other expressions are compiled by SpEL once they ran a few times.
+ */
+public class DynamicMetersAnnotationBeanPostProcessor
+    extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+  private final DynamicMetersInterceptor interceptor;
+
+  /**
+   * Construct a new DynamicMetersAnnotationBeanPostProcessor.
+   *
+   * @param registry Supplies the registry of the dynamic meters, once they are first used.
+   */
+  public DynamicMetersAnnotationBeanPostProcessor(@NotNull Supplier<MeterRegistry> registry) {
+    this.interceptor = new DynamicMetersInterceptor(registry, getProxyClassLoader());
+    this.advisor = new DefaultPointcutAdvisor(
+        new ComposablePointcut(
+            AnnotationMatchingPointcut.forMethodAnnotation(DynamicTimed.class))
+            .union(AnnotationMatchingPointcut.forMethodAnnotation(DynamicCounted.class)),
+        interceptor);
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(@NotNull Object bean, @NotNull String beanName) {
+    if (isEligible(bean, beanName)) {
+      interceptor.prepare(AopUtils.getTargetClass(bean));
+    }
+    return super.postProcessAfterInitialization(bean, beanName);
+  }
+
+}
@@ -0,0 +1,185 @@
+package com.avpines.dynamic.meters.aop;
+
+import com.avpines.dynamic.meters.counter.DynamicCounter;
+import com.avpines.dynamic.meters.timer.DynamicTimer;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.SimpleEvaluationContext;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Times and counts the calls of methods annotated with {@link DynamicTimed} and {@link
+ * DynamicCounted}.
+ *
+ * <p>The annotations of a class are parsed when its bean is proxied, see {@link
+ * #prepare(Class)}, so a broken expression fails the startup. A call then only looks up its
+ * method, evaluates its tag values and records them.
+ */
+final class DynamicMetersInterceptor implements MethodInterceptor {
+
+  private final Supplier<MeterRegistry> registry;
+
+  private final ExpressionParser parser;
+
+  private final EvaluationContext shared;
+
+  private final ParameterNameDiscoverer parameterNames = new DefaultParameterNameDiscoverer();
+
+  private final ConcurrentMap<Method, MeteredMethod> methods = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, List<String>> timerTagKeys = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, List<String>> counterTagKeys = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, DynamicTimer> timers = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, DynamicCounter> counters = new ConcurrentHashMap<>();
+
+  DynamicMetersInterceptor(
+      @NotNull Supplier<MeterRegistry> registry, @Nullable ClassLoader classLoader) {
+    this.registry = registry;
+    this.parser = new SpelExpressionParser(
+        new SpelParserConfiguration(SpelCompilerMode.MIXED, classLoader));
+    // tag expressions only read the arguments, they must not reach into types or beans.
+    this.shared = SimpleEvaluationContext.forReadOnlyDataBinding().build();
+  }
+
+  /**
+   * Parses the annotations on the methods of a class, once.
+   *
+   * @param targetClass The class.
+   * @throws IllegalArgumentException if an annotation is invalid.
+   */
+  void prepare(@NotNull Class<?> targetClass) {
+    for (Method method : ReflectionUtils.getUniqueDeclaredMethods(targetClass)) {
+      if (AnnotatedElementUtils.hasAnnotation(method, DynamicTimed.class)
+          || AnnotatedElementUtils.hasAnnotation(method, DynamicCounted.class)) {
+        methods.computeIfAbsent(method, this::parse);
+      }
+    }
+  }
+
+  @Override
+  public Object invoke(@NotNull MethodInvocation invocation) throws Throwable {
+    Method method = invocation.getMethod();
+    MeteredMethod metered = methods.get(method);
+    if (metered == null) {
+      // e.g. an interface method, whose annotations are on the implementation.
+      Class<?> targetClass = invocation.getThis() != null
+          ? AopUtils.getTargetClass(invocation.getThis())
+          : method.getDeclaringClass();
+      metered = methods.computeIfAbsent(
+          AopUtils.getMostSpecificMethod(method, targetClass), this::parse);
+      methods.putIfAbsent(method, metered);
+    }
+    return metered.invoke(invocation, this);
+  }
+
+  private MeteredMethod parse(Method method) {
+    Map<String, Integer> parameters = parameters(method);
+    DynamicTimed timed = AnnotatedElementUtils.findMergedAnnotation(method, DynamicTimed.class);
+    TagExpressions timerTags = null;
+    if (timed != null) {
+      timerTags = TagExpressions.parse(method, timed.tags(), parameters, parser, shared);
+      declare(timerTagKeys, "timer", timed.value(), timerTags.keys());
+    }
+    DynamicCounted counted =
+        AnnotatedElementUtils.findMergedAnnotation(method, DynamicCounted.class);
+    TagExpressions counterTags = null;
+    if (counted != null) {
+      counterTags = TagExpressions.parse(method, counted.tags(), parameters, parser, shared);
+      declare(counterTagKeys, "counter", counted.value(), counterTags.keys());
+    }
+    return new MeteredMethod(
+        timed != null ? timed.value() : null, timerTags,
+        counted != null ? counted.value() : null, counterTags);
+  }
+
+  private Map<String, Integer> parameters(Method method) {
+    Map<String, Integer> parameters = new HashMap<>();
+    for (int i = 0; i < method.getParameterCount(); i++) {
+      parameters.put("p" + i, i);
+      parameters.put("a" + i, i);
+    }
+    String[] names = parameterNames.getParameterNames(method);
+    if (names != null) {
+      for (int i = 0; i < names.length; i++) {
+        parameters.put(names[i], i);
+      }
+    }
+    return parameters;
+  }
+
+  private static void declare(
+      ConcurrentMap<String, List<String>> declared, String type, String name, List<String> keys) {
+    List<String> existing = declared.putIfAbsent(name, keys);
+    if (existing != null && !existing.equals(keys)) {
+      throw new IllegalArgumentException(
+          String.format("Dynamic %s '%s' has tag keys '%s', got '%s'", type, name, existing, keys));
+    }
+  }
+
+  /**
+   * The clock of the registry, to time calls with.
+   *
+   * @return the clock.
+   */
+  Clock clock() {
+    return registry.get().config().clock();
+  }
+
+  /**
+   * The dynamic timer of the given name, built by the first call.
+   *
+   * @param name The name of a timer that was declared by an annotation.
+   * @return the dynamic timer.
+   */
+  DynamicTimer timer(String name) {
+    return timers.computeIfAbsent(name, n -> DynamicTimer.builder(registry.get(), n)
+        .tagKeys(declared(timerTagKeys, "timer", n))
+        .build());
+  }
+
+  /**
+   * The dynamic counter of the given name, built by the first call.
+   *
+   * @param name The name of a counter that was declared by an annotation.
+   * @return the dynamic counter.
+   */
+  DynamicCounter counter(String name) {
+    return counters.computeIfAbsent(name, n -> DynamicCounter.builder(registry.get(), n)
+        .tagKeys(declared(counterTagKeys, "counter", n))
+        .build());
+  }
+
+  private static List<String> declared(
+      ConcurrentMap<String, List<String>> declared, String type, String name) {
+    List<String> keys = declared.get(name);
+    if (keys == null) {
+      throw new IllegalStateException(
+          String.format("Dynamic %s '%s' was not declared by an annotation", type, name));
+    }
+    return keys;
+  }
+
+}
@@ -0,0 +1,44 @@
+package com.avpines.dynamic.meters.aop;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Times the calls of a method with a dynamic timer, whose tag values are taken from the method
+ * arguments, see {@link DynamicMetersAnnotationBeanPostProcessor}.
+ *
+ * <pre>{@code
+ * @DynamicTimed(value = "orders.place", tags = {"tenant", "#order.tenant", "channel", "#channel"})
+ * public Receipt place(Order order, String channel) { ... }
+ * }</pre>
+ *
+ * <p>Calls that throw are timed as well.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface DynamicTimed {
+
+  /**
+   * The name of the dynamic timer. Methods that share it share the dynamic timer, and must
+   * declare the same tag keys.
+   *
+   * @return the timer name.
+   */
+  String value();
+
+  /**
+   * Tag keys, each followed by the SpEL expression of its value, e.g. {@code {"tenant",
+   * "#order.tenant"}}. Arguments are referenced by their name, when it is compiled in, or by
+   * their index as {@code #p0} or {@code #a0}. Expressions are evaluated for read-only data
+   * binding: they can read properties, but not call methods, reference types or assign. Values are
+   * converted with {@link String#valueOf(Object)}.
+   *
+   * @return the tag keys and expressions.
+   */
+  String[] tags() default {};
+
+}
@@ -0,0 +1,96 @@
+package com.avpines.dynamic.meters.aop;
+
+import com.avpines.dynamic.meters.counter.DynamicCounter;
+import com.avpines.dynamic.meters.timer.DynamicTimer;
+import io.micrometer.core.instrument.Clock;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInvocation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The meters of an annotated method. The dynamic meters are resolved by the first call, and kept
+ * for every later call.
+ */
+@Slf4j
+final class MeteredMethod {
+
+  private final @Nullable String timerName;
+
+  private final @Nullable TagExpressions timerTags;
+
+  private final @Nullable String counterName;
+
+  private final @Nullable TagExpressions counterTags;
+
+  private DynamicTimer timer;
+
+  private DynamicCounter counter;
+
+  private volatile Clock clock;
+
+  MeteredMethod(
+      @Nullable String timerName,
+      @Nullable TagExpressions timerTags,
+      @Nullable String counterName,
+      @Nullable TagExpressions counterTags) {
+    this.timerName = timerName;
+    this.timerTags = timerTags;
+    this.counterName = counterName;
+    this.counterTags = counterTags;
+  }
+
+  Object invoke(@NotNull MethodInvocation invocation, @NotNull DynamicMetersInterceptor meters)
+      throws Throwable {
+    if (clock == null) {
+      resolve(meters);
+    }
+    if (timerTags == null) {
+      try {
+        return invocation.proceed();
+      } finally {
+        count(invocation.getArguments());
+      }
+    }
+    long start = clock.monotonicTime();
+    try {
+      return invocation.proceed();
+    } finally {
+      long elapsed = clock.monotonicTime() - start;
+      Object[] arguments = invocation.getArguments();
+      try {
+        timer.getOrCreate(timerTags.evaluate(arguments)).record(elapsed, TimeUnit.NANOSECONDS);
+      } catch (RuntimeException e) {
+        LOG.warn("Failed to time a call with dynamic timer '{}'", timerName, e);
+      }
+      count(arguments);
+    }
+  }
+
+  private void count(Object[] arguments) {
+    if (counterTags == null) {
+      return;
+    }
+    try {
+      counter.increment(counterTags.evaluate(arguments));
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to count a call with dynamic counter '{}'", counterName, e);
+    }
+  }
+
+  private synchronized void resolve(DynamicMetersInterceptor meters) {
+    if (clock != null) {
+      return;
+    }
+    if (timerName != null) {
+      timer = meters.timer(timerName);
+    }
+    if (counterName != null) {
+      counter = meters.counter(counterName);
+    }
+    // published last, the meters are visible to every call that sees it.
+    clock = meters.clock();
+  }
+
+}
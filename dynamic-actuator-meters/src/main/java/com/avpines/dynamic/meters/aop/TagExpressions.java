@@ -0,0 +1,124 @@
+package com.avpines.dynamic.meters.aop;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParseException;
+
+/**
+ * The tag keys of an annotated method, and the expressions of their values, parsed once.
+ *
+ * <p>An expression that is a plain argument reference, e.g. {@code #order}, reads the argument
+ * directly. Any other expression is evaluated by SpEL, which compiles it to bytecode once it ran
+ * a few times.
+ */
+final class TagExpressions {
+
+  private static final Pattern ARGUMENT = Pattern.compile("#(\\w+)");
+
+  private final String[] keys;
+
+  private final ValueExpression[] values;
+
+  private final Map<String, Integer> parameters;
+
+  private final EvaluationContext shared;
+
+  /**
+   * Whether any value is evaluated by SpEL, which needs a context per call.
+   */
+  private final boolean evaluated;
+
+  private TagExpressions(String[] keys, ValueExpression[] values, Map<String, Integer> parameters,
+      EvaluationContext shared, boolean evaluated) {
+    this.keys = keys;
+    this.values = values;
+    this.parameters = parameters;
+    this.shared = shared;
+    this.evaluated = evaluated;
+  }
+
+  /**
+   * Parses the tags of an annotation.
+   *
+   * @param method     The annotated method.
+   * @param tags       The tag keys, each followed by the expression of its value.
+   * @param parameters The argument indexes of the variable names that refer to them.
+   * @param parser     Parses the expressions.
+   * @param shared     The context the expressions are evaluated over.
+   * @return the parsed tags.
+   * @throws IllegalArgumentException if the tags are not pairs, or an expression cannot be parsed.
+   */
+  static @NotNull TagExpressions parse(
+      @NotNull Method method,
+      String @NotNull [] tags,
+      @NotNull Map<String, Integer> parameters,
+      @NotNull ExpressionParser parser,
+      @NotNull EvaluationContext shared) {
+    if (tags.length % 2 != 0) {
+      throw new IllegalArgumentException(
+          String.format("Expected tag keys and expressions in pairs on '%s', got '%d' values",
+              method, tags.length));
+    }
+    String[] keys = new String[tags.length / 2];
+    ValueExpression[] values = new ValueExpression[keys.length];
+    boolean evaluated = false;
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = tags[2 * i];
+      String source = tags[2 * i + 1].trim();
+      Matcher argument = ARGUMENT.matcher(source);
+      Integer index = argument.matches() ? parameters.get(argument.group(1)) : null;
+      if (index != null) {
+        int at = index;
+        values[i] = (arguments, context) -> arguments[at];
+        continue;
+      }
+      Expression expression;
+      try {
+        expression = parser.parseExpression(source);
+      } catch (ParseException e) {
+        throw new IllegalArgumentException(
+            String.format("Failed to parse the value of tag '%s' on '%s'", keys[i], method), e);
+      }
+      values[i] = (arguments, context) -> expression.getValue(context);
+      evaluated = true;
+    }
+    return new TagExpressions(keys, values, parameters, shared, evaluated);
+  }
+
+  List<String> keys() {
+    return Arrays.asList(keys);
+  }
+
+  /**
+   * Evaluates the tag values of a call.
+   *
+   * @param arguments The arguments of the call.
+   * @return the tag values, in the order of the keys.
+   */
+  String @NotNull [] evaluate(Object @NotNull [] arguments) {
+    EvaluationContext context = evaluated
+        ? new ArgumentsEvaluationContext(shared, parameters, arguments)
+        : null;
+    String[] tagValues = new String[values.length];
+    for (int i = 0; i < values.length; i++) {
+      tagValues[i] = String.valueOf(values[i].evaluate(arguments, context));
+    }
+    return tagValues;
+  }
+
+  @FunctionalInterface
+  private interface ValueExpression {
+
+    Object evaluate(Object[] arguments, EvaluationContext context);
+
+  }
+
+}
@@ -0,0 +1,46 @@
+package com.avpines.dynamic.meters.autoconfigure;
+
+import com.avpines.dynamic.meters.DynamicMeterPolicy;
+import com.avpines.dynamic.meters.DynamicMeters;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
+
+/**
+ * Sets a {@link DynamicMeterPolicy} on the registries of the application context, see {@link
+ * DynamicMeters#setPolicy}. The policies are kept for the whole process, so they are removed
+ * when the application context is closed, and a registry that outlives it, or the next context of
+ * a test, does not keep the policy of a closed context.
+ */
+public class DynamicMeterPolicyCustomizer
+    implements MeterRegistryCustomizer<MeterRegistry>, DisposableBean {
+
+  private final DynamicMeterPolicy policy;
+
+  private final List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
+
+  /**
+   * Construct a new DynamicMeterPolicyCustomizer.
+   *
+   * @param policy The policy to set.
+   */
+  public DynamicMeterPolicyCustomizer(@NotNull DynamicMeterPolicy policy) {
+    this.policy = policy;
+  }
+
+  @Override
+  public void customize(@NotNull MeterRegistry registry) {
+    DynamicMeters.setPolicy(registry, policy);
+    registries.add(registry);
+  }
+
+  @Override
+  public void destroy() {
+    registries.forEach(registry -> DynamicMeters.removePolicy(registry, policy));
+    registries.clear();
+  }
+
+}
@@ -0,0 +1,66 @@
+package com.avpines.dynamic.meters.autoconfigure;
+
+import com.avpines.dynamic.meters.DynamicMeterPolicy;
+import com.avpines.dynamic.meters.actuate.DynamicMetersEndpoint;
+import com.avpines.dynamic.meters.aop.DynamicCounted;
+import com.avpines.dynamic.meters.aop.DynamicMetersAnnotationBeanPostProcessor;
+import com.avpines.dynamic.meters.aop.DynamicTimed;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Applies the {@link DynamicMetersProperties}, or any other {@link DynamicMeterPolicy} bean, to
+ * the dynamic meters that are built for the registries of the application context, meters the
+ * methods annotated with {@link DynamicTimed} and {@link DynamicCounted}, and exposes the {@link
+ * DynamicMetersEndpoint}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(MeterRegistry.class)
+@EnableConfigurationProperties(DynamicMetersProperties.class)
+public class DynamicMetersAutoConfiguration {
+
+  @Bean
+  @ConditionalOnMissingBean(DynamicMeterPolicy.class)
+  public PropertiesDynamicMeterPolicy dynamicMeterPolicy(DynamicMetersProperties properties) {
+    return new PropertiesDynamicMeterPolicy(properties);
+  }
+
+  @Bean
+  public DynamicMeterPolicyCustomizer dynamicMeterPolicyCustomizer(DynamicMeterPolicy policy) {
+    return new DynamicMeterPolicyCustomizer(policy);
+  }
+
+  /**
+   * Times and counts the methods annotated with {@link DynamicTimed} and {@link DynamicCounted}.
+   * Proxies classes unless {@code spring.aop.proxy-target-class} is {@code false}.
+   *
+   * @param registry    The registry of the dynamic meters.
+   * @param environment To read the proxy mode from.
+   * @return the post processor.
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public static DynamicMetersAnnotationBeanPostProcessor dynamicMetersAnnotationBeanPostProcessor(
+      ObjectProvider<MeterRegistry> registry, Environment environment) {
+    DynamicMetersAnnotationBeanPostProcessor processor =
+        new DynamicMetersAnnotationBeanPostProcessor(registry::getObject);
+    processor.setProxyTargetClass(
+        environment.getProperty("spring.aop.proxy-target-class", Boolean.class, true));
+    return processor;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnAvailableEndpoint
+  public DynamicMetersEndpoint dynamicMetersEndpoint() {
+    return new DynamicMetersEndpoint();
+  }
+
+}
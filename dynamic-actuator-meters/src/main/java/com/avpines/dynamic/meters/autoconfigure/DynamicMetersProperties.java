@@ -0,0 +1,26 @@
+package com.avpines.dynamic.meters.autoconfigure;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Options for every dynamic meter that is built for a registry of the application context.
+ *
+ * <p>The top level options are defaults, that only apply to the options a builder left unset. The
+ * options of {@link #getOverrides() overrides} apply to the dynamic meters of a single name, over
+ * both the defaults and the options set by the builder, so a single meter can be tuned without
+ * changing its code.
+ */
+@Getter
+@ConfigurationProperties("dynamic.meters")
+public class DynamicMetersProperties extends MeterPolicyProperties {
+
+  /**
+   * Options by dynamic meter name, that override the defaults and the options set in code. Names
+   * with dots must be bracketed, e.g. "dynamic.meters.overrides[http.latency].max-series".
+   */
+  private final Map<String, MeterPolicyProperties> overrides = new LinkedHashMap<>();
+
+}
@@ -0,0 +1,55 @@
+package com.avpines.dynamic.meters.autoconfigure;
+
+import com.avpines.dynamic.meters.EvictionPolicy;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Options of dynamic meters that can be set by configuration, see {@link
+ * DynamicMetersProperties}. Unset options are left as they are.
+ */
+@Getter
+@Setter
+public class MeterPolicyProperties {
+
+  /**
+   * The maximum number of series of a dynamic meter, series beyond it are evicted.
+   */
+  private Integer maxSeries;
+
+  /**
+   * Decides which series to evict once the maximum number of series is exceeded.
+   */
+  private EvictionPolicy evictionPolicy;
+
+  /**
+   * Series that were not accessed for this long are removed.
+   */
+  private Duration expireAfterIdle;
+
+  /**
+   * The maximum number of distinct values, by tag key. Values beyond it are replaced by the
+   * overflow value. Only applies to the dynamic meters that have the tag key.
+   */
+  private Map<String, Integer> maxTagValues = new LinkedHashMap<>();
+
+  /**
+   * Replaces the tag values beyond their maximum, "OTHER" by default.
+   */
+  private String overflowValue;
+
+  /**
+   * Whether the meters of new series are registered in the background. Applies to counters,
+   * timers and distribution summaries.
+   */
+  private Boolean asyncRegistration;
+
+  /**
+   * Whether dynamic meters publish meters about themselves, under "dynamic.meters.".
+   */
+  private Boolean selfMetrics;
+
+}
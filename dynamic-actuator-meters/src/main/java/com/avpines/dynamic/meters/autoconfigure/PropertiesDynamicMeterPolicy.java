@@ -0,0 +1,132 @@
+package com.avpines.dynamic.meters.autoconfigure;
+
+import com.avpines.dynamic.meters.DynamicMeterOptions;
+import com.avpines.dynamic.meters.DynamicMeterOptions.DynamicMeterOptionsBuilder;
+import com.avpines.dynamic.meters.DynamicMeterPolicy;
+import com.avpines.dynamic.meters.TagValueLimit;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * A {@link DynamicMeterPolicy} that applies the {@link DynamicMetersProperties}. When any of them
+ * enables async registration, new meters are registered by a single daemon thread, which is shut
+ * down with the application context.
+ */
+public class PropertiesDynamicMeterPolicy implements DynamicMeterPolicy, DisposableBean {
+
+  private final DynamicMetersProperties properties;
+
+  private final @Nullable ExecutorService executor;
+
+  /**
+   * Construct a new PropertiesDynamicMeterPolicy.
+   *
+   * @param properties The properties to apply.
+   * @throws IllegalArgumentException if any of the properties is out of range.
+   */
+  public PropertiesDynamicMeterPolicy(@NotNull DynamicMetersProperties properties) {
+    this.properties = properties;
+    validate("dynamic.meters", properties);
+    properties.getOverrides().forEach(
+        (name, override) -> validate("dynamic.meters.overrides[" + name + "]", override));
+    boolean async = Stream
+        .concat(Stream.of(properties), properties.getOverrides().values().stream())
+        .anyMatch(p -> Boolean.TRUE.equals(p.getAsyncRegistration()));
+    this.executor = async
+        ? Executors.newSingleThreadExecutor(r -> {
+          Thread t = new Thread(r, "dynamic-meters-registration");
+          t.setDaemon(true);
+          return t;
+        })
+        : null;
+  }
+
+  @Override
+  public @NotNull DynamicMeterOptions apply(
+      @NotNull String name, @NotNull List<String> tagKeys, @NotNull DynamicMeterOptions options) {
+    DynamicMeterOptionsBuilder builder = options.toBuilder();
+    MeterPolicyProperties override = properties.getOverrides().get(name);
+    String overflowValue = overflowValue(override);
+    apply(properties, false, tagKeys, overflowValue, options, builder);
+    if (override != null) {
+      apply(override, true, tagKeys, overflowValue, options, builder);
+    }
+    return builder.build();
+  }
+
+  private void apply(MeterPolicyProperties properties, boolean override, List<String> tagKeys,
+      String overflowValue, DynamicMeterOptions set, DynamicMeterOptionsBuilder builder) {
+    boolean unbounded = set.getMaxSeries() == 0;
+    if (properties.getMaxSeries() != null && (override || unbounded)) {
+      builder.maxSeries(properties.getMaxSeries());
+    }
+    if (properties.getEvictionPolicy() != null && (override || unbounded)) {
+      builder.evictionPolicy(properties.getEvictionPolicy());
+    }
+    if (properties.getExpireAfterIdle() != null
+        && (override || set.getExpireAfterIdle() == null)) {
+      builder.expireAfterIdle(properties.getExpireAfterIdle());
+    }
+    if (properties.getAsyncRegistration() != null
+        && (override || set.getRegistrationExecutor() == null)) {
+      builder.registrationExecutor(properties.getAsyncRegistration() ? executor : null);
+    }
+    if (properties.getSelfMetrics() != null && (override || !set.isSelfMetrics())) {
+      builder.selfMetrics(properties.getSelfMetrics());
+    }
+    for (Map.Entry<String, Integer> entry : properties.getMaxTagValues().entrySet()) {
+      String tagKey = entry.getKey();
+      if (tagKeys.contains(tagKey)
+          && (override || !set.getTagValueLimits().containsKey(tagKey))) {
+        builder.tagValueLimit(tagKey, new TagValueLimit(entry.getValue(), overflowValue));
+      }
+    }
+  }
+
+  /**
+   * The overflow value of the tag value limits that the properties set on a meter: the one of its
+   * override, else the top level one, else the default.
+   */
+  private String overflowValue(@Nullable MeterPolicyProperties override) {
+    if (override != null && override.getOverflowValue() != null) {
+      return override.getOverflowValue();
+    }
+    return properties.getOverflowValue() != null
+        ? properties.getOverflowValue()
+        : TagValueLimit.DEFAULT_OVERFLOW_VALUE;
+  }
+
+  private static void validate(String prefix, MeterPolicyProperties properties) {
+    Integer maxSeries = properties.getMaxSeries();
+    if (maxSeries != null && maxSeries <= 0) {
+      throw new IllegalArgumentException(
+          String.format("'%s.max-series' must be positive, got '%d'", prefix, maxSeries));
+    }
+    Duration expireAfterIdle = properties.getExpireAfterIdle();
+    if (expireAfterIdle != null && (expireAfterIdle.isNegative() || expireAfterIdle.isZero())) {
+      throw new IllegalArgumentException(String.format(
+          "'%s.expire-after-idle' must be positive, got '%s'", prefix, expireAfterIdle));
+    }
+    properties.getMaxTagValues().forEach((tagKey, max) -> {
+      if (max == null || max <= 0) {
+        throw new IllegalArgumentException(String.format(
+            "'%s.max-tag-values.%s' must be positive, got '%s'", prefix, tagKey, max));
+      }
+    });
+  }
+
+  @Override
+  public void destroy() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+}
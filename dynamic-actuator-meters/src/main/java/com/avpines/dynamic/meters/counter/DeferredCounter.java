@@ -0,0 +1,73 @@
+package com.avpines.dynamic.meters.counter;
+
+import com.avpines.dynamic.meters.DeferredMeter;
+import io.micrometer.core.instrument.Counter;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link Counter} that sums its increments until it is bound to the registered counter.
+ */
+final class DeferredCounter implements Counter, DeferredMeter<Counter> {
+
+  /**
+   * The id until the meter is bound, which may improve once the first meter of the dynamic meter is
+   * registered.
+   */
+  private final Supplier<Id> id;
+
+  private final DoubleAdder buffered = new DoubleAdder();
+
+  private volatile Counter delegate;
+
+  DeferredCounter(@NotNull Supplier<Id> id) {
+    this.id = id;
+  }
+
+  @Override
+  public void increment(double amount) {
+    Counter d = delegate;
+    if (d != null) {
+      d.increment(amount);
+      return;
+    }
+    buffered.add(amount);
+    // the counter may have been bound before the amount was buffered.
+    d = delegate;
+    if (d != null) {
+      replay(d);
+    }
+  }
+
+  @Override
+  public double count() {
+    Counter d = delegate;
+    return d != null ? d.count() : buffered.sum();
+  }
+
+  @Override
+  public @NotNull Id getId() {
+    Counter d = delegate;
+    return d != null ? d.getId() : id.get();
+  }
+
+  @Override
+  public @NotNull Counter meter() {
+    return this;
+  }
+
+  @Override
+  public void bind(@NotNull Counter meter) {
+    delegate = meter;
+    replay(meter);
+  }
+
+  private void replay(Counter meter) {
+    double amount = buffered.sumThenReset();
+    if (amount != 0) {
+      meter.increment(amount);
+    }
+  }
+
+}
@@ -1,13 +1,21 @@
 package com.avpines.dynamic.meters.counter;
 
+import com.avpines.dynamic.meters.DeferredMeter;
+import com.avpines.dynamic.meters.DynamicMeterOptions;
 import com.avpines.dynamic.meters.ParameterlessDynamicMeter;
+import com.avpines.dynamic.meters.RollUpSeries;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Counter.Builder;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
+import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 import java.util.function.UnaryOperator;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -30,6 +38,7 @@ public class DynamicCounter extends ParameterlessDynamicMeter<Counter, Builder>
    * @param tagger          A function to dynamically add the tags.
    * @param customizers     For any additional customization to the underlying meter.
    * @param registrar       Function to register the underlying meters.
+   * @param options         Policies for managing the series of this meter.
    * @param tagKeys         The keys that this meter will have, and allow their values to be added
    *                        dynamically.
    */
@@ -40,8 +49,85 @@ public class DynamicCounter extends ParameterlessDynamicMeter<Counter, Builder>
       @NotNull BiFunction<Builder, Collection<Tag>, Counter.Builder> tagger,
       @Nullable Collection<UnaryOperator<Builder>> customizers,
       @NotNull Function<Builder, Counter> registrar,
+      @NotNull DynamicMeterOptions options,
       String @NotNull... tagKeys) {
-    super(registry, name, newInnerBuilder, tagger, customizers, registrar, tagKeys);
+    super(registry, name, newInnerBuilder, tagger, customizers, registrar, options, tagKeys);
+  }
+
+  /**
+   * Increments the counter with the given tag values, creating it if needed. Unlike {@code
+   * getOrCreate(tagValues).increment(amount)}, the increment is buffered in a table of the current
+   * thread when the counter was built with {@link DynamicCounterBuilder#buffered(Duration)}, and
+   * applied to the counter by the next flush.
+   *
+   * @param amount    The amount to add.
+   * @param tagValues The tag values, should correspond to the given tag keys when this dynamic
+   *                  meter was constructed.
+   */
+  public void increment(double amount, String @NotNull... tagValues) {
+    accumulate(null, amount, tagValues);
+  }
+
+  /**
+   * Increments the counter with the given tag values by one, see {@link #increment(double,
+   * String...)}.
+   *
+   * @param tagValues The tag values, should correspond to the given tag keys when this dynamic
+   *                  meter was constructed.
+   */
+  public void increment(String @NotNull... tagValues) {
+    accumulate(null, 1, tagValues);
+  }
+
+  /**
+   * Applies the buffered increments to their counters right away, e.g., before a final publish on
+   * shutdown. Does nothing when increments are not buffered.
+   */
+  public void flush() {
+    flushAccumulated();
+  }
+
+  /**
+   * Increments the counters of a batch of events. The amounts are summed per series first, so
+   * every distinct series is looked up and incremented once.
+   *
+   * @param events    The events to count.
+   * @param tagValues The tag values of the series of an event, should correspond to the given tag
+   *                  keys when this dynamic meter was constructed.
+   * @param amount    The amount to add for an event.
+   * @param <V>       The event type.
+   */
+  public <V> void incrementAll(
+      @NotNull Iterable<? extends V> events,
+      @NotNull Function<? super V, String[]> tagValues,
+      @NotNull ToDoubleFunction<? super V> amount) {
+    aggregate(events, tagValues, () -> new double[1],
+        (sum, event) -> sum[0] += amount.applyAsDouble(event),
+        (counter, sum) -> counter.increment(sum[0]));
+  }
+
+  @Override
+  protected void applyAccumulated(@NotNull Counter meter, double amount) {
+    meter.increment(amount);
+  }
+
+  @Override
+  protected @NotNull List<ToDoubleFunction<? super Counter>> rollUpMeasures() {
+    return List.of(Counter::count);
+  }
+
+  /**
+   * Registers a function counter over the sum of the counts of the rolled up series.
+   */
+  @Override
+  protected @NotNull Meter registerRollUp(@NotNull MeterRegistry registry, @NotNull String name,
+      @NotNull List<Tag> tags, @NotNull RollUpSeries<Counter> series) {
+    return FunctionCounter.builder(name, series, s -> s.sum(0)).tags(tags).register(registry);
+  }
+
+  @Override
+  protected @NotNull DeferredMeter<Counter> defer(@NotNull String name, @NotNull List<Tag> tags) {
+    return new DeferredCounter(() -> deferredId(name, tags, Meter.Type.COUNTER));
   }
 
 }
\ No newline at end of file
@@ -1,24 +1,21 @@
 package com.avpines.dynamic.meters.counter;
 
 
+import com.avpines.dynamic.meters.AbstractDynamicMeterBuilder;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Counter.Builder;
 import io.micrometer.core.instrument.MeterRegistry;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.time.Duration;
 import java.util.Collection;
-import java.util.function.UnaryOperator;
+import java.util.List;
+import java.util.concurrent.Executor;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * Builder for {@link DynamicCounter} meters.
  */
-public class DynamicCounterBuilder {
-
-  MeterRegistry registry;
-  String name;
-  Collection<UnaryOperator<Builder>> customizers;
-  Collection<String> tagKeys;
+public class DynamicCounterBuilder
+    extends AbstractDynamicMeterBuilder<Builder, DynamicCounterBuilder> {
 
   /**
    * Construct a new DynamicCounterBuilder.
@@ -29,36 +26,78 @@ public class DynamicCounterBuilder {
   public DynamicCounterBuilder(
       MeterRegistry registry,
       String name) {
-    this.registry = registry;
-    this.name = name;
-    this.customizers = new ArrayList<>();
-    this.tagKeys = new ArrayList<>();
+    super(registry, name);
+  }
 
+  /**
+   * Register the counters of new series with the given executor, instead of on the calling
+   * thread. A new series is handed out right away as a stand-in counter that sums its increments
+   * until the registered counter is bound to it, then adds them to it and forwards to it.
+   *
+   * @param executor Registers the new counters.
+   * @return this builder.
+   */
+  public DynamicCounterBuilder asyncRegistration(@NotNull Executor executor) {
+    this.options.registrationExecutor(executor);
+    return self();
   }
 
-  public DynamicCounterBuilder customizers(
-      @NotNull Collection<UnaryOperator<Counter.Builder>> customizers) {
-    this.customizers.addAll(customizers);
-    return this;
+  /**
+   * Buffer the increments made with {@link DynamicCounter#increment(double, String...)} in tables
+   * that are confined to the threads that make them, and flush them into the counters at the given
+   * interval. An increment then costs a lookup and a couple of stores that no other thread
+   * contends on. The counters lag behind by up to the interval, so it should be shorter than the
+   * publishing step of the registry, and {@link DynamicCounter#flush()} should be called before a
+   * final publish.
+   *
+   * @param flushInterval How often to flush the buffered increments, must be positive.
+   * @return this builder.
+   */
+  public DynamicCounterBuilder buffered(@NotNull Duration flushInterval) {
+    if (flushInterval.isNegative() || flushInterval.isZero()) {
+      throw new IllegalArgumentException(
+          String.format("Flush interval must be positive, got '%s'", flushInterval));
+    }
+    this.options.flushInterval(flushInterval);
+    return self();
   }
 
-  public DynamicCounterBuilder customizer(@NotNull UnaryOperator<Counter.Builder> customizer) {
-    this.customizers.add(customizer);
-    return this;
+  /**
+   * Roll up the series by a subset of the tag keys, into a function meter of the given name per
+   * combination of values of those keys. A roll-up sums the counts of its series when it is
+   * published, so recording does not record into it as well, and it keeps the counts of the
+   * series that were removed, so it never goes back.
+   *
+   * <p>The registry must be cumulative: the meters of a step registry only hold their last step,
+   * so building a meter with roll-ups on one throws an {@link IllegalArgumentException}.
+   *
+   * @param name    The name of the roll-up meters, must differ from the name of this meter.
+   * @param tagKeys The tag keys to roll up by, each one of the tag keys of this meter.
+   * @return this builder.
+   */
+  public DynamicCounterBuilder rollUp(@NotNull String name, @NotNull String... tagKeys) {
+    this.options.rollUp(name, List.of(tagKeys));
+    return self();
+  }
+
+  @Override
+  public DynamicCounterBuilder preRegister(@NotNull Collection<String[]> tagValues) {
+    return super.preRegister(tagValues);
   }
 
-  public DynamicCounterBuilder tagKeys(@NotNull Collection<String> tagKeys) {
-    this.tagKeys.addAll(tagKeys);
+  @Override
+  protected DynamicCounterBuilder self() {
     return this;
   }
 
-  public DynamicCounterBuilder tagKeys(String @NotNull... tagKeys) {
-    return tagKeys(Arrays.asList(tagKeys));
+  @Override
+  protected boolean buffers() {
+    return true;
   }
 
-  public DynamicCounterBuilder tagKey(@NotNull String tagKey) {
-    this.tagKeys.add(tagKey);
-    return this;
+  @Override
+  protected boolean rollsUp() {
+    return true;
   }
 
   /**
@@ -67,15 +106,16 @@ public class DynamicCounterBuilder {
    * @return a new DynamicCounter.
    */
   public DynamicCounter build() {
-    return new DynamicCounter(
+    return start(new DynamicCounter(
         registry,
         name,
         Counter::builder,
         (b, t) -> t != null ? b.tags(t) : b,
         customizers,
         b -> b.register(registry),
-        tagKeys.toArray(new String[0])
-    );
+        options(),
+        tagKeysArray()
+    ));
   }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,196 @@
+package com.avpines.dynamic.meters.counter;
+
+import com.avpines.dynamic.meters.DynamicMeter;
+import com.avpines.dynamic.meters.DynamicMeterOptions;
+import com.avpines.dynamic.meters.SlotParams;
+import com.avpines.dynamic.meters.ValueStore;
+import com.avpines.dynamic.meters.WarmUpReport;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionCounter.Builder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A dynamic counter that keeps the totals of its series itself, in a {@link ValueStore}, and
+ * registers a {@link FunctionCounter} per series that reads its total. With an {@link
+ * DynamicValueCounterBuilder#offHeap() off heap} store, the totals of millions of series do not
+ * add to the heap.
+ *
+ * <p>Like any {@link FunctionCounter}, the registered counters only weakly reference the store, so
+ * the dynamic counter must be kept reachable for as long as its counters are published. A series
+ * that is evicted or expires while it is incremented may have the increment applied to a new series
+ * that reuses its slot.
+ *
+ * <p>A {@link DynamicValueCounterBuilder#persistent(java.nio.file.Path) persistent} counter keeps
+ * the totals in a memory-mapped file, along with the tag values of the series, and restores the
+ * series that were alive when a new counter is built from the same file.
+ */
+public class DynamicValueCounter extends DynamicMeter<FunctionCounter, Builder<ValueStore>,
+    SlotParams> {
+
+  private final ValueStore store;
+
+  /**
+   * The store, when it is {@link DynamicValueCounterBuilder#persistent(java.nio.file.Path)
+   * persistent}. {@code null} otherwise.
+   */
+  private final @Nullable MappedValueStore mapped;
+
+  /**
+   * Builder for a {@link DynamicValueCounter}.
+   *
+   * @param registry To register generated meters.
+   * @param name     The meter name that will be shared among all the underlying meters.
+   * @return a new dynamic value counter builder.
+   */
+  public static @NotNull DynamicValueCounterBuilder builder(MeterRegistry registry, String name) {
+    return new DynamicValueCounterBuilder(registry, name);
+  }
+
+  /**
+   * Construct a new DynamicValueCounter.
+   *
+   * @param registry    To register the underlying meters.
+   * @param name        Meter name, all underlying meters will share that name.
+   * @param tagger      A function to dynamically add the tags.
+   * @param customizers For any additional customization to the underlying meter.
+   * @param registrar   Function to register the underlying meters.
+   * @param options     Policies for managing the series of this meter, must be slotted.
+   * @param store       Keeps the totals of the series.
+   * @param tagKeys     The keys that this meter will have, and allow their values to be added
+   *                    dynamically.
+   */
+  DynamicValueCounter(
+      @NotNull MeterRegistry registry,
+      @NotNull String name,
+      @NotNull BiFunction<Builder<ValueStore>, Collection<Tag>, Builder<ValueStore>> tagger,
+      @Nullable Collection<UnaryOperator<Builder<ValueStore>>> customizers,
+      @NotNull Function<Builder<ValueStore>, FunctionCounter> registrar,
+      @NotNull DynamicMeterOptions options,
+      @NotNull ValueStore store,
+      String @NotNull... tagKeys) {
+    super(registry, name,
+        (n, p) -> FunctionCounter.builder(n, store, s -> s.get(p.getSlot())),
+        tagger, customizers, registrar, options, tagKeys);
+    this.store = store;
+    this.mapped = store instanceof MappedValueStore ? (MappedValueStore) store : null;
+  }
+
+  /**
+   * Increments the total of the series with the given tag values, registering its counter if
+   * needed.
+   *
+   * @param amount    The amount to add.
+   * @param tagValues The tag values, should correspond to the given tag keys when this dynamic
+   *                  meter was constructed.
+   */
+  public void increment(double amount, String @NotNull... tagValues) {
+    store.add(slotOf(null, tagValues), amount);
+  }
+
+  /**
+   * Increments the total of the series with the given tag values by one, see {@link
+   * #increment(double, String...)}.
+   *
+   * @param tagValues The tag values, should correspond to the given tag keys when this dynamic
+   *                  meter was constructed.
+   */
+  public void increment(String @NotNull... tagValues) {
+    increment(1, tagValues);
+  }
+
+  /**
+   * Registers the series with the given tag values ahead of time, in parallel on the common {@link
+   * ForkJoinPool}, so that the first recordings into them do not pay for registering them.
+   *
+   * @param tagValues The tag values of the series, should correspond to the given tag keys when
+   *                  this dynamic meter was constructed.
+   * @return how long the warm-up took.
+   */
+  @Override
+  public WarmUpReport preRegister(@NotNull Collection<String[]> tagValues) {
+    return super.preRegister(tagValues);
+  }
+
+  /**
+   * Registers the series with the given tag values ahead of time, in parallel on the given pool,
+   * so that the first recordings into them do not pay for registering them.
+   *
+   * @param tagValues The tag values of the series, should correspond to the given tag keys when
+   *                  this dynamic meter was constructed.
+   * @param pool      The pool to register the series on.
+   * @return how long the warm-up took.
+   */
+  @Override
+  public WarmUpReport preRegister(
+      @NotNull Stream<String[]> tagValues, @NotNull ForkJoinPool pool) {
+    return super.preRegister(tagValues, pool);
+  }
+
+  @Override
+  protected SlotParams withSlot(SlotParams params, int slot, String @NotNull [] tagValues) {
+    store.ensureCapacity(slot);
+    if (mapped != null) {
+      mapped.assigned(slot, tagValues);
+    } else {
+      store.set(slot, 0);
+    }
+    return new SlotParams(slot);
+  }
+
+  @Override
+  protected void slotReleased(int slot) {
+    if (mapped != null) {
+      mapped.released(slot);
+    }
+  }
+
+  /**
+   * Registers the series that were saved in the {@link DynamicValueCounterBuilder#persistent
+   * persistent} store, with their totals.
+   */
+  void restore() {
+    if (mapped != null) {
+      mapped.restore(tagValues -> slotOf(null, tagValues));
+    }
+  }
+
+  /**
+   * Appends the series that were created since the last flush to the journal of a {@link
+   * DynamicValueCounterBuilder#persistent(java.nio.file.Path) persistent} counter. Runs on the
+   * housekeeping thread, tests call it directly.
+   */
+  void flushJournal() {
+    if (mapped != null) {
+      mapped.flush();
+    }
+  }
+
+  /**
+   * Closes the file of a {@link DynamicValueCounterBuilder#persistent(java.nio.file.Path)
+   * persistent} counter and releases its lock, so another counter can be built from it. The
+   * counter must not be incremented afterwards. Does nothing for other counters.
+   *
+   * @throws UncheckedIOException if the file cannot be closed.
+   */
+  public void close() {
+    if (mapped != null) {
+      try {
+        mapped.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to close the counter file", e);
+      }
+    }
+  }
+
+}
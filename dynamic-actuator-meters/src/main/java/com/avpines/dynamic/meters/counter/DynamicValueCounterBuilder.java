@@ -0,0 +1,86 @@
+package com.avpines.dynamic.meters.counter;
+
+import com.avpines.dynamic.meters.AbstractDynamicValueMeterBuilder;
+import com.avpines.dynamic.meters.ValueStore;
+import io.micrometer.core.instrument.FunctionCounter.Builder;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.file.Path;
+import java.util.Collection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Builder for {@link DynamicValueCounter} meters.
+ */
+public class DynamicValueCounterBuilder
+    extends AbstractDynamicValueMeterBuilder<Builder<ValueStore>, DynamicValueCounterBuilder> {
+
+  private @Nullable Path path;
+
+  /**
+   * Construct a new DynamicValueCounterBuilder.
+   *
+   * @param registry To register generated meters.
+   * @param name     The meter name that will be shared among all the underlying meters.
+   */
+  public DynamicValueCounterBuilder(MeterRegistry registry, String name) {
+    super(registry, name);
+  }
+
+  /**
+   * Keep the totals in a memory-mapped file, and the tag values of the series in a journal next to
+   * it, named after the file with a {@code .series} suffix. Totals are written to the mapped pages
+   * as they are incremented and a series is appended to the journal once, when it is created, so
+   * there is nothing to save on shutdown. When the file already exists, {@link #build()}
+   * registers the series that were alive in it and restores their totals, so a restarted process
+   * neither pays for registering its series on first use nor resets their totals.
+   *
+   * <p>The file is locked until the counter is {@link DynamicValueCounter#close() closed}, so it is
+   * only used by one dynamic counter at a time, and must be used with the same tag keys. The
+   * journal is compacted into a new file that atomically replaces it, so a process that dies at any
+   * point loses no series. Like {@link #offHeap()}, the totals are off the heap.
+   *
+   * @param path The file of the totals.
+   * @return this builder.
+   */
+  public DynamicValueCounterBuilder persistent(@NotNull Path path) {
+    this.path = path;
+    return this;
+  }
+
+  @Override
+  public DynamicValueCounterBuilder preRegister(@NotNull Collection<String[]> tagValues) {
+    return super.preRegister(tagValues);
+  }
+
+  @Override
+  protected DynamicValueCounterBuilder self() {
+    return this;
+  }
+
+  /**
+   * Build a new {@link DynamicValueCounter}, restoring the series of its {@link #persistent(Path)
+   * persistent} file.
+   *
+   * @return a new DynamicValueCounter.
+   * @throws java.io.UncheckedIOException if the persistent file cannot be read or written.
+   * @throws IllegalArgumentException     if the persistent file was saved with other tag keys.
+   * @throws IllegalStateException        if the persistent file is used by another counter.
+   */
+  public DynamicValueCounter build() {
+    String[] tagKeys = tagKeysArray();
+    DynamicValueCounter counter = new DynamicValueCounter(
+        registry,
+        name,
+        (b, t) -> t != null ? b.tags(t) : b,
+        customizers,
+        b -> b.register(registry),
+        options(),
+        path != null ? MappedValueStore.open(path, tagKeys) : valueStore.get(),
+        tagKeys
+    );
+    counter.restore();
+    return start(counter);
+  }
+
+}
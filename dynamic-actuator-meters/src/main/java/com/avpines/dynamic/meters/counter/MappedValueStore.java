@@ -0,0 +1,543 @@
+package com.avpines.dynamic.meters.counter;
+
+import com.avpines.dynamic.meters.Housekeeping;
+import com.avpines.dynamic.meters.ValueStore;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import lombok.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A {@link ValueStore} over a memory-mapped file, so the totals of the series outlive the
+ * process: every write lands in the page cache right away, and nothing is written on shutdown.
+ * Every slot has a total and a generation, which is bumped when the slot is assigned. The tag
+ * values and the generation of every assigned slot are queued, and appended to a journal next to
+ * the file by the {@link Housekeeping housekeeping} thread, so creating a series takes no lock and
+ * makes no system call. A released slot is marked by a {@code NaN} total, so the series that were
+ * alive can be {@link #restore(Consumer) restored} by the next process.
+ *
+ * <p>A record of the journal is current if it is the last one of both its slot and its series,
+ * and if its slot still has its generation. The journal is never rewritten in place: it is
+ * compacted to the current records of the live series in a new file, which atomically replaces
+ * it, after the series are restored and whenever the churn of the series doubled it. Compaction
+ * and the sync of the journal also run on the housekeeping thread. A process that dies loses the
+ * series whose records were still queued, at most the ones created during the last {@link
+ * #FLUSH_INTERVAL}, and the generation keeps a slot that was reused in the meantime from being
+ * restored with the tag values of its previous series.
+ *
+ * <p>Restored series are assigned slots in the order of the slots they had, so a restored series
+ * can only take the slot of a series that was restored before it, and its record is appended
+ * before the next series is restored. The files are consistent at every step, so a process that
+ * dies while restoring loses no series.
+ *
+ * <p>The file is locked while the store is open, so it is only used by a single dynamic counter
+ * at a time. Java cannot unmap a buffer, so the chunks stay mapped after the store is closed,
+ * until they are garbage collected along with the store. The registered counters read their totals
+ * until then, and unmapping the chunks under them would crash the process.
+ */
+final class MappedValueStore implements ValueStore, Closeable {
+
+  private static final int MAGIC = 0x44564332;
+
+  /**
+   * How often the queued records are appended to the journal.
+   */
+  static final Duration FLUSH_INTERVAL = Duration.ofMillis(100);
+
+  private static final int CHUNK_BITS = 16;
+
+  private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+  /**
+   * A slot holds its total and then its generation.
+   */
+  private static final int SLOT_BYTES = Double.BYTES + Long.BYTES;
+
+  private static final long CHUNK_BYTES = (long) SLOT_BYTES << CHUNK_BITS;
+
+  /**
+   * The number of records a journal may have before it is compacted, at least.
+   */
+  private static final int MIN_COMPACTION_RECORDS = 1024;
+
+  private static final VarHandle VALUES =
+      MethodHandles.byteBufferViewVarHandle(double[].class, ByteOrder.nativeOrder());
+
+  private static final VarHandle GENERATIONS =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+  private final Path path;
+
+  private final Path journalPath;
+
+  private final FileChannel values;
+
+  private final FileLock lock;
+
+  private final String[] tagKeys;
+
+  /**
+   * The records of the assigned slots, until they are appended to the journal.
+   */
+  private final Queue<Saved> pending = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Guards the journal, the record counts and {@link #closed}.
+   */
+  private final Object journalLock = new Object();
+
+  private FileChannel journal;
+
+  private boolean closed;
+
+  /**
+   * The number of records in the journal, and the number it had when it was last compacted.
+   */
+  private int records;
+
+  private int compactedRecords;
+
+  /**
+   * The series that were alive in the previous process, until they are restored.
+   */
+  private List<Saved> saved;
+
+  /**
+   * The series being restored, it is assigned its saved total.
+   */
+  private volatile @Nullable Saved restoring;
+
+  private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+
+  private MappedValueStore(Path path, Path journalPath, FileChannel values, FileLock lock,
+      FileChannel journal, String[] tagKeys) {
+    this.path = path;
+    this.journalPath = journalPath;
+    this.values = values;
+    this.lock = lock;
+    this.journal = journal;
+    this.tagKeys = tagKeys;
+  }
+
+  /**
+   * Opens the store in the given file, creating it if needed, and reads the series that were saved
+   * in it, to {@link #restore(Consumer) restore} them. The journal is flushed on the housekeeping
+   * thread until the store is closed.
+   *
+   * @param path    The file of the totals, the journal is kept next to it.
+   * @param tagKeys The tag keys of the dynamic counter.
+   * @return the store.
+   * @throws UncheckedIOException     if the files cannot be read or written.
+   * @throws IllegalArgumentException if the file was saved with other tag keys.
+   * @throws IllegalStateException    if the file is used by another store.
+   */
+  static @NotNull MappedValueStore open(@NotNull Path path, String @NotNull [] tagKeys) {
+    Path journalPath = path.resolveSibling(path.getFileName() + ".series");
+    FileChannel values = null;
+    FileChannel journal = null;
+    try {
+      values = FileChannel.open(path,
+          StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      FileLock lock = lock(values, path);
+      journal = FileChannel.open(journalPath,
+          StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      MappedValueStore store =
+          new MappedValueStore(path, journalPath, values, lock, journal, tagKeys.clone());
+      store.load();
+      Housekeeping.schedule(store, MappedValueStore::flush, FLUSH_INTERVAL);
+      return store;
+    } catch (IOException e) {
+      closeQuietly(journal, e);
+      closeQuietly(values, e);
+      throw new UncheckedIOException(
+          String.format("Failed to open the counter file '%s'", path), e);
+    } catch (RuntimeException e) {
+      closeQuietly(journal, e);
+      closeQuietly(values, e);
+      throw e;
+    }
+  }
+
+  private static FileLock lock(FileChannel values, Path path) throws IOException {
+    FileLock lock;
+    try {
+      lock = values.tryLock();
+    } catch (OverlappingFileLockException e) {
+      lock = null;
+    }
+    if (lock == null) {
+      throw new IllegalStateException(
+          String.format("Counter file '%s' is used by another counter", path));
+    }
+    return lock;
+  }
+
+  private static void closeQuietly(@Nullable FileChannel channel, Exception failure) {
+    if (channel == null) {
+      return;
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      failure.addSuppressed(e);
+    }
+  }
+
+  private void load() throws IOException {
+    List<Saved> current = currentRecords();
+    // Reads the totals before the restored series overwrite the slots they used to have.
+    saved = new ArrayList<>(current.size());
+    for (Saved record : current) {
+      double total = get(record.getSlot());
+      if (!Double.isNaN(total)) {
+        saved.add(new Saved(
+            record.getSlot(), record.getGeneration(), record.getTagValues(), total));
+      }
+    }
+    if (journal.size() == 0) {
+      compact(List.of());
+    }
+  }
+
+  /**
+   * Reads the current records of the journal, in the order of their slots, with a {@code NaN}
+   * total. Only slots that the values file holds are kept, and their chunks are mapped.
+   */
+  private List<Saved> currentRecords() throws IOException {
+    if (journal.size() == 0) {
+      return List.of();
+    }
+    DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Channels.newInputStream(journal.position(0))));
+    String[] keys = new String[in.readInt() == MAGIC ? in.readInt() : 0];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = in.readUTF();
+    }
+    if (!Arrays.equals(keys, tagKeys)) {
+      throw new IllegalArgumentException(
+          String.format("File '%s' holds series with tag keys '%s', expected '%s'",
+              path, Arrays.toString(keys), Arrays.toString(tagKeys)));
+    }
+    List<Saved> all = readRecords(in);
+    records = all.size();
+    Map<Integer, Integer> lastOfSlot = new HashMap<>();
+    Map<List<String>, Integer> lastOfSeries = new HashMap<>();
+    for (int i = 0; i < all.size(); i++) {
+      lastOfSlot.put(all.get(i).getSlot(), i);
+      lastOfSeries.put(Arrays.asList(all.get(i).getTagValues()), i);
+    }
+    long capacity = values.size() / SLOT_BYTES;
+    List<Saved> current = new ArrayList<>();
+    for (int i = 0; i < all.size(); i++) {
+      Saved record = all.get(i);
+      if (lastOfSlot.get(record.getSlot()) == i
+          && lastOfSeries.get(Arrays.asList(record.getTagValues())) == i
+          && record.getSlot() < capacity) {
+        ensureCapacity(record.getSlot());
+        if (generation(record.getSlot()) == record.getGeneration()) {
+          current.add(record);
+        }
+      }
+    }
+    current.sort(Comparator.comparingInt(Saved::getSlot));
+    return current;
+  }
+
+  private List<Saved> readRecords(DataInputStream in) throws IOException {
+    List<Saved> all = new ArrayList<>();
+    while (true) {
+      try {
+        int slot = in.readInt();
+        long generation = in.readLong();
+        String[] tagValues = new String[tagKeys.length];
+        for (int i = 0; i < tagValues.length; i++) {
+          tagValues[i] = in.readUTF();
+        }
+        all.add(new Saved(slot, generation, tagValues, Double.NaN));
+      } catch (EOFException e) {
+        // the end of the journal, or a record that was cut short by a crash.
+        return all;
+      }
+    }
+  }
+
+  /**
+   * Hands out the series that were saved in the file when it was opened, once, in the order of
+   * the slots they had. The consumer must create the series, which {@link #assigned(int, String[])
+   * assigns} it a slot and restores its total. The record of every restored series is appended
+   * before the next one is restored, and the journal is compacted once they are all restored.
+   *
+   * @param restore Creates the series with the given tag values.
+   */
+  void restore(@NotNull Consumer<String[]> restore) {
+    List<Saved> toRestore = saved;
+    saved = List.of();
+    try {
+      for (Saved series : toRestore) {
+        restoring = series;
+        try {
+          restore.accept(series.getTagValues());
+        } finally {
+          restoring = null;
+        }
+        synchronized (journalLock) {
+          appendPending();
+        }
+      }
+      synchronized (journalLock) {
+        compact();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(
+          String.format("Failed to restore the series of the counter file '%s'", path), e);
+    }
+  }
+
+  /**
+   * Starts the total of the series that was assigned the slot, with its restored total or with
+   * {@code 0}, bumps the generation of the slot and queues the record of the series.
+   *
+   * @param slot      The slot.
+   * @param tagValues The tag values of the series, not modified afterwards.
+   */
+  void assigned(int slot, String @NotNull [] tagValues) {
+    Saved restored = restoring;
+    long generation = generation(slot) + 1;
+    GENERATIONS.setVolatile(chunks[slot >>> CHUNK_BITS], offset(slot) + Double.BYTES, generation);
+    set(slot, restored != null && Arrays.equals(restored.getTagValues(), tagValues)
+        ? restored.getTotal()
+        : 0);
+    pending.add(new Saved(slot, generation, tagValues, Double.NaN));
+  }
+
+  /**
+   * Marks the slot of a removed series, so the series is not restored.
+   *
+   * @param slot The slot.
+   */
+  void released(int slot) {
+    set(slot, Double.NaN);
+  }
+
+  /**
+   * Appends the queued records to the journal and syncs it, and compacts the journal once the
+   * churn of the series doubled it. Runs on the housekeeping thread, tests call it directly.
+   *
+   * @throws UncheckedIOException if the journal cannot be written.
+   */
+  void flush() {
+    synchronized (journalLock) {
+      if (closed || pending.isEmpty()) {
+        return;
+      }
+      try {
+        appendPending();
+        journal.force(false);
+        if (records > Math.max(MIN_COMPACTION_RECORDS, 2 * compactedRecords)) {
+          compact();
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(
+            String.format("Failed to save series to the journal of the counter file '%s'", path),
+            e);
+      }
+    }
+  }
+
+  /**
+   * Appends the queued records, a record leaves the queue once it is written.
+   */
+  private void appendPending() throws IOException {
+    Saved record;
+    while ((record = pending.peek()) != null) {
+      append(journal, record);
+      pending.poll();
+      records++;
+    }
+  }
+
+  /**
+   * Replaces the journal with one that only has the current records of the live series.
+   */
+  private void compact() throws IOException {
+    List<Saved> live = new ArrayList<>();
+    for (Saved record : currentRecords()) {
+      if (!Double.isNaN(get(record.getSlot()))) {
+        live.add(record);
+      }
+    }
+    compact(live);
+  }
+
+  private void compact(List<Saved> live) throws IOException {
+    Path temp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+    try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteArrayOutputStream header = new ByteArrayOutputStream();
+      DataOutputStream data = new DataOutputStream(header);
+      data.writeInt(MAGIC);
+      data.writeInt(tagKeys.length);
+      for (String tagKey : tagKeys) {
+        data.writeUTF(tagKey);
+      }
+      write(out, ByteBuffer.wrap(header.toByteArray()));
+      for (Saved record : live) {
+        append(out, record);
+      }
+      out.force(true);
+    }
+    Files.move(temp, journalPath, StandardCopyOption.ATOMIC_MOVE);
+    FileChannel replaced = journal;
+    journal = FileChannel.open(journalPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    replaced.close();
+    records = live.size();
+    compactedRecords = records;
+  }
+
+  private static void append(FileChannel channel, Saved record) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(record.getSlot());
+    out.writeLong(record.getGeneration());
+    for (String tagValue : record.getTagValues()) {
+      out.writeUTF(tagValue);
+    }
+    write(channel, ByteBuffer.wrap(bytes.toByteArray()));
+  }
+
+  private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+    long position = channel.size();
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  /**
+   * Appends the queued records, releases the lock of the file and closes it. The totals that were
+   * mapped stay readable, but no new series can be saved.
+   *
+   * @throws IOException if the files cannot be written or closed.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (journalLock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        appendPending();
+        journal.force(false);
+      } finally {
+        closeFiles();
+      }
+    }
+  }
+
+  private void closeFiles() throws IOException {
+    try {
+      journal.close();
+    } finally {
+      try {
+        lock.release();
+      } finally {
+        values.close();
+      }
+    }
+  }
+
+  @Override
+  public void ensureCapacity(int slot) {
+    if (slot >>> CHUNK_BITS < chunks.length) {
+      return;
+    }
+    grow(slot >>> CHUNK_BITS);
+  }
+
+  private synchronized void grow(int chunk) {
+    ByteBuffer[] current = chunks;
+    if (chunk < current.length) {
+      return;
+    }
+    ByteBuffer[] grown = Arrays.copyOf(current, Math.max(chunk + 1, current.length * 2));
+    try {
+      for (int i = current.length; i < grown.length; i++) {
+        // mappings are page aligned, as atomic access needs.
+        grown[i] = values.map(MapMode.READ_WRITE, i * CHUNK_BYTES, CHUNK_BYTES);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to grow the counter file", e);
+    }
+    chunks = grown;
+  }
+
+  @Override
+  public double get(int slot) {
+    return (double) VALUES.getVolatile(chunks[slot >>> CHUNK_BITS], offset(slot));
+  }
+
+  @Override
+  public void set(int slot, double value) {
+    VALUES.setVolatile(chunks[slot >>> CHUNK_BITS], offset(slot), value);
+  }
+
+  @Override
+  public void add(int slot, double amount) {
+    ByteBuffer chunk = chunks[slot >>> CHUNK_BITS];
+    int offset = offset(slot);
+    double current;
+    do {
+      current = (double) VALUES.getVolatile(chunk, offset);
+    } while (!VALUES.compareAndSet(chunk, offset, current, current + amount));
+  }
+
+  private long generation(int slot) {
+    return (long) GENERATIONS.getVolatile(
+        chunks[slot >>> CHUNK_BITS], offset(slot) + Double.BYTES);
+  }
+
+  private static int offset(int slot) {
+    return (slot & CHUNK_MASK) * SLOT_BYTES;
+  }
+
+  @Value
+  private static class Saved {
+
+    int slot;
+    long generation;
+    String[] tagValues;
+    double total;
+
+  }
+
+}
@@ -0,0 +1,89 @@
+package com.avpines.dynamic.meters.distributionsummary;
+
+import com.avpines.dynamic.meters.DeferredMeter;
+import com.avpines.dynamic.meters.RecordingBuffer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link DistributionSummary} that buffers its records until it is bound to the registered
+ * distribution summary.
+ */
+final class DeferredDistributionSummary
+    implements DistributionSummary, DeferredMeter<DistributionSummary> {
+
+  /**
+   * The id until the meter is bound, which may improve once the first meter of the dynamic meter is
+   * registered.
+   */
+  private final Supplier<Id> id;
+
+  private final RecordingBuffer buffered = new RecordingBuffer();
+
+  private volatile DistributionSummary delegate;
+
+  DeferredDistributionSummary(@NotNull Supplier<Id> id) {
+    this.id = id;
+  }
+
+  @Override
+  public void record(double amount) {
+    DistributionSummary d = delegate;
+    if (d != null) {
+      d.record(amount);
+      return;
+    }
+    buffered.add(amount);
+    // the summary may have been bound before the amount was buffered.
+    d = delegate;
+    if (d != null) {
+      buffered.drainTo(d::record);
+    }
+  }
+
+  @Override
+  public long count() {
+    DistributionSummary d = delegate;
+    return d != null ? d.count() : buffered.count();
+  }
+
+  @Override
+  public double totalAmount() {
+    DistributionSummary d = delegate;
+    return d != null ? d.totalAmount() : buffered.total();
+  }
+
+  @Override
+  public double max() {
+    DistributionSummary d = delegate;
+    return d != null ? d.max() : buffered.max();
+  }
+
+  @Override
+  public @NotNull HistogramSnapshot takeSnapshot() {
+    DistributionSummary d = delegate;
+    return d != null
+        ? d.takeSnapshot()
+        : HistogramSnapshot.empty(buffered.count(), buffered.total(), buffered.max());
+  }
+
+  @Override
+  public @NotNull Id getId() {
+    DistributionSummary d = delegate;
+    return d != null ? d.getId() : id.get();
+  }
+
+  @Override
+  public @NotNull DistributionSummary meter() {
+    return this;
+  }
+
+  @Override
+  public void bind(@NotNull DistributionSummary meter) {
+    delegate = meter;
+    buffered.drainTo(meter::record);
+  }
+
+}
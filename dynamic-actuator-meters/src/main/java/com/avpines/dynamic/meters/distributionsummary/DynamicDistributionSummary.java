@@ -1,14 +1,22 @@
 package com.avpines.dynamic.meters.distributionsummary;
 
+import com.avpines.dynamic.meters.DeferredMeter;
+import com.avpines.dynamic.meters.DynamicMeterOptions;
 import com.avpines.dynamic.meters.ParameterlessDynamicMeter;
+import com.avpines.dynamic.meters.SampledSeries;
 import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.DistributionSummary.Builder;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 import java.util.function.UnaryOperator;
+import java.util.stream.DoubleStream;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -19,6 +27,13 @@ import org.jetbrains.annotations.Nullable;
 public class DynamicDistributionSummary
     extends ParameterlessDynamicMeter<DistributionSummary, Builder> {
 
+  private final int sampleRate;
+
+  /**
+   * Publishes the series when sampled, {@code null} otherwise.
+   */
+  private final @Nullable SampledSeries<DistributionSummary> sampled;
+
   public static @NotNull DynamicDistributionSummaryBuilder builder(
       MeterRegistry registry, String name) {
     return new DynamicDistributionSummaryBuilder(registry, name);
@@ -33,6 +48,9 @@ public class DynamicDistributionSummary
    * @param tagger          A function to dynamically add the tags.
    * @param customizers     For any additional customization to the underlying meter.
    * @param registrar       Function to register the underlying meters.
+   * @param options         Policies for managing the series of this meter.
+   * @param sampled         Publishes the series when sampled, the registrar registers the meters
+   *                        with {@link SampledSeries#registry() its registry} then.
    * @param tagKeys         The keys that this meter will have, and allow their values to be added
    *                        dynamically.
    */
@@ -42,8 +60,85 @@ public class DynamicDistributionSummary
       @NotNull BiFunction<Builder, Collection<Tag>, Builder> tagger,
       @Nullable Collection<UnaryOperator<Builder>> customizers,
       @NotNull Function<Builder, DistributionSummary> registrar,
+      @NotNull DynamicMeterOptions options,
+      @Nullable SampledSeries<DistributionSummary> sampled,
       String @NotNull... tagKeys) {
-    super(registry, name, newInnerBuilder, tagger, customizers, registrar, tagKeys);
+    super(registry, name, newInnerBuilder, tagger, customizers, registrar, options, tagKeys);
+    this.sampleRate = options.getSampleRate();
+    this.sampled = sampled;
+  }
+
+  /**
+   * Records an amount into the series of the given tag values, creating it if needed. Unlike
+   * {@code getOrCreate(tagValues).record(amount)}, only 1 in {@link
+   * DynamicDistributionSummaryBuilder#sampled(int) sample rate} amounts are recorded when the
+   * summary is sampled.
+   *
+   * @param amount    The amount.
+   * @param tagValues The tag values, should correspond to the given tag keys when this dynamic
+   *                  meter was constructed.
+   */
+  public void record(double amount, String @NotNull... tagValues) {
+    if (!skip()) {
+      accumulate(null, amount, tagValues);
+    }
+  }
+
+  /**
+   * Records the amounts of a batch of events. The amounts are grouped per series first, so every
+   * distinct series is looked up once. Each amount is still recorded on its own, to keep the
+   * distribution of the summary.
+   *
+   * @param events    The events to record.
+   * @param tagValues The tag values of the series of an event, should correspond to the given tag
+   *                  keys when this dynamic meter was constructed.
+   * @param amount    The amount of an event.
+   * @param <V>       The event type.
+   */
+  public <V> void recordAll(
+      @NotNull Iterable<? extends V> events,
+      @NotNull Function<? super V, String[]> tagValues,
+      @NotNull ToDoubleFunction<? super V> amount) {
+    aggregate(events, tagValues, DoubleStream::builder,
+        (amounts, event) -> amounts.add(amount.applyAsDouble(event)),
+        (summary, amounts) -> amounts.build().forEach(summary::record));
+  }
+
+  private boolean skip() {
+    return sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0;
+  }
+
+  /**
+   * Records an amount. A sampled amount is recorded once into the summary of the series, the
+   * published meter of the series scales it, see {@link SampledSeries}.
+   *
+   * @param meter  The summary of the series.
+   * @param amount The amount.
+   */
+  @Override
+  protected void applyAccumulated(@NotNull DistributionSummary meter, double amount) {
+    meter.record(amount);
+  }
+
+  @Override
+  protected void registered(@NotNull DistributionSummary meter) {
+    if (sampled != null) {
+      sampled.publish(meter);
+    }
+  }
+
+  @Override
+  protected void unregistered(@NotNull DistributionSummary meter) {
+    if (sampled != null) {
+      sampled.unpublish(meter);
+    }
+  }
+
+  @Override
+  protected @NotNull DeferredMeter<DistributionSummary> defer(
+      @NotNull String name, @NotNull List<Tag> tags) {
+    return new DeferredDistributionSummary(
+        () -> deferredId(name, tags, Meter.Type.DISTRIBUTION_SUMMARY));
   }
 
 }
@@ -1,23 +1,21 @@
 package com.avpines.dynamic.meters.distributionsummary;
 
+import com.avpines.dynamic.meters.AbstractDynamicMeterBuilder;
+import com.avpines.dynamic.meters.DynamicMeterOptions;
+import com.avpines.dynamic.meters.RecordingBuffer;
+import com.avpines.dynamic.meters.SampledSeries;
 import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.DistributionSummary.Builder;
 import io.micrometer.core.instrument.MeterRegistry;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.function.UnaryOperator;
+import java.util.concurrent.Executor;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * Builder for {@link DynamicDistributionSummary} meters.
  */
-public class DynamicDistributionSummaryBuilder {
-
-  MeterRegistry registry;
-  String name;
-  Collection<UnaryOperator<Builder>> customizers;
-  Collection<String> tagKeys;
+public class DynamicDistributionSummaryBuilder
+    extends AbstractDynamicMeterBuilder<Builder, DynamicDistributionSummaryBuilder> {
 
   /**
    * Construct a new DynamicDistributionSummaryBuilder.
@@ -28,35 +26,50 @@ public class DynamicDistributionSummaryBuilder {
   public DynamicDistributionSummaryBuilder(
       MeterRegistry registry,
       String name) {
-    this.registry = registry;
-    this.name = name;
-    this.customizers = new ArrayList<>();
-    this.tagKeys = new ArrayList<>();
-  }
-
-  public DynamicDistributionSummaryBuilder customizers(
-      @NotNull Collection<UnaryOperator<DistributionSummary.Builder>> customizers) {
-    this.customizers.addAll(customizers);
-    return this;
+    super(registry, name);
   }
 
-  public DynamicDistributionSummaryBuilder customizer(
-      @NotNull UnaryOperator<DistributionSummary.Builder> customizer) {
-    this.customizers.add(customizer);
-    return this;
+  /**
+   * Register the distribution summaries of new series with the given executor, instead of on the
+   * calling thread. A new series is handed out right away as a stand-in summary that buffers up to
+   * {@link RecordingBuffer#CAPACITY} records, and the count, total and max of the rest, until the
+   * registered summary is bound to it, then replays them into it and forwards to it.
+   *
+   * @param executor Registers the new distribution summaries.
+   * @return this builder.
+   */
+  public DynamicDistributionSummaryBuilder asyncRegistration(@NotNull Executor executor) {
+    this.options.registrationExecutor(executor);
+    return self();
   }
 
-  public DynamicDistributionSummaryBuilder tagKeys(@NotNull Collection<String> tagKeys) {
-    this.tagKeys.addAll(tagKeys);
-    return this;
+  /**
+   * Record only 1 in {@code sampleRate} events, chosen at random per thread, of the events that are
+   * recorded through {@code record(..., tagValues)} of the dynamic meter. A skipped event returns
+   * before its series is looked up, and a recorded event is recorded once. Each series is published
+   * as a distribution summary meter with its count and total scaled by the sample rate, and the
+   * max of the recorded amounts, see {@link SampledSeries}. Recording through {@code
+   * getOrCreate(tagValues)} is not sampled, but is scaled all the same.
+   *
+   * @param sampleRate The rate, {@code 1} to record every event.
+   * @return this builder.
+   */
+  public DynamicDistributionSummaryBuilder sampled(int sampleRate) {
+    if (sampleRate <= 0) {
+      throw new IllegalArgumentException(
+          String.format("Sample rate must be positive, got '%d'", sampleRate));
+    }
+    this.options.sampleRate(sampleRate);
+    return self();
   }
 
-  public DynamicDistributionSummaryBuilder tagKeys(String @NotNull... tagKeys) {
-    return tagKeys(Arrays.asList(tagKeys));
+  @Override
+  public DynamicDistributionSummaryBuilder preRegister(@NotNull Collection<String[]> tagValues) {
+    return super.preRegister(tagValues);
   }
 
-  public DynamicDistributionSummaryBuilder tagKey(@NotNull String tagKey) {
-    this.tagKeys.add(tagKey);
+  @Override
+  protected DynamicDistributionSummaryBuilder self() {
     return this;
   }
 
@@ -66,15 +79,20 @@ public class DynamicDistributionSummaryBuilder {
    * @return a new DynamicDistributionSummary.
    */
   public DynamicDistributionSummary build() {
-    return new DynamicDistributionSummary(
+    DynamicMeterOptions options = options();
+    SampledSeries<DistributionSummary> sampled =
+        SampledSeries.summaries(registry, options.getSampleRate());
+    return start(new DynamicDistributionSummary(
         registry,
         name,
         DistributionSummary::builder,
         (b, t) -> t != null ? b.tags(t) : b,
         customizers,
-        b -> b.register(registry),
-        tagKeys.toArray(new String[0])
-    );
+        b -> b.register(sampled != null ? sampled.registry() : registry),
+        options,
+        sampled,
+        tagKeysArray()
+    ));
   }
 
-}
\ No newline at end of file
+}
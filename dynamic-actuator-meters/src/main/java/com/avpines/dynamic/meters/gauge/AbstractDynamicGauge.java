@@ -1,6 +1,7 @@
 package com.avpines.dynamic.meters.gauge;
 
 import com.avpines.dynamic.meters.DynamicMeter;
+import com.avpines.dynamic.meters.DynamicMeterOptions;
 import com.avpines.dynamic.meters.OfType;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Gauge.Builder;
@@ -70,6 +71,7 @@ abstract class AbstractDynamicGauge<T> extends
    * @param tagger          A function to dynamically add the tags.
    * @param customizers     For any additional customization to the underlying meter.
    * @param registrar       Function to register the underlying meters.
+   * @param options         Policies for managing the series of this meter.
    * @param tagKeys         The keys that this meter will have, and allow their values to be added
    *                        dynamically.
    */
@@ -80,8 +82,9 @@ abstract class AbstractDynamicGauge<T> extends
       @NotNull BiFunction<Builder<T>, Collection<Tag>, Builder<T>> tagger,
       @Nullable Collection<UnaryOperator<Builder<T>>> customizers,
       @NotNull Function<Builder<T>, Gauge> registrar,
+      @NotNull DynamicMeterOptions options,
       String... tagKeys) {
-    super(registry, name, newInnerBuilder, tagger, customizers, registrar, tagKeys);
+    super(registry, name, newInnerBuilder, tagger, customizers, registrar, options, tagKeys);
   }
 
 }
\ No newline at end of file
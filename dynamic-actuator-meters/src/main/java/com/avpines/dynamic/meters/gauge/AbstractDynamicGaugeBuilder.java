@@ -1,17 +1,14 @@
 package com.avpines.dynamic.meters.gauge;
 
+import com.avpines.dynamic.meters.AbstractDynamicMeterBuilder;
 import com.avpines.dynamic.meters.OfType;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Gauge.Builder;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.function.BiFunction;
 import java.util.function.Function;
-import java.util.function.UnaryOperator;
-import org.jetbrains.annotations.NotNull;
 
 /**
  * Common parent class for all Gauge builders.
@@ -19,12 +16,8 @@ import org.jetbrains.annotations.NotNull;
  * @param <E> The Guage type that this builder will build.
  * @param <A> The builder type (For Builder pattern inheritance).
  */
-public abstract class AbstractDynamicGaugeBuilder<E, A extends AbstractDynamicGaugeBuilder<E, A>> {
-
-  MeterRegistry registry;
-  String name;
-  Collection<UnaryOperator<Builder<E>>> customizers;
-  Collection<String> tagKeys;
+public abstract class AbstractDynamicGaugeBuilder<E, A extends AbstractDynamicGaugeBuilder<E, A>>
+    extends AbstractDynamicMeterBuilder<Builder<E>, A> {
 
   /**
    * Construct a new AbstractDynamicGaugeBuilder.
@@ -50,40 +43,9 @@ public abstract class AbstractDynamicGaugeBuilder<E, A extends AbstractDynamicGa
   }
 
   protected AbstractDynamicGaugeBuilder(MeterRegistry registry, String name) {
-    this.registry = registry;
-    this.name = name;
-    this.customizers = new ArrayList<>();
-    this.tagKeys = new ArrayList<>();
-  }
-
-  public A customizers(
-      @NotNull Collection<UnaryOperator<Gauge.Builder<E>>> customizers) {
-    this.customizers.addAll(customizers);
-    return self();
-  }
-
-  public A customizer(
-      @NotNull UnaryOperator<Gauge.Builder<E>> customizer) {
-    this.customizers.add(customizer);
-    return self();
-  }
-
-  public A tagKeys(@NotNull Collection<String> tagKeys) {
-    this.tagKeys.addAll(tagKeys);
-    return self();
-  }
-
-  public A tagKeys(String @NotNull... tagKeys) {
-    return tagKeys(Arrays.asList(tagKeys));
+    super(registry, name);
   }
 
-  public A tagKey(@NotNull String tagKey) {
-    this.tagKeys.add(tagKey);
-    return self();
-  }
-
-  abstract A self();
-
   /**
    * Build a new Dynamic Gauge.
    *
@@ -106,4 +68,4 @@ public abstract class AbstractDynamicGaugeBuilder<E, A extends AbstractDynamicGa
     };
   }
 
-}
\ No newline at end of file
+}
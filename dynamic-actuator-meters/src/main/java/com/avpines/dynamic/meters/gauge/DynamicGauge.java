@@ -1,5 +1,6 @@
 package com.avpines.dynamic.meters.gauge;
 
+import com.avpines.dynamic.meters.DynamicMeterOptions;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Gauge.Builder;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -27,12 +28,28 @@ public class DynamicGauge<T> extends AbstractDynamicGauge<T> {
       @NotNull BiFunction<Builder<T>, Collection<Tag>, Builder<T>> tagger,
       @Nullable Collection<UnaryOperator<Builder<T>>> customizers,
       @NotNull Function<Builder<T>, Gauge> registrar,
+      @NotNull DynamicMeterOptions options,
       String... tagKeys) {
-    super(registry, name, newInnerBuilder, tagger, customizers, registrar, tagKeys);
+    super(registry, name, newInnerBuilder, tagger, customizers, registrar, options, tagKeys);
   }
 
+  /**
+   * Gets the requested meter with the given tag values. If such a meter did not previously exist, a
+   * new one will be registered and returned. If a meter already existed, <b>the object and function
+   * given at the first time will be used.</b>
+   *
+   * @param obj       An object with some state.
+   * @param toDouble  A function that yields a double value for the gauge, based on the state of
+   *                  {@code obj}.
+   * @param tagValues the tag values, should correspond to the given tag keys when this dynamic
+   *                  meter was constructed.
+   * @return A new {@link Gauge}.
+   */
   public Gauge getOrCreate(T obj, ToDoubleFunction<T> toDouble, String @NotNull... tagValues) {
-    return super.getOrCreate(new GaugeParams<>(obj, toDouble), tagValues);
+    Gauge existing = find(tagValues);
+    return existing != null
+        ? existing
+        : super.getOrCreate(new GaugeParams<>(obj, toDouble), tagValues);
   }
 
   /**
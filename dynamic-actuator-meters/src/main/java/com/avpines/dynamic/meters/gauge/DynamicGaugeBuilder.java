@@ -18,7 +18,7 @@ public class DynamicGaugeBuilder<E> extends
   }
 
   @Override
-  DynamicGaugeBuilder<E> self() {
+  protected DynamicGaugeBuilder<E> self() {
     return this;
   }
 
@@ -27,15 +27,16 @@ public class DynamicGaugeBuilder<E> extends
    */
   @Override
   public DynamicGauge<E> build() {
-    return new DynamicGauge<>(
+    return start(new DynamicGauge<>(
         registry,
         name,
         innerBuilderCreator(),
         tagger(),
         customizers,
         registrar(),
-        tagKeys.toArray(new String[0])
-    );
+        options(),
+        tagKeysArray()
+    ));
   }
 
 }
\ No newline at end of file
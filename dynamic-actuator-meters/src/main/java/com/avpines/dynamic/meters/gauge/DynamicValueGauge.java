@@ -0,0 +1,129 @@
+package com.avpines.dynamic.meters.gauge;
+
+import com.avpines.dynamic.meters.DynamicMeter;
+import com.avpines.dynamic.meters.DynamicMeterOptions;
+import com.avpines.dynamic.meters.SlotParams;
+import com.avpines.dynamic.meters.ValueStore;
+import com.avpines.dynamic.meters.WarmUpReport;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Gauge.Builder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A dynamic gauge that keeps the values of its series itself, in a {@link ValueStore}. Unlike
+ * {@link DynamicGauge}, callers do not hold on to a state object per series, they set the values
+ * with {@link #set(double, String...)} and {@link #add(double, String...)}, which do not allocate.
+ *
+ * <p>A new series starts at {@code 0}. A series that is evicted or expires while it is updated may
+ * have the update applied to a new series that reuses its slot.
+ */
+public class DynamicValueGauge extends DynamicMeter<Gauge, Builder<ValueStore>, SlotParams> {
+
+  private final ValueStore store;
+
+  /**
+   * Builder for a {@link DynamicValueGauge}.
+   *
+   * @param registry To register generated meters.
+   * @param name     The meter name that will be shared among all the underlying meters.
+   * @return a new dynamic value gauge builder.
+   */
+  public static @NotNull DynamicValueGaugeBuilder builder(MeterRegistry registry, String name) {
+    return new DynamicValueGaugeBuilder(registry, name);
+  }
+
+  /**
+   * Construct a new DynamicValueGauge.
+   *
+   * @param registry    To register the underlying meters.
+   * @param name        Meter name, all underlying meters will share that name.
+   * @param tagger      A function to dynamically add the tags.
+   * @param customizers For any additional customization to the underlying meter.
+   * @param registrar   Function to register the underlying meters.
+   * @param options     Policies for managing the series of this meter, must be slotted.
+   * @param store       Keeps the values of the series.
+   * @param tagKeys     The keys that this meter will have, and allow their values to be added
+   *                    dynamically.
+   */
+  DynamicValueGauge(
+      @NotNull MeterRegistry registry,
+      @NotNull String name,
+      @NotNull BiFunction<Builder<ValueStore>, Collection<Tag>, Builder<ValueStore>> tagger,
+      @Nullable Collection<UnaryOperator<Builder<ValueStore>>> customizers,
+      @NotNull Function<Builder<ValueStore>, Gauge> registrar,
+      @NotNull DynamicMeterOptions options,
+      @NotNull ValueStore store,
+      String @NotNull... tagKeys) {
+    super(registry, name,
+        (n, p) -> Gauge.builder(n, store, s -> s.get(p.getSlot())).strongReference(true),
+        tagger, customizers, registrar, options, tagKeys);
+    this.store = store;
+  }
+
+  /**
+   * Sets the value of the series with the given tag values, registering its gauge if needed.
+   *
+   * @param value     The value.
+   * @param tagValues The tag values, should correspond to the given tag keys when this dynamic
+   *                  meter was constructed.
+   */
+  public void set(double value, String @NotNull... tagValues) {
+    store.set(slotOf(null, tagValues), value);
+  }
+
+  /**
+   * Adds to the value of the series with the given tag values, registering its gauge if needed.
+   *
+   * @param amount    The amount to add, may be negative.
+   * @param tagValues The tag values, should correspond to the given tag keys when this dynamic
+   *                  meter was constructed.
+   */
+  public void add(double amount, String @NotNull... tagValues) {
+    store.add(slotOf(null, tagValues), amount);
+  }
+
+  /**
+   * Registers the series with the given tag values ahead of time, in parallel on the common {@link
+   * ForkJoinPool}, so that the first recordings into them do not pay for registering them.
+   *
+   * @param tagValues The tag values of the series, should correspond to the given tag keys when
+   *                  this dynamic meter was constructed.
+   * @return how long the warm-up took.
+   */
+  @Override
+  public WarmUpReport preRegister(@NotNull Collection<String[]> tagValues) {
+    return super.preRegister(tagValues);
+  }
+
+  /**
+   * Registers the series with the given tag values ahead of time, in parallel on the given pool,
+   * so that the first recordings into them do not pay for registering them.
+   *
+   * @param tagValues The tag values of the series, should correspond to the given tag keys when
+   *                  this dynamic meter was constructed.
+   * @param pool      The pool to register the series on.
+   * @return how long the warm-up took.
+   */
+  @Override
+  public WarmUpReport preRegister(
+      @NotNull Stream<String[]> tagValues, @NotNull ForkJoinPool pool) {
+    return super.preRegister(tagValues, pool);
+  }
+
+  @Override
+  protected SlotParams withSlot(SlotParams params, int slot, String @NotNull [] tagValues) {
+    store.ensureCapacity(slot);
+    store.set(slot, 0);
+    return new SlotParams(slot);
+  }
+
+}
@@ -0,0 +1,54 @@
+package com.avpines.dynamic.meters.gauge;
+
+import com.avpines.dynamic.meters.AbstractDynamicValueMeterBuilder;
+import com.avpines.dynamic.meters.ValueStore;
+import io.micrometer.core.instrument.Gauge.Builder;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Builder for {@link DynamicValueGauge} meters.
+ */
+public class DynamicValueGaugeBuilder
+    extends AbstractDynamicValueMeterBuilder<Builder<ValueStore>, DynamicValueGaugeBuilder> {
+
+  /**
+   * Construct a new DynamicValueGaugeBuilder.
+   *
+   * @param registry To register generated meters.
+   * @param name     The meter name that will be shared among all the underlying meters.
+   */
+  public DynamicValueGaugeBuilder(MeterRegistry registry, String name) {
+    super(registry, name);
+  }
+
+  @Override
+  public DynamicValueGaugeBuilder preRegister(@NotNull Collection<String[]> tagValues) {
+    return super.preRegister(tagValues);
+  }
+
+  @Override
+  protected DynamicValueGaugeBuilder self() {
+    return this;
+  }
+
+  /**
+   * Build a new {@link DynamicValueGauge}.
+   *
+   * @return a new DynamicValueGauge.
+   */
+  public DynamicValueGauge build() {
+    return start(new DynamicValueGauge(
+        registry,
+        name,
+        (b, t) -> t != null ? b.tags(t) : b,
+        customizers,
+        b -> b.register(registry),
+        options(),
+        valueStore.get(),
+        tagKeysArray()
+    ));
+  }
+
+}
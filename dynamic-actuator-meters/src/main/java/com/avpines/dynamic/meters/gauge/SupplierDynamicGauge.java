@@ -1,5 +1,6 @@
 package com.avpines.dynamic.meters.gauge;
 
+import com.avpines.dynamic.meters.DynamicMeterOptions;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Gauge.Builder;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -34,8 +35,9 @@ public class SupplierDynamicGauge extends AbstractDynamicGauge<Supplier<Number>>
           Builder<Supplier<Number>>> tagger,
       @Nullable Collection<UnaryOperator<Builder<Supplier<Number>>>> customizers,
       @NotNull Function<Builder<Supplier<Number>>, Gauge> registrar,
+      @NotNull DynamicMeterOptions options,
       String... tagKeys) {
-    super(registry, name, newInnerBuilder, tagger, customizers, registrar, tagKeys);
+    super(registry, name, newInnerBuilder, tagger, customizers, registrar, options, tagKeys);
   }
 
   /**
@@ -49,7 +51,8 @@ public class SupplierDynamicGauge extends AbstractDynamicGauge<Supplier<Number>>
    * @return A new {@link Gauge}.
    */
   public Gauge getOrCreate(Supplier<Number> f, String @NotNull... tagValues) {
-    return super.getOrCreate(new GaugeParams<>(f, null), tagValues);
+    Gauge existing = find(tagValues);
+    return existing != null ? existing : super.getOrCreate(new GaugeParams<>(f, null), tagValues);
   }
 
   /**
@@ -23,7 +23,7 @@ public class SupplierDynamicGaugeBuilder
   }
 
   @Override
-  SupplierDynamicGaugeBuilder self() {
+  protected SupplierDynamicGaugeBuilder self() {
     return this;
   }
 
@@ -37,14 +37,15 @@ public class SupplierDynamicGaugeBuilder
    */
   @Override
   public SupplierDynamicGauge build() {
-    return new SupplierDynamicGauge(
+    return start(new SupplierDynamicGauge(
         registry,
         name,
         innerBuilderCreator(),
         tagger(),
         customizers,
         registrar(),
-        tagKeys.toArray(new String[0])
-    );
+        options(),
+        tagKeysArray()
+    ));
   }
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.avpines.dynamic.meters.timer;
+
+import com.avpines.dynamic.meters.DeferredMeter;
+import com.avpines.dynamic.meters.RecordingBuffer;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.util.TimeUtils;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link Timer} that buffers its records, in nanoseconds, until it is bound to the registered
+ * timer.
+ */
+final class DeferredTimer implements Timer, DeferredMeter<Timer> {
+
+  /**
+   * The id until the meter is bound, which may improve once the first meter of the dynamic meter is
+   * registered.
+   */
+  private final Supplier<Id> id;
+
+  private final Clock clock;
+
+  private final RecordingBuffer buffered = new RecordingBuffer();
+
+  private volatile Timer delegate;
+
+  DeferredTimer(@NotNull Supplier<Id> id, @NotNull Clock clock) {
+    this.id = id;
+    this.clock = clock;
+  }
+
+  @Override
+  public void record(long amount, @NotNull TimeUnit unit) {
+    Timer d = delegate;
+    if (d != null) {
+      d.record(amount, unit);
+      return;
+    }
+    buffered.add(unit.toNanos(amount));
+    // the timer may have been bound before the amount was buffered.
+    d = delegate;
+    if (d != null) {
+      replay(d);
+    }
+  }
+
+  @Override
+  public <T> T record(@NotNull Supplier<T> f) {
+    long start = clock.monotonicTime();
+    try {
+      return f.get();
+    } finally {
+      record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Override
+  public void record(@NotNull Runnable f) {
+    long start = clock.monotonicTime();
+    try {
+      f.run();
+    } finally {
+      record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Override
+  public <T> T recordCallable(@NotNull Callable<T> f) throws Exception {
+    long start = clock.monotonicTime();
+    try {
+      return f.call();
+    } finally {
+      record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Override
+  public long count() {
+    Timer d = delegate;
+    return d != null ? d.count() : buffered.count();
+  }
+
+  @Override
+  public double totalTime(@NotNull TimeUnit unit) {
+    Timer d = delegate;
+    return d != null ? d.totalTime(unit) : TimeUtils.nanosToUnit(buffered.total(), unit);
+  }
+
+  @Override
+  public double max(@NotNull TimeUnit unit) {
+    Timer d = delegate;
+    return d != null ? d.max(unit) : TimeUtils.nanosToUnit(buffered.max(), unit);
+  }
+
+  @Override
+  public @NotNull TimeUnit baseTimeUnit() {
+    Timer d = delegate;
+    return d != null ? d.baseTimeUnit() : TimeUnit.NANOSECONDS;
+  }
+
+  @Override
+  public @NotNull HistogramSnapshot takeSnapshot() {
+    Timer d = delegate;
+    return d != null
+        ? d.takeSnapshot()
+        : HistogramSnapshot.empty(buffered.count(), buffered.total(), buffered.max());
+  }
+
+  @Override
+  public @NotNull Id getId() {
+    Timer d = delegate;
+    return d != null ? d.getId() : id.get();
+  }
+
+  @Override
+  public @NotNull Timer meter() {
+    return this;
+  }
+
+  @Override
+  public void bind(@NotNull Timer meter) {
+    delegate = meter;
+    replay(meter);
+  }
+
+  private void replay(Timer meter) {
+    buffered.drainTo(nanos -> meter.record((long) nanos, TimeUnit.NANOSECONDS));
+  }
+
+}
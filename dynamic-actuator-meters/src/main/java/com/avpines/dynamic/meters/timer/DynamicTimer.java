@@ -1,22 +1,52 @@
 package com.avpines.dynamic.meters.timer;
 
+import com.avpines.dynamic.meters.DeferredMeter;
+import com.avpines.dynamic.meters.DynamicMeterOptions;
 import com.avpines.dynamic.meters.ParameterlessDynamicMeter;
+import com.avpines.dynamic.meters.RollUpSeries;
+import com.avpines.dynamic.meters.SampledSeries;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.Timer.Builder;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
+import java.util.stream.LongStream;
+import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 /**
  * A dynamic timer, registers underlying {@link Timer} with dynamic tag values.
  */
+@Slf4j
 public class DynamicTimer extends ParameterlessDynamicMeter<Timer, Builder> {
 
+  private final Clock clock;
+
+  private final int sampleRate;
+
+  /**
+   * Publishes the series when sampled, {@code null} otherwise.
+   */
+  private final @Nullable SampledSeries<Timer> sampled;
+
+  private final ThreadLocal<SamplePool> samples = ThreadLocal.withInitial(SamplePool::new);
+
   /**
    * Builder for a {@link DynamicTimerBuilder}.
    *
@@ -37,6 +67,9 @@ public class DynamicTimer extends ParameterlessDynamicMeter<Timer, Builder> {
    * @param tagger          A function to dynamically add the tags.
    * @param customizers     For any additional customization to the underlying meter.
    * @param registrar       Function to register the underlying meters.
+   * @param options         Policies for managing the series of this meter.
+   * @param sampled         Publishes the series when sampled, the registrar registers the meters
+   *                        with {@link SampledSeries#registry() its registry} then.
    * @param tagKeys         The keys that this meter will have, and allow their values to be added
    *                        dynamically.
    */
@@ -47,8 +80,291 @@ public class DynamicTimer extends ParameterlessDynamicMeter<Timer, Builder> {
       @NotNull BiFunction<Timer.Builder, Collection<Tag>, Timer.Builder> tagger,
       @Nullable Collection<UnaryOperator<Timer.Builder>> customizers,
       @NotNull Function<Builder, Timer> registrar,
+      @NotNull DynamicMeterOptions options,
+      @Nullable SampledSeries<Timer> sampled,
       String @NotNull... tagKeys) {
-    super(registry, name, newInnerBuilder, tagger, customizers, registrar, tagKeys);
+    super(registry, name, newInnerBuilder, tagger, customizers, registrar, options, tagKeys);
+    this.clock = registry.config().clock();
+    this.sampleRate = options.getSampleRate();
+    this.sampled = sampled;
+  }
+
+  /**
+   * Records a duration into the series of the given tag values, creating it if needed. Unlike
+   * {@code getOrCreate(tagValues).record(amount, unit)}, only 1 in {@link
+   * DynamicTimerBuilder#sampled(int) sample rate} durations are recorded when the timer is
+   * sampled.
+   *
+   * @param amount    The duration.
+   * @param unit      The unit of the duration.
+   * @param tagValues The tag values, should correspond to the given tag keys when this dynamic
+   *                  meter was constructed.
+   */
+  public void record(long amount, @NotNull TimeUnit unit, String @NotNull... tagValues) {
+    if (!skip()) {
+      accumulate(null, unit.toNanos(amount), tagValues);
+    }
+  }
+
+  /**
+   * Records the durations of a batch of events. The durations are grouped per series first, so
+   * every distinct series is looked up once. Each duration is still recorded on its own, to keep
+   * the distribution of the timer.
+   *
+   * @param events    The events to record.
+   * @param tagValues The tag values of the series of an event, should correspond to the given tag
+   *                  keys when this dynamic meter was constructed.
+   * @param amount    The duration of an event.
+   * @param unit      The unit of the durations.
+   * @param <V>       The event type.
+   */
+  public <V> void recordAll(
+      @NotNull Iterable<? extends V> events,
+      @NotNull Function<? super V, String[]> tagValues,
+      @NotNull ToLongFunction<? super V> amount,
+      @NotNull TimeUnit unit) {
+    aggregate(events, tagValues, LongStream::builder,
+        (durations, event) -> durations.add(amount.applyAsLong(event)),
+        (timer, durations) -> durations.build().forEach(d -> timer.record(d, unit)));
+  }
+
+  /**
+   * Starts timing an operation whose tag values are only known once it ends, see {@link
+   * Sample#stop(String...)}. Samples are recycled per thread, so a start and stop pair on the same
+   * thread does not allocate. Sampled like {@link #record(long, TimeUnit, String...)}.
+   *
+   * @return a running sample, that must be stopped once and then no longer be used.
+   */
+  public @NotNull Sample start() {
+    Sample sample = samples.get().take(this);
+    sample.start = clock.monotonicTime();
+    sample.running = true;
+    return sample;
+  }
+
+  /**
+   * Times a {@link Callable}, and records the duration into the series chosen by its outcome.
+   * Sampled like {@link #record(long, TimeUnit, String...)}, a skipped call is not timed.
+   *
+   * @param callable  The callable to time.
+   * @param tagValues Chooses the tag values from the result, or from the exception the callable
+   *                  threw, see {@link OutcomeTagValues}.
+   * @param <T>       The result type.
+   * @return the result of the callable.
+   * @throws Exception the exception the callable threw.
+   */
+  public <T> T recordCallable(
+      @NotNull Callable<T> callable,
+      @NotNull BiFunction<? super T, ? super Throwable, String[]> tagValues) throws Exception {
+    if (skip()) {
+      return callable.call();
+    }
+    long start = clock.monotonicTime();
+    T result = null;
+    Throwable error = null;
+    try {
+      result = callable.call();
+      return result;
+    } catch (Throwable e) {
+      error = e;
+      throw e;
+    } finally {
+      recordOutcome(start, result, error, tagValues);
+    }
+  }
+
+  /**
+   * Times an asynchronous operation, from its start until its stage completes, and records the
+   * duration into the series chosen by its outcome. Besides the dependent stage, the timing takes a
+   * single small object per operation, and no tag values are built when {@code tagValues} returns
+   * shared arrays. Sampled like {@link #record(long, TimeUnit, String...)}, a skipped operation
+   * is not timed, and its own stage is returned.
+   *
+   * @param operation Starts the operation.
+   * @param tagValues Chooses the tag values from the result, or from the exception the stage
+   *                  completed with, see {@link OutcomeTagValues}.
+   * @param <T>       The result type.
+   * @return a stage that completes as the operation's stage, once the duration was recorded.
+   */
+  public <T> @NotNull CompletionStage<T> recordStage(
+      @NotNull Supplier<? extends CompletionStage<T>> operation,
+      @NotNull BiFunction<? super T, ? super Throwable, String[]> tagValues) {
+    if (skip()) {
+      return operation.get();
+    }
+    long start = clock.monotonicTime();
+    CompletionStage<T> stage;
+    try {
+      stage = operation.get();
+    } catch (RuntimeException | Error e) {
+      recordOutcome(start, null, e, tagValues);
+      throw e;
+    }
+    return stage.whenComplete(new Completion<>(this, start, tagValues));
+  }
+
+  private <T> void recordOutcome(long start, @Nullable T result, @Nullable Throwable error,
+      BiFunction<? super T, ? super Throwable, String[]> tagValues) {
+    long elapsed = clock.monotonicTime() - start;
+    try {
+      accumulate(null, elapsed, tagValues.apply(result, error));
+    } catch (RuntimeException e) {
+      // the outcome of the operation is not the timer's to change.
+      LOG.warn("Failed to record an operation into '{}'", getName(), e);
+    }
+  }
+
+  private boolean skip() {
+    return sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0;
+  }
+
+  /**
+   * Records a duration, in nanoseconds. A sampled duration is recorded once into the timer of the
+   * series, the published meter of the series scales it, see {@link SampledSeries}.
+   *
+   * @param meter  The timer of the series.
+   * @param amount The duration, in nanoseconds.
+   */
+  @Override
+  protected void applyAccumulated(@NotNull Timer meter, double amount) {
+    meter.record((long) amount, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  protected void registered(@NotNull Timer meter) {
+    if (sampled != null) {
+      sampled.publish(meter);
+    }
+  }
+
+  @Override
+  protected void unregistered(@NotNull Timer meter) {
+    if (sampled != null) {
+      sampled.unpublish(meter);
+    }
+  }
+
+  /**
+   * Sums the counts and the total times of the series, scaled by the sample rate when sampled.
+   */
+  @Override
+  protected @NotNull List<ToDoubleFunction<? super Timer>> rollUpMeasures() {
+    return List.of(
+        t -> (double) t.count() * sampleRate,
+        t -> t.totalTime(TimeUnit.NANOSECONDS) * sampleRate);
+  }
+
+  /**
+   * Registers a function timer over the sums of the counts and the total times of the rolled up
+   * series.
+   */
+  @Override
+  protected @NotNull Meter registerRollUp(@NotNull MeterRegistry registry, @NotNull String name,
+      @NotNull List<Tag> tags, @NotNull RollUpSeries<Timer> series) {
+    return FunctionTimer
+        .builder(name, series, s -> (long) s.sum(0), s -> s.sum(1), TimeUnit.NANOSECONDS)
+        .tags(tags)
+        .register(registry);
+  }
+
+  @Override
+  protected @NotNull DeferredMeter<Timer> defer(@NotNull String name, @NotNull List<Tag> tags) {
+    return new DeferredTimer(() -> deferredId(name, tags, Meter.Type.TIMER), clock);
+  }
+
+  /**
+   * A running timing of an operation, see {@link #start()}.
+   */
+  public static final class Sample {
+
+    private final DynamicTimer timer;
+
+    private long start;
+
+    private boolean running;
+
+    private Sample(DynamicTimer timer) {
+      this.timer = timer;
+    }
+
+    /**
+     * Records the duration since the start into the series of the given tag values, and recycles
+     * this sample. A sample may be stopped on another thread than it started on, it is then
+     * recycled by the stopping thread.
+     *
+     * @param tagValues The tag values of the series, should correspond to the given tag keys when
+     *                  the dynamic timer was constructed.
+     * @return the duration, in nanoseconds.
+     * @throws IllegalStateException if this sample was already stopped.
+     */
+    public long stop(String @NotNull... tagValues) {
+      if (!running) {
+        throw new IllegalStateException("The sample was already stopped");
+      }
+      running = false;
+      long elapsed = timer.clock.monotonicTime() - start;
+      try {
+        timer.record(elapsed, TimeUnit.NANOSECONDS, tagValues);
+      } finally {
+        timer.samples.get().give(this);
+      }
+      return elapsed;
+    }
+
+  }
+
+  /**
+   * The stopped samples of a thread, a few are kept, so samples that are started on one thread and
+   * stopped on another do not pile up.
+   */
+  private static final class SamplePool {
+
+    private static final int CAPACITY = 16;
+
+    private final Sample[] free = new Sample[CAPACITY];
+
+    private int size;
+
+    Sample take(DynamicTimer timer) {
+      if (size == 0) {
+        return new Sample(timer);
+      }
+      Sample sample = free[--size];
+      free[size] = null;
+      return sample;
+    }
+
+    void give(Sample sample) {
+      if (size < CAPACITY) {
+        free[size++] = sample;
+      }
+    }
+
+  }
+
+  /**
+   * Records the duration of an asynchronous operation once its stage completes.
+   */
+  private static final class Completion<T> implements BiConsumer<T, Throwable> {
+
+    private final DynamicTimer timer;
+
+    private final long start;
+
+    private final BiFunction<? super T, ? super Throwable, String[]> tagValues;
+
+    Completion(DynamicTimer timer, long start,
+        BiFunction<? super T, ? super Throwable, String[]> tagValues) {
+      this.timer = timer;
+      this.start = start;
+      this.tagValues = tagValues;
+    }
+
+    @Override
+    public void accept(T result, Throwable error) {
+      timer.recordOutcome(start, result, error, tagValues);
+    }
+
   }
 
 }
\ No newline at end of file
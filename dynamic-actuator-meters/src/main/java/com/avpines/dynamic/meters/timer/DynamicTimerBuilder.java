@@ -1,23 +1,21 @@
 package com.avpines.dynamic.meters.timer;
 
+import com.avpines.dynamic.meters.AbstractDynamicMeterBuilder;
+import com.avpines.dynamic.meters.DynamicMeterOptions;
+import com.avpines.dynamic.meters.RecordingBuffer;
+import com.avpines.dynamic.meters.SampledSeries;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.Timer.Builder;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.function.UnaryOperator;
+import java.util.List;
+import java.util.concurrent.Executor;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * Builder for {@link DynamicTimer} meters.
  */
-public class DynamicTimerBuilder {
-
-  MeterRegistry registry;
-  String name;
-  Collection<UnaryOperator<Builder>> customizers;
-  Collection<String> tagKeys;
+public class DynamicTimerBuilder extends AbstractDynamicMeterBuilder<Builder, DynamicTimerBuilder> {
 
   /**
    * Construct a new DynamicTimerBuilder.
@@ -28,52 +26,95 @@ public class DynamicTimerBuilder {
   public DynamicTimerBuilder(
       MeterRegistry registry,
       String name) {
-    this.registry = registry;
-    this.name = name;
-    this.customizers = new ArrayList<>();
-    this.tagKeys = new ArrayList<>();
+    super(registry, name);
   }
 
-  public DynamicTimerBuilder customizers(
-      @NotNull Collection<UnaryOperator<Timer.Builder>> customizers) {
-    this.customizers.addAll(customizers);
-    return this;
+  /**
+   * Register the timers of new series with the given executor, instead of on the calling thread.
+   * A new series is handed out right away as a stand-in timer that buffers up to {@link
+   * RecordingBuffer#CAPACITY} records, and the count, total and max of the rest, until the
+   * registered timer is bound to it, then replays them into it and forwards to it.
+   *
+   * @param executor Registers the new timers.
+   * @return this builder.
+   */
+  public DynamicTimerBuilder asyncRegistration(@NotNull Executor executor) {
+    this.options.registrationExecutor(executor);
+    return self();
   }
 
-  public DynamicTimerBuilder customizer(@NotNull UnaryOperator<Timer.Builder> customizer) {
-    this.customizers.add(customizer);
-    return this;
+  /**
+   * Record only 1 in {@code sampleRate} events, chosen at random per thread, of the events that are
+   * recorded through {@code record(..., tagValues)} of the dynamic meter. A skipped event returns
+   * before its series is looked up, and a recorded event is recorded once. Each series is published
+   * as a timer meter with its count and total time scaled by the sample rate, and the max of the
+   * recorded durations, see {@link SampledSeries}. Recording through {@code getOrCreate(tagValues)}
+   * is not sampled, but is scaled all the same.
+   *
+   * @param sampleRate The rate, {@code 1} to record every event.
+   * @return this builder.
+   */
+  public DynamicTimerBuilder sampled(int sampleRate) {
+    if (sampleRate <= 0) {
+      throw new IllegalArgumentException(
+          String.format("Sample rate must be positive, got '%d'", sampleRate));
+    }
+    this.options.sampleRate(sampleRate);
+    return self();
   }
 
-  public DynamicTimerBuilder tagKeys(@NotNull Collection<String> tagKeys) {
-    this.tagKeys.addAll(tagKeys);
-    return this;
+  /**
+   * Roll up the series by a subset of the tag keys, into a function meter of the given name per
+   * combination of values of those keys. A roll-up sums the counts and total times of its series
+   * when it is published, so recording does not record into it as well, and it keeps the counts
+   * and total times of the series that were removed, so it never goes back.
+   *
+   * <p>The registry must be cumulative: the meters of a step registry only hold their last step,
+   * so building a meter with roll-ups on one throws an {@link IllegalArgumentException}.
+   *
+   * @param name    The name of the roll-up meters, must differ from the name of this meter.
+   * @param tagKeys The tag keys to roll up by, each one of the tag keys of this meter.
+   * @return this builder.
+   */
+  public DynamicTimerBuilder rollUp(@NotNull String name, @NotNull String... tagKeys) {
+    this.options.rollUp(name, List.of(tagKeys));
+    return self();
   }
 
-  public DynamicTimerBuilder tagKeys(String @NotNull... tagKeys) {
-    return tagKeys(Arrays.asList(tagKeys));
+  @Override
+  public DynamicTimerBuilder preRegister(@NotNull Collection<String[]> tagValues) {
+    return super.preRegister(tagValues);
   }
 
-  public DynamicTimerBuilder tagKey(@NotNull String tagKey) {
-    this.tagKeys.add(tagKey);
+  @Override
+  protected DynamicTimerBuilder self() {
     return this;
   }
 
+  @Override
+  protected boolean rollsUp() {
+    return true;
+  }
+
   /**
    * Build a new {@link DynamicTimer}.
    *
    * @return a new DynamicTimer.
    */
   public DynamicTimer build() {
-    return new DynamicTimer(
+    DynamicMeterOptions options = options();
+    SampledSeries<Timer> sampled = SampledSeries.timers(registry, options.getSampleRate());
+    return start(new DynamicTimer(
         registry,
         name,
         Timer::builder,
         (b, t) -> t != null ? b.tags(t) : b,
         customizers,
-        b -> b.register(registry),
-        tagKeys.toArray(new String[0])
-    );
+        b -> b.register(sampled != null ? sampled.registry() : registry),
+        options,
+        sampled,
+        tagKeysArray()
+    ));
   }
 
-}
\ No newline at end of file
+}
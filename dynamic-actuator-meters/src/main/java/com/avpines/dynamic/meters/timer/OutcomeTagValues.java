@@ -0,0 +1,80 @@
+package com.avpines.dynamic.meters.timer;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiFunction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Tag values that end with the outcome of an operation: {@value #SUCCESS} when it succeeded, or
+ * the simple name of the exception it failed with, unwrapped from a {@link CompletionException} or
+ * an {@link ExecutionException}. The tag values of every outcome are built once and shared, so an
+ * instance kept per operation chooses tag values without allocating.
+ *
+ * <pre>{@code
+ * static final OutcomeTagValues PLACE = OutcomeTagValues.of("place");
+ *
+ * timer.recordStage(() -> orders.placeAsync(order), PLACE); // tag keys: "operation", "exception"
+ * }</pre>
+ */
+public final class OutcomeTagValues implements BiFunction<Object, Throwable, String[]> {
+
+  /**
+   * The outcome of an operation that succeeded, as the {@code exception} tag of Micrometer's
+   * timers.
+   */
+  public static final String SUCCESS = "none";
+
+  private final String[] success;
+
+  private final ClassValue<String[]> failures;
+
+  private OutcomeTagValues(String[] tagValues) {
+    this.success = withOutcome(tagValues, SUCCESS);
+    this.failures = new ClassValue<>() {
+      @Override
+      protected String[] computeValue(@NotNull Class<?> type) {
+        return withOutcome(tagValues, type.getSimpleName());
+      }
+    };
+  }
+
+  /**
+   * Tag values that are the given ones, followed by the outcome.
+   *
+   * @param tagValues The tag values that precede the outcome.
+   * @return the outcome tag values.
+   */
+  public static @NotNull OutcomeTagValues of(String @NotNull... tagValues) {
+    return new OutcomeTagValues(tagValues.clone());
+  }
+
+  /**
+   * The tag values of an outcome.
+   *
+   * @param result The result of the operation, ignored.
+   * @param error  The exception the operation failed with, or {@code null} if it succeeded.
+   * @return the tag values, must not be modified.
+   */
+  @Override
+  public String @NotNull [] apply(@Nullable Object result, @Nullable Throwable error) {
+    if (error == null) {
+      return success;
+    }
+    Throwable cause = error;
+    while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+        && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    return failures.get(cause.getClass());
+  }
+
+  private static String[] withOutcome(String[] tagValues, String outcome) {
+    String[] values = Arrays.copyOf(tagValues, tagValues.length + 1);
+    values[tagValues.length] = outcome;
+    return values;
+  }
+
+}
@@ -0,0 +1,113 @@
+package com.avpines.dynamic.meters;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.avpines.dynamic.meters.counter.DynamicCounter;
+import com.avpines.dynamic.meters.distributionsummary.DynamicDistributionSummary;
+import com.avpines.dynamic.meters.timer.DynamicTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives the idle sweeps directly, the expiry is long enough for the housekeeping thread to never
+ * run one during a test.
+ */
+class IdleExpiryTest {
+
+  private static final Duration NEVER = Duration.ofDays(1);
+
+  private static void sweep(DynamicMeter<?, ?, ?> meter) {
+    meter.expireIdle();
+  }
+
+  @Test
+  void idleCounterSeriesExpire() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    DynamicCounter c = DynamicCounter.builder(registry, "my.counter")
+        .tagKey("t1")
+        .expireAfterIdle(NEVER)
+        .build();
+    c.getOrCreate("idle").increment();
+    for (int i = 0; i < 4; i++) {
+      c.getOrCreate("active").increment();
+      sweep(c);
+    }
+    assertThat(registry.find("my.counter").tag("t1", "idle").counter()).isNotNull();
+    c.getOrCreate("active").increment();
+    sweep(c);
+    assertThat(c.size()).isEqualTo(1);
+    assertThat(registry.getMeters())
+        .extracting(m -> m.getId().getTag("t1"))
+        .containsExactly("active");
+  }
+
+  @Test
+  void usedCounterSeriesDoNotExpire() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    DynamicCounter c = DynamicCounter.builder(registry, "my.counter")
+        .tagKey("t1")
+        .expireAfterIdle(NEVER)
+        .build();
+    for (int i = 0; i < 10; i++) {
+      c.getOrCreate("a").increment();
+      sweep(c);
+    }
+    assertThat(registry.get("my.counter").tag("t1", "a").counter().count()).isEqualTo(10);
+  }
+
+  @Test
+  void idleTimerSeriesExpire() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    DynamicTimer t = DynamicTimer.builder(registry, "my.timer")
+        .tagKey("t1")
+        .expireAfterIdle(NEVER)
+        .build();
+    t.getOrCreate("idle").record(Duration.ofMillis(1));
+    for (int i = 0; i < 4; i++) {
+      t.getOrCreate("active").record(Duration.ofMillis(1));
+      sweep(t);
+    }
+    assertThat(registry.find("my.timer").tag("t1", "idle").timer()).isNotNull();
+    t.getOrCreate("active").record(Duration.ofMillis(1));
+    sweep(t);
+    assertThat(registry.getMeters())
+        .extracting(m -> m.getId().getTag("t1"))
+        .containsExactly("active");
+    assertThat(registry.get("my.timer").tag("t1", "active").timer().count()).isEqualTo(5);
+  }
+
+  @Test
+  void idleSummarySeriesExpire() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    DynamicDistributionSummary dds = DynamicDistributionSummary.builder(registry, "my.summary")
+        .tagKey("t1")
+        .expireAfterIdle(NEVER)
+        .build();
+    dds.getOrCreate("idle").record(1);
+    for (int i = 0; i < 5; i++) {
+      dds.getOrCreate("active").record(1);
+      sweep(dds);
+    }
+    assertThat(registry.getMeters())
+        .extracting(m -> m.getId().getTag("t1"))
+        .containsExactly("active");
+  }
+
+  @Test
+  void anExpiredSeriesIsCreatedAgainOnItsNextUse() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    DynamicCounter c = DynamicCounter.builder(registry, "my.counter")
+        .tagKey("t1")
+        .expireAfterIdle(NEVER)
+        .build();
+    c.getOrCreate("a").increment(3);
+    for (int i = 0; i < 5; i++) {
+      sweep(c);
+    }
+    assertThat(c.size()).isZero();
+    c.getOrCreate("a").increment();
+    assertThat(registry.get("my.counter").tag("t1", "a").counter().count()).isEqualTo(1);
+  }
+
+}
@@ -0,0 +1,80 @@
+package com.avpines.dynamic.meters;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.Test;
+
+class RecordingBufferTest {
+
+  @Test
+  void valuesAreDrainedInRecordingOrder() {
+    RecordingBuffer buffer = new RecordingBuffer();
+    buffer.add(3);
+    buffer.add(0);
+    buffer.add(-1.5);
+    assertThat(buffer.count()).isEqualTo(3);
+    assertThat(buffer.total()).isEqualTo(1.5);
+    assertThat(buffer.max()).isEqualTo(3);
+    List<Double> drained = new ArrayList<>();
+    buffer.drainTo(drained::add);
+    assertThat(drained).containsExactly(3.0, 0.0, -1.5);
+    assertThat(buffer.count()).isZero();
+  }
+
+  @Test
+  void theOverflowKeepsCountTotalAndMax() {
+    RecordingBuffer buffer = new RecordingBuffer();
+    for (int i = 0; i < RecordingBuffer.CAPACITY + 3; i++) {
+      buffer.add(1);
+    }
+    buffer.add(10);
+    assertThat(buffer.count()).isEqualTo(RecordingBuffer.CAPACITY + 4);
+    assertThat(buffer.total()).isEqualTo(RecordingBuffer.CAPACITY + 13);
+    assertThat(buffer.max()).isEqualTo(10);
+    LongAdder count = new LongAdder();
+    DoubleAdder total = new DoubleAdder();
+    buffer.drainTo(v -> {
+      count.increment();
+      total.add(v);
+    });
+    assertThat(count.sum()).isEqualTo(RecordingBuffer.CAPACITY + 4);
+    assertThat(total.sum()).isEqualTo(RecordingBuffer.CAPACITY + 13);
+  }
+
+  @Test
+  void concurrentDrainsPassEveryValueOnce() throws InterruptedException {
+    RecordingBuffer buffer = new RecordingBuffer();
+    int threads = 4;
+    int records = RecordingBuffer.CAPACITY;
+    LongAdder count = new LongAdder();
+    DoubleAdder total = new DoubleAdder();
+    CountDownLatch done = new CountDownLatch(threads);
+    for (int t = 0; t < threads; t++) {
+      new Thread(() -> {
+        for (int i = 0; i < records; i++) {
+          buffer.add(1);
+          if (i % 16 == 0) {
+            buffer.drainTo(v -> {
+              count.increment();
+              total.add(v);
+            });
+          }
+        }
+        done.countDown();
+      }).start();
+    }
+    done.await();
+    buffer.drainTo(v -> {
+      count.increment();
+      total.add(v);
+    });
+    assertThat(count.sum()).isEqualTo((long) threads * records);
+    assertThat(total.sum()).isEqualTo((double) threads * records);
+  }
+
+}
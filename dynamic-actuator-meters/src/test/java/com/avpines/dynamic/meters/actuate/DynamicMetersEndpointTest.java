@@ -0,0 +1,87 @@
+package com.avpines.dynamic.meters.actuate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.avpines.dynamic.meters.CardinalityReport;
+import com.avpines.dynamic.meters.CardinalityReport.TagKeyCardinality;
+import com.avpines.dynamic.meters.CardinalityReport.ValueCount;
+import com.avpines.dynamic.meters.actuate.DynamicMetersEndpoint.MeterSummary;
+import com.avpines.dynamic.meters.actuate.DynamicMetersEndpoint.MetersPage;
+import com.avpines.dynamic.meters.counter.DynamicCounter;
+import com.avpines.dynamic.meters.timer.DynamicTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+
+class DynamicMetersEndpointTest {
+
+  SimpleMeterRegistry smr;
+
+  DynamicMetersEndpoint endpoint;
+
+  @BeforeEach
+  void setup() {
+    smr = new SimpleMeterRegistry();
+    endpoint = new DynamicMetersEndpoint();
+  }
+
+  @Test
+  void listsMetersWithMostSeriesFirst() {
+    DynamicCounter requests = DynamicCounter.builder(smr, "endpoint.test.requests")
+        .tagKeys("tenant", "path")
+        .build();
+    DynamicTimer latency = DynamicTimer.builder(smr, "endpoint.test.latency")
+        .tagKeys("path")
+        .build();
+    for (int i = 0; i < 5000; i++) {
+      requests.increment("t" + (i % 3), "/p" + i);
+    }
+    latency.getOrCreate("/p0");
+    MetersPage first = endpoint.meters(0, 1);
+    assertThat(first.getMeters()).hasSize(1);
+    assertThat(first.getTotal()).isGreaterThanOrEqualTo(2);
+    assertThat(first.getMeters().get(0).getSeries()).isGreaterThanOrEqualTo(5000);
+    MetersPage all = endpoint.meters(null, DynamicMetersEndpoint.MAX_PAGE_SIZE);
+    assertThat(all.getMeters())
+        .filteredOn(m -> m.getName().startsWith("endpoint.test."))
+        .extracting(MeterSummary::getName, MeterSummary::getTagKeys, MeterSummary::getSeries)
+        .containsExactly(
+            tuple(
+                "endpoint.test.requests", List.of("tenant", "path"), 5000),
+            tuple("endpoint.test.latency", List.of("path"), 1));
+    assertThat(endpoint.meters(1_000_000, 10).getMeters()).isEmpty();
+    assertThatThrownBy(() -> endpoint.meters(0, 0))
+        .isInstanceOf(InvalidEndpointRequestException.class);
+  }
+
+  @Test
+  void inspectsTheTagKeysOfAMeter() {
+    DynamicCounter requests = DynamicCounter.builder(smr, "endpoint.test.inspected")
+        .tagKeys("tenant", "path")
+        .build();
+    for (int i = 0; i < 20_000; i++) {
+      requests.increment(i % 2 == 0 ? "big" : "t" + (i % 7), "/p" + i);
+    }
+    List<CardinalityReport> reports = endpoint.meter("endpoint.test.inspected", 2);
+    assertThat(reports).hasSize(1);
+    CardinalityReport report = reports.get(0);
+    assertThat(report.getSeries()).isEqualTo(20_000);
+    assertThat(report.getEstimatedBytes()).isPositive();
+    TagKeyCardinality tenant = report.getTagKeys().get(0);
+    assertThat(tenant.getKey()).isEqualTo("tenant");
+    assertThat(tenant.getDistinctValues()).isEqualTo(8);
+    assertThat(tenant.getTopValues()).extracting(ValueCount::getValue).startsWith("big");
+    assertThat(tenant.getTopValues().get(0).getSeries()).isEqualTo(10_000);
+    TagKeyCardinality path = report.getTagKeys().get(1);
+    assertThat(path.getDistinctValues()).isBetween(19_000L, 21_000L);
+    assertThat(path.getTopValues()).hasSize(2);
+    assertThat(endpoint.meter("endpoint.test.missing", null)).isNull();
+    assertThatThrownBy(() -> endpoint.meter("endpoint.test.inspected", -1))
+        .isInstanceOf(InvalidEndpointRequestException.class);
+  }
+
+}
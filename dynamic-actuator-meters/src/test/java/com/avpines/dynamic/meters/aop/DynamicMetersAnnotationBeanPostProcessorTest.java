@@ -0,0 +1,141 @@
+package com.avpines.dynamic.meters.aop;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DynamicMetersAnnotationBeanPostProcessorTest {
+
+  SimpleMeterRegistry smr;
+
+  DynamicMetersAnnotationBeanPostProcessor processor;
+
+  @BeforeEach
+  void setup() {
+    smr = new SimpleMeterRegistry();
+    processor = new DynamicMetersAnnotationBeanPostProcessor(() -> smr);
+    processor.setProxyTargetClass(true);
+  }
+
+  @Test
+  void timesAndCountsWithTagsFromArguments() {
+    Orders orders = (Orders) processor.postProcessAfterInitialization(new Orders(), "orders");
+    // enough calls for the expressions to be compiled.
+    for (int i = 0; i < 300; i++) {
+      orders.place(new Order("t" + (i % 2)), i % 3 == 0 ? "web" : "api");
+    }
+    assertThatThrownBy(() -> orders.place(new Order("t0"), null))
+        .isInstanceOf(IllegalStateException.class);
+    assertThat(smr.get("orders.place").tags("tenant", "t0", "channel", "web").timer().count())
+        .isEqualTo(50);
+    assertThat(smr.get("orders.place").tags("tenant", "t1", "channel", "api").timer().count())
+        .isEqualTo(100);
+    assertThat(smr.get("orders.place").tags("tenant", "t0", "channel", "null").timer().count())
+        .isEqualTo(1);
+    assertThat(smr.get("orders.calls").tag("channel", "api").counter().count()).isEqualTo(200);
+    assertThat(smr.get("orders.calls").tag("channel", "null").counter().count()).isEqualTo(1);
+    assertThat(orders.unmetered()).isEqualTo("unmetered");
+  }
+
+  @Test
+  void methodsWithTheSameNameShareTheMeter() {
+    Orders orders = (Orders) processor.postProcessAfterInitialization(new Orders(), "orders");
+    orders.place(new Order("t0"), "web");
+    orders.cancel(new Order("t0"), "web");
+    assertThat(smr.get("orders.calls").tag("channel", "web").counter().count()).isEqualTo(2);
+    assertThat(smr.find("orders.calls").meters()).hasSize(1);
+  }
+
+  @Test
+  void rejectsInvalidAnnotations() {
+    assertThatThrownBy(() -> processor.postProcessAfterInitialization(new OddTags(), "odd"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("pairs");
+    processor.postProcessAfterInitialization(new Orders(), "orders");
+    assertThatThrownBy(() -> processor.postProcessAfterInitialization(new OtherKeys(), "other"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("orders.calls");
+  }
+
+  @Test
+  void tagExpressionsCannotReachTypes() {
+    TypeReference bean =
+        (TypeReference) processor.postProcessAfterInitialization(new TypeReference(), "types");
+    // the failed evaluation is logged, and the call is not counted.
+    bean.call("t0");
+    assertThat(smr.find("types").counters()).isEmpty();
+  }
+
+  @Test
+  void metersMustBeDeclaredByAnAnnotation() {
+    DynamicMetersInterceptor interceptor = new DynamicMetersInterceptor(() -> smr, null);
+    assertThatThrownBy(() -> interceptor.timer("undeclared"))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("undeclared");
+    assertThatThrownBy(() -> interceptor.counter("undeclared"))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("undeclared");
+  }
+
+  public static class Order {
+
+    private final String tenant;
+
+    Order(String tenant) {
+      this.tenant = tenant;
+    }
+
+    public String getTenant() {
+      return tenant;
+    }
+
+  }
+
+  public static class Orders {
+
+    @DynamicTimed(value = "orders.place", tags = {"tenant", "#order.tenant", "channel", "#p1"})
+    @DynamicCounted(value = "orders.calls", tags = {"channel", "#channel"})
+    public void place(Order order, String channel) {
+      if (channel == null) {
+        throw new IllegalStateException("no channel");
+      }
+    }
+
+    @DynamicCounted(value = "orders.calls", tags = {"channel", "#channel"})
+    public void cancel(Order order, String channel) {
+    }
+
+    public String unmetered() {
+      return "unmetered";
+    }
+
+  }
+
+  public static class OddTags {
+
+    @DynamicTimed(value = "odd", tags = {"tenant"})
+    public void call(String tenant) {
+    }
+
+  }
+
+  public static class OtherKeys {
+
+    @DynamicCounted(value = "orders.calls", tags = {"tenant", "#tenant"})
+    public void call(String tenant) {
+    }
+
+  }
+
+  public static class TypeReference {
+
+    @DynamicCounted(value = "types", tags = {"exit", "T(java.lang.System).getenv()"})
+    public void call(String tenant) {
+    }
+
+  }
+
+}
@@ -0,0 +1,134 @@
+package com.avpines.dynamic.meters.autoconfigure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.avpines.dynamic.meters.actuate.DynamicMetersEndpoint;
+import com.avpines.dynamic.meters.counter.DynamicCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+class DynamicMetersAutoConfigurationTest {
+
+  ApplicationContextRunner runner = new ApplicationContextRunner()
+      .withConfiguration(AutoConfigurations.of(
+          MetricsAutoConfiguration.class,
+          SimpleMetricsExportAutoConfiguration.class,
+          DynamicMetersAutoConfiguration.class));
+
+  @Test
+  void defaultsApplyToOptionsLeftUnset() {
+    runner
+        .withPropertyValues(
+            "dynamic.meters.max-series=2",
+            "dynamic.meters.max-tag-values.tenant=1",
+            "dynamic.meters.self-metrics=true")
+        .run(context -> {
+          MeterRegistry registry = context.getBean(MeterRegistry.class);
+          DynamicCounter unset = DynamicCounter.builder(registry, "autoconfig.unset")
+              .tagKeys("tenant", "path")
+              .build();
+          DynamicCounter set = DynamicCounter.builder(registry, "autoconfig.set")
+              .tagKeys("path")
+              .maxSeries(3)
+              .build();
+          for (int i = 0; i < 5; i++) {
+            unset.increment("t" + i, "/p");
+            set.increment("/p" + i);
+          }
+          assertThat(unset.size()).isEqualTo(2);
+          assertThat(set.size()).isEqualTo(3);
+          assertThat(Search.in(registry).name("autoconfig.unset").tag("tenant", "OTHER").counter())
+              .isNotNull();
+          assertThat(Search.in(registry).name("dynamic.meters.lookups")
+              .tag("meter", "autoconfig.set").meters()).isNotEmpty();
+        });
+  }
+
+  @Test
+  void overridesApplyOverOptionsSetInCode() {
+    runner
+        .withPropertyValues(
+            "dynamic.meters.max-series=2",
+            "dynamic.meters.overrides[autoconfig.tuned].max-series=4",
+            "dynamic.meters.overrides[autoconfig.tuned].max-tag-values.path=3",
+            "dynamic.meters.overrides[autoconfig.tuned].overflow-value=rest")
+        .run(context -> {
+          MeterRegistry registry = context.getBean(MeterRegistry.class);
+          DynamicCounter tuned = DynamicCounter.builder(registry, "autoconfig.tuned")
+              .tagKeys("path")
+              .maxSeries(10)
+              .maxTagValues("path", 10)
+              .build();
+          for (int i = 0; i < 10; i++) {
+            tuned.increment("/p" + i);
+          }
+          assertThat(tuned.size()).isEqualTo(4);
+          assertThat(Search.in(registry).name("autoconfig.tuned").tag("path", "rest").counter())
+              .isNotNull();
+        });
+  }
+
+  @Test
+  void overflowValuesResolveFromTheOverrideThenTheTopLevel() {
+    runner
+        .withPropertyValues(
+            "dynamic.meters.max-tag-values.tenant=1",
+            "dynamic.meters.overflow-value=others",
+            "dynamic.meters.overrides[autoconfig.both].overflow-value=rest",
+            "dynamic.meters.overrides[autoconfig.top].max-tag-values.path=1")
+        .run(context -> {
+          MeterRegistry registry = context.getBean(MeterRegistry.class);
+          DynamicCounter both = DynamicCounter.builder(registry, "autoconfig.both")
+              .tagKeys("tenant")
+              .build();
+          DynamicCounter top = DynamicCounter.builder(registry, "autoconfig.top")
+              .tagKeys("path")
+              .build();
+          for (int i = 0; i < 3; i++) {
+            both.increment("t" + i);
+            top.increment("/p" + i);
+          }
+          assertThat(Search.in(registry).name("autoconfig.both").tag("tenant", "rest").counter())
+              .isNotNull();
+          assertThat(Search.in(registry).name("autoconfig.top").tag("path", "others").counter())
+              .isNotNull();
+        });
+  }
+
+  @Test
+  void thePolicyIsRemovedWithTheContext() {
+    AtomicReference<MeterRegistry> registry = new AtomicReference<>();
+    runner
+        .withPropertyValues("dynamic.meters.max-series=2")
+        .run(context -> registry.set(context.getBean(MeterRegistry.class)));
+    DynamicCounter c = DynamicCounter.builder(registry.get(), "autoconfig.closed")
+        .tagKeys("path")
+        .build();
+    for (int i = 0; i < 5; i++) {
+      c.increment("/p" + i);
+    }
+    assertThat(c.size()).isEqualTo(5);
+  }
+
+  @Test
+  void rejectsOutOfRangeProperties() {
+    runner
+        .withPropertyValues("dynamic.meters.overrides[autoconfig.bad].max-tag-values.path=0")
+        .run(context -> assertThat(context).hasFailed());
+  }
+
+  @Test
+  void exposesTheEndpoint() {
+    runner.run(context -> assertThat(context).doesNotHaveBean(DynamicMetersEndpoint.class));
+    runner
+        .withPropertyValues("management.endpoints.web.exposure.include=dynamicmeters")
+        .run(context -> assertThat(context).hasSingleBean(DynamicMetersEndpoint.class));
+  }
+
+}
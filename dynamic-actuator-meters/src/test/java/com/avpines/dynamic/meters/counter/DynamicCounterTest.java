@@ -4,11 +4,27 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.avpines.dynamic.Conditions;
+import com.avpines.dynamic.meters.EvictionPolicy;
+import com.avpines.dynamic.meters.TagValueNormalizers;
+import com.avpines.dynamic.meters.WarmUpReport;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.logging.LoggingMeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -114,4 +130,599 @@ class DynamicCounterTest {
     ).isInstanceOf(IllegalArgumentException.class);
   }
 
-}
\ No newline at end of file
+  @Test
+  void valuesContainingSeparatorsDoNotCollide() {
+    String name = "my.metric";
+    DynamicCounter c = DynamicCounter.builder(smr, name).tagKeys("t1", "t2").build();
+    c.getOrCreate("a, b", "c").increment(1);
+    c.getOrCreate("a", "b, c").increment(2);
+    List<Meter> meters = smr.getMeters();
+    assertThat(meters).hasSize(2);
+    assertThat(meters)
+        .filteredOn(Conditions.onTags(Tag.of("t1", "a, b"), Tag.of("t2", "c"))).hasSize(1)
+        .map(m -> ((Counter) m).count()).containsExactly(1.0);
+    assertThat(meters)
+        .filteredOn(Conditions.onTags(Tag.of("t1", "a"), Tag.of("t2", "b, c"))).hasSize(1)
+        .map(m -> ((Counter) m).count()).containsExactly(2.0);
+  }
+
+  @Test
+  void sameValuesReturnSameCounter() {
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric").tagKeys("t1", "t2").build();
+    String[] values = {"v1", "v2"};
+    Counter first = c.getOrCreate(values);
+    // mutating the caller's array must not affect the stored series.
+    values[0] = "v3";
+    assertThat(c.getOrCreate("v1", "v2")).isSameAs(first);
+    assertThat(c.getOrCreate(values)).isNotSameAs(first);
+  }
+
+  @Test
+  void evictsLeastRecentlyUsed() {
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKey("t1")
+        .maxSeries(2)
+        .build();
+    c.getOrCreate("a").increment();
+    c.getOrCreate("b").increment();
+    c.getOrCreate("a").increment();
+    c.getOrCreate("c").increment();
+    assertThat(c.size()).isEqualTo(2);
+    assertThat(smr.getMeters())
+        .extracting(m -> m.getId().getTag("t1"))
+        .containsExactlyInAnyOrder("a", "c");
+    // an evicted series starts over.
+    c.getOrCreate("b").increment();
+    assertThat(smr.getMeters())
+        .filteredOn(Conditions.onTags(Tag.of("t1", "b"))).hasSize(1)
+        .map(m -> ((Counter) m).count()).containsExactly(1.0);
+  }
+
+  @Test
+  void evictsLeastFrequentlyUsed() {
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKey("t1")
+        .maxSeries(2)
+        .evictionPolicy(EvictionPolicy.LFU)
+        .build();
+    for (int i = 0; i < 5_000; i++) {
+      c.getOrCreate("a").increment();
+    }
+    c.getOrCreate("b").increment();
+    c.getOrCreate("c").increment();
+    assertThat(smr.getMeters())
+        .extracting(m -> m.getId().getTag("t1"))
+        .containsExactlyInAnyOrder("a", "c");
+  }
+
+  @Test
+  void hotSeriesSurviveChurnUnderLeastFrequentlyUsed() {
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKey("t1")
+        .maxSeries(4)
+        .evictionPolicy(EvictionPolicy.LFU)
+        .build();
+    for (int i = 0; i < 5_000; i++) {
+      c.getOrCreate("hot").increment();
+    }
+    for (int i = 0; i < 20; i++) {
+      c.getOrCreate("once-" + i).increment();
+    }
+    assertThat(c.size()).isEqualTo(4);
+    assertThat(smr.getMeters())
+        .extracting(m -> m.getId().getTag("t1"))
+        .contains("hot", "once-19");
+    assertThat(smr.get("my.metric").tag("t1", "hot").counter().count()).isEqualTo(5_000);
+  }
+
+  @Test
+  void maxSeriesMustBePositive() {
+    assertThatThrownBy(() -> DynamicCounter.builder(smr, "my.metric").maxSeries(0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void dictionaryEncodingSharesTags() {
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("t1", "t2")
+        .dictionaryEncoding()
+        .build();
+    final Counter ax = c.getOrCreate(new String("a"), "x");
+    final Counter ay = c.getOrCreate(new String("a"), "y");
+    final Counter bx = c.getOrCreate("b", "x");
+    ax.increment();
+    c.getOrCreate(new String("a"), new String("x")).increment();
+    assertThat(c.getOrCreate("a", "x")).isSameAs(ax);
+    assertThat(c.getOrCreate("a", "y")).isSameAs(ay);
+    assertThat(c.getOrCreate("b", "x")).isSameAs(bx);
+    assertThat(c.size()).isEqualTo(3);
+    assertThat(ax.count()).isEqualTo(2.0);
+    assertThat(tag(ax, "t1")).isSameAs(tag(ay, "t1"));
+    assertThat(tag(ax, "t2")).isSameAs(tag(bx, "t2"));
+  }
+
+  @Test
+  void dictionaryEncodingDropsValuesOfRemovedSeries() {
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("t1", "t2")
+        .dictionaryEncoding()
+        .maxSeries(2)
+        .build();
+    final Counter ax = c.getOrCreate("a", "x");
+    final Counter bx = c.getOrCreate("b", "x");
+    c.getOrCreate("b", "x").increment();
+    // evicts ("a", "x"), "a" is no longer in use but "x" is.
+    final Counter cx = c.getOrCreate("c", "x");
+    c.getOrCreate("b", "x").increment();
+    final Counter ax2 = c.getOrCreate("a", "x");
+    assertThat(ax2).isNotSameAs(ax);
+    assertThat(tag(ax2, "t1")).isNotSameAs(tag(ax, "t1")).isEqualTo(tag(ax, "t1"));
+    assertThat(tag(ax2, "t2")).isSameAs(tag(bx, "t2"));
+    assertThat(c.getOrCreate("a", "x")).isSameAs(ax2);
+    assertThat(c.size()).isEqualTo(2);
+    assertThat(smr.getMeters()).containsExactlyInAnyOrder(bx, ax2);
+    assertThat(cx).isNotIn(smr.getMeters());
+  }
+
+  @Test
+  void removeByPrefixWithIndex() {
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("tenant", "host", "status")
+        .prefixIndex()
+        .dictionaryEncoding()
+        .build();
+    populateTenants(c);
+    final Counter removed = c.getOrCreate("acme", "h1", "ok");
+    List<Counter> acme = new ArrayList<>();
+    c.forEachWithPrefix(acme::add, "acme");
+    assertThat(acme).hasSize(4);
+    assertThat(c.removeByPrefix("acme", "h1")).isEqualTo(2);
+    assertThat(c.removeByPrefix("acme", "h1")).isZero();
+    assertThat(smr.getMeters()).hasSize(6);
+    assertThat(c.removeByPrefix("acme")).isEqualTo(2);
+    assertThat(smr.getMeters()).hasSize(4)
+        .noneMatch(m -> tag(m, "tenant").getValue().equals("acme"));
+    assertThat(c.getOrCreate("acme", "h1", "ok")).isNotSameAs(removed);
+    assertThat(c.removeByPrefix()).isEqualTo(5);
+    assertThat(c.size()).isZero();
+  }
+
+  @Test
+  void removeByPrefixWithoutIndex() {
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("tenant", "host", "status")
+        .build();
+    populateTenants(c);
+    assertThat(c.removeByPrefix("acme", "h2", "ok")).isEqualTo(1);
+    assertThat(c.removeByPrefix("globex")).isEqualTo(4);
+    assertThat(smr.getMeters()).hasSize(3);
+    assertThatThrownBy(() -> c.removeByPrefix("acme", "h1", "ok", "extra"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void registersEachSeriesOnce() throws Exception {
+    AtomicInteger registrations = new AtomicInteger();
+    CountDownLatch registering = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("t1")
+        .customizer(b -> {
+          if (registrations.incrementAndGet() == 1) {
+            registering.countDown();
+            await(release);
+          }
+          return b;
+        })
+        .build();
+    ExecutorService executor = Executors.newFixedThreadPool(9);
+    try {
+      List<Future<Counter>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> c.getOrCreate("a")));
+      }
+      registering.await();
+      // an unrelated series is not stalled by the pending registration.
+      executor.submit(() -> c.getOrCreate("b")).get(1, TimeUnit.MINUTES);
+      release.countDown();
+      Counter counter = futures.get(0).get(1, TimeUnit.MINUTES);
+      for (Future<Counter> future : futures) {
+        assertThat(future.get(1, TimeUnit.MINUTES)).isSameAs(counter);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(registrations).hasValue(2);
+    assertThat(c.size()).isEqualTo(2);
+  }
+
+  @Test
+  void registrationMayCreateOtherSeries() {
+    AtomicInteger nesting = new AtomicInteger();
+    DynamicCounter[] holder = new DynamicCounter[1];
+    holder[0] = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("t1")
+        .customizer(b -> {
+          if (nesting.getAndIncrement() == 0) {
+            holder[0].getOrCreate("other");
+          }
+          return b;
+        })
+        .build();
+    holder[0].getOrCreate("a");
+    assertThat(holder[0].size()).isEqualTo(2);
+  }
+
+  @Test
+  void recursiveCreationOfTheSameSeriesFails() {
+    DynamicCounter[] holder = new DynamicCounter[1];
+    holder[0] = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("t1")
+        .customizer(b -> {
+          holder[0].getOrCreate("a");
+          return b;
+        })
+        .build();
+    assertThatThrownBy(() -> holder[0].getOrCreate("a"))
+        .isInstanceOf(IllegalStateException.class);
+    assertThat(holder[0].size()).isZero();
+  }
+
+  @Test
+  void failedRegistrationIsRetried() {
+    AtomicInteger attempts = new AtomicInteger();
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("t1")
+        .customizer(b -> {
+          if (attempts.getAndIncrement() == 0) {
+            throw new IllegalArgumentException("boom");
+          }
+          return b;
+        })
+        .build();
+    assertThatThrownBy(() -> c.getOrCreate("a")).isInstanceOf(IllegalArgumentException.class);
+    assertThat(c.size()).isZero();
+    assertThat(c.getOrCreate("a")).isNotNull();
+    assertThat(smr.getMeters()).hasSize(1);
+  }
+
+  @Test
+  void asyncRegistrationDoesNotBlock() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+          .tagKeys("t1")
+          .customizer(b -> {
+            await(release);
+            return b;
+          })
+          .asyncRegistration(executor)
+          .build();
+      c.getOrCreate("a").increment(2);
+      c.getOrCreate("a").increment(3);
+      assertThat(c.getOrCreate("a").count()).isEqualTo(5);
+      assertThat(smr.getMeters()).isEmpty();
+      release.countDown();
+      executor.submit(() -> { }).get(1, TimeUnit.MINUTES);
+      assertThat(smr.get("my.metric").tag("t1", "a").counter().count()).isEqualTo(5);
+      assertThat(c.getOrCreate("a")).isSameAs(smr.get("my.metric").counter());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void incrementAllSumsPerSeries() {
+    AtomicInteger registrations = new AtomicInteger();
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("t1", "t2")
+        .customizer(b -> {
+          registrations.incrementAndGet();
+          return b;
+        })
+        .build();
+    List<String> events = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      events.add(i % 3 == 0 ? "a" : "b");
+    }
+    c.incrementAll(events, e -> new String[]{e, "x"}, e -> 2);
+    assertThat(c.getOrCreate("a", "x").count()).isEqualTo(6_668);
+    assertThat(c.getOrCreate("b", "x").count()).isEqualTo(13_332);
+    assertThat(registrations).hasValue(2);
+  }
+
+  @Test
+  void bufferedIncrementsAreFlushed() throws Exception {
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("t1")
+        .buffered(Duration.ofMillis(10))
+        .build();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 100_000; i++) {
+            c.increment("v" + (i % 10));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdown();
+    }
+    c.increment(5, "v0");
+    c.flush();
+    assertThat(smr.get("my.metric").counters()).hasSize(10);
+    for (Counter counter : smr.get("my.metric").counters()) {
+      double extra = tag(counter, "t1").getValue().equals("v0") ? 5 : 0;
+      assertThat(counter.count()).isEqualTo(40_000 + extra);
+    }
+  }
+
+  @Test
+  void unbufferedIncrementsApplyRightAway() {
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric").tagKeys("t1").build();
+    c.increment("a");
+    c.increment(2.5, "a");
+    assertThat(smr.get("my.metric").counter().count()).isEqualTo(3.5);
+  }
+
+  @Test
+  void preRegisterWarmsUpTheIndex() {
+    List<String[]> tagValues = new ArrayList<>();
+    for (int endpoint = 0; endpoint < 100; endpoint++) {
+      for (int status = 1; status <= 5; status++) {
+        tagValues.add(new String[]{"/e" + endpoint, status + "xx"});
+      }
+    }
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("endpoint", "status")
+        .preRegister(tagValues.subList(0, 10))
+        .build();
+    assertThat(c.size()).isEqualTo(10);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      WarmUpReport report = c.preRegister(tagValues.stream(), pool);
+      assertThat(report.getRequested()).isEqualTo(500);
+      assertThat(report.getSeries()).isEqualTo(500);
+      assertThat(report.getElapsed()).isPositive();
+    } finally {
+      pool.shutdown();
+    }
+    assertThat(smr.get("my.metric").counters()).hasSize(500);
+    assertThat(smr.get("my.metric").tags("endpoint", "/e99", "status", "5xx").counter().count())
+        .isZero();
+    assertThatThrownBy(() -> c.preRegister(List.<String[]>of(new String[]{"/e0"})))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void valuesBeyondTheLimitOverflow() {
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("path", "status")
+        .maxTagValues("path", 3)
+        .maxTagValues("status", 1, "other-status")
+        .build();
+    for (int i = 0; i < 10; i++) {
+      c.increment("/p" + i, "200");
+    }
+    c.increment("/p0", "500");
+    c.getOrCreate("/p9", "200").increment();
+    assertThat(c.size()).isEqualTo(5);
+    assertThat(smr.get("my.metric").tags("path", "/p2", "status", "200").counter().count())
+        .isEqualTo(1);
+    assertThat(smr.get("my.metric").tags("path", "OTHER", "status", "200").counter().count())
+        .isEqualTo(8);
+    assertThat(smr.get("my.metric").tags("path", "/p0", "status", "other-status").counter()
+        .count()).isEqualTo(1);
+    assertThatThrownBy(() -> DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("path")
+        .maxTagValues("host", 3)
+        .build())
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> DynamicCounter.builder(smr, "my.metric").maxTagValues("path", 0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void overflowingValuesFindTheOverflowSeries() {
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("path")
+        .maxTagValues("path", 2)
+        .selfMetrics()
+        .build();
+    for (int i = 0; i < 10; i++) {
+      c.increment("/p" + i);
+    }
+    assertThat(c.size()).isEqualTo(3);
+    assertThat(smr.get("my.metric").tags("path", "OTHER").counter().count()).isEqualTo(8);
+    // only the call that created the overflow series missed.
+    assertThat(smr.get("dynamic.meters.lookups").tags("meter", "my.metric", "result", "miss")
+        .functionCounter().count()).isEqualTo(3);
+    assertThat(smr.get("dynamic.meters.lookups").tags("meter", "my.metric", "result", "hit")
+        .functionCounter().count()).isEqualTo(7);
+  }
+
+  @Test
+  void tagValuesAreNormalized() {
+    AtomicInteger normalized = new AtomicInteger();
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("method", "path")
+        .normalizer("method", TagValueNormalizers.lowerCase())
+        .normalizer("path", v -> {
+          normalized.incrementAndGet();
+          return v;
+        })
+        .normalizer("path", TagValueNormalizers.replaceAll("/\\d+", "/{id}"))
+        .normalizer("path", TagValueNormalizers.truncate(12))
+        .normalizationCacheSize(4)
+        .build();
+    for (int i = 0; i < 3; i++) {
+      c.increment("GET", "/users/1");
+      c.increment("get", "/users/2");
+      c.increment("Get", "/users/3/orders");
+    }
+    assertThat(c.size()).isEqualTo(2);
+    assertThat(smr.get("my.metric").tags("method", "get", "path", "/users/{id}").counter().count())
+        .isEqualTo(6);
+    assertThat(smr.get("my.metric").tags("method", "get", "path", "/users/{id}/").counter().count())
+        .isEqualTo(3);
+    // each raw path is normalized once while it fits in the cache.
+    assertThat(normalized).hasValue(3);
+    for (int i = 0; i < 100; i++) {
+      c.increment("GET", "/users/" + i);
+    }
+    assertThat(c.size()).isEqualTo(2);
+    assertThat(c.removeByPrefix("GET")).isEqualTo(2);
+    DynamicCounter broken = DynamicCounter.builder(smr, "other.metric")
+        .tagKeys("t1")
+        .normalizer("t1", v -> null)
+        .build();
+    assertThatThrownBy(() -> broken.increment("v1")).isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> DynamicCounter.builder(smr, "other.metric")
+        .tagKeys("t1")
+        .normalizer("t2", TagValueNormalizers.hash())
+        .build())
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void selfMetricsAreTaggedByMeterName() {
+    AtomicInteger registrations = new AtomicInteger();
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("t1")
+        .customizer(b -> {
+          if (registrations.incrementAndGet() == 3) {
+            throw new IllegalStateException("boom");
+          }
+          return b;
+        })
+        .selfMetrics()
+        .build();
+    c.increment("v1");
+    c.increment("v1");
+    c.increment("v2");
+    assertThatThrownBy(() -> c.increment("v3")).isInstanceOf(IllegalStateException.class);
+    c.increment("v3");
+    assertThat(smr.get("dynamic.meters.lookups").tags("meter", "my.metric", "result", "hit")
+        .functionCounter().count()).isEqualTo(1);
+    assertThat(smr.get("dynamic.meters.lookups").tags("meter", "my.metric", "result", "miss")
+        .functionCounter().count()).isEqualTo(4);
+    assertThat(smr.get("dynamic.meters.registration.failures").tag("meter", "my.metric")
+        .functionCounter().count()).isEqualTo(1);
+    assertThat(smr.get("dynamic.meters.creation").tag("meter", "my.metric").timer().count())
+        .isEqualTo(3);
+    assertThat(smr.get("dynamic.meters.series").tag("meter", "my.metric").gauge().value())
+        .isEqualTo(3);
+    c.removeByPrefix("v1");
+    assertThat(smr.get("dynamic.meters.series").tag("meter", "my.metric").gauge().value())
+        .isEqualTo(2);
+  }
+
+  @Test
+  void rollUpsSumTheirSeriesWhenRead() {
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("tenant", "endpoint")
+        .maxSeries(2)
+        .rollUp("my.metric.by.tenant", "tenant")
+        .build();
+    c.getOrCreate("acme", "/a").increment(2);
+    c.getOrCreate("acme", "/b").increment(3);
+    FunctionCounter acme = smr.get("my.metric.by.tenant").tag("tenant", "acme").functionCounter();
+    assertThat(acme.getId().getTags()).containsExactly(Tag.of("tenant", "acme"));
+    assertThat(acme.count()).isEqualTo(5);
+    c.getOrCreate("acme", "/a").increment();
+    assertThat(acme.count()).isEqualTo(6);
+    // an evicted series keeps its part of the roll-up.
+    c.getOrCreate("globex", "/a").increment(4);
+    assertThat(c.size()).isEqualTo(2);
+    assertThat(acme.count()).isEqualTo(6);
+    c.getOrCreate("acme", "/b").increment();
+    assertThat(acme.count()).isEqualTo(7);
+    assertThat(smr.get("my.metric.by.tenant").tag("tenant", "globex").functionCounter().count())
+        .isEqualTo(4);
+  }
+
+  @Test
+  void rollUpKeysMustBeTagKeys() {
+    assertThatThrownBy(() -> DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("tenant")
+        .rollUp("my.metric.by.host", "host")
+        .build())
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("host");
+    assertThatThrownBy(() -> DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("tenant")
+        .rollUp("my.metric", "tenant")
+        .build())
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void rollUpsNeedACumulativeRegistry() {
+    LoggingMeterRegistry step = new LoggingMeterRegistry();
+    try {
+      CompositeMeterRegistry composite = new CompositeMeterRegistry().add(smr).add(step);
+      assertThatThrownBy(() -> DynamicCounter.builder(composite, "my.metric")
+          .tagKeys("tenant")
+          .rollUp("my.metric.by.tenant", "tenant")
+          .build())
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("cumulative");
+    } finally {
+      step.close();
+    }
+  }
+
+  @Test
+  void failedRollUpRegistrationIsRetried() {
+    AtomicInteger attempts = new AtomicInteger();
+    smr.config().meterFilter(new MeterFilter() {
+      @Override
+      public Meter.Id map(Meter.Id id) {
+        if (id.getName().equals("my.metric.by.tenant") && attempts.getAndIncrement() == 0) {
+          throw new IllegalStateException("boom");
+        }
+        return id;
+      }
+    });
+    DynamicCounter c = DynamicCounter.builder(smr, "my.metric")
+        .tagKeys("tenant", "endpoint")
+        .rollUp("my.metric.by.tenant", "tenant")
+        .build();
+    c.getOrCreate("acme", "/a").increment(2);
+    assertThat(smr.find("my.metric.by.tenant").functionCounter()).isNull();
+    c.getOrCreate("acme", "/b").increment(3);
+    assertThat(smr.get("my.metric.by.tenant").tag("tenant", "acme").functionCounter().count())
+        .isEqualTo(5);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void populateTenants(DynamicCounter c) {
+    for (String tenant : new String[]{"acme", "globex"}) {
+      for (String host : new String[]{"h1", "h2"}) {
+        c.getOrCreate(tenant, host, "ok");
+        c.getOrCreate(tenant, host, "error");
+      }
+    }
+  }
+
+  private static Tag tag(Meter meter, String key) {
+    return meter.getId().getTags().stream()
+        .filter(t -> t.getKey().equals(key))
+        .findFirst()
+        .orElseThrow();
+  }
+
+}
@@ -0,0 +1,158 @@
+package com.avpines.dynamic.meters.counter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DynamicValueCounterTest {
+
+  SimpleMeterRegistry smr;
+
+  @BeforeEach
+  void setup() {
+    smr = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void valueCounterOffHeap() throws Exception {
+    DynamicValueCounter c = DynamicValueCounter.builder(smr, "my.metric")
+        .tagKeys("t1")
+        .offHeap()
+        .maxSeries(10_000)
+        .build();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 20_000; i++) {
+            c.increment("v" + (i % 5000));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdown();
+    }
+    c.increment(0.5, "v0");
+    assertThat(smr.get("my.metric").functionCounters()).hasSize(5000);
+    assertThat(smr.get("my.metric").tag("t1", "v0").functionCounter().count()).isEqualTo(16.5);
+    assertThat(smr.get("my.metric").tag("t1", "v4999").functionCounter().count()).isEqualTo(16);
+  }
+
+  @Test
+  void persistentValueCounterIsRestored(@TempDir Path dir) {
+    Path file = dir.resolve("requests");
+    DynamicValueCounter c = DynamicValueCounter.builder(smr, "my.metric")
+        .tagKeys("t1", "t2")
+        .persistent(file)
+        .build();
+    c.increment(3, "a", "x");
+    c.increment(5, "b", "x");
+    c.increment(7, "c", "y");
+    c.removeByPrefix("b");
+    // reuses the slot of the removed series.
+    c.increment(11, "d", "y");
+    c.close();
+
+    SimpleMeterRegistry restarted = new SimpleMeterRegistry();
+    DynamicValueCounter restored = DynamicValueCounter.builder(restarted, "my.metric")
+        .tagKeys("t1", "t2")
+        .persistent(file)
+        .build();
+    assertThat(restored.size()).isEqualTo(3);
+    assertThat(restarted.get("my.metric").tags("t1", "a", "t2", "x").functionCounter().count())
+        .isEqualTo(3);
+    assertThat(restarted.get("my.metric").tags("t1", "c", "t2", "y").functionCounter().count())
+        .isEqualTo(7);
+    assertThat(restarted.get("my.metric").tags("t1", "d", "t2", "y").functionCounter().count())
+        .isEqualTo(11);
+    restored.increment(2, "a", "x");
+    assertThat(restarted.get("my.metric").tags("t1", "a", "t2", "x").functionCounter().count())
+        .isEqualTo(5);
+    restored.close();
+    assertThatThrownBy(() -> DynamicValueCounter.builder(new SimpleMeterRegistry(), "my.metric")
+        .tagKeys("t1")
+        .persistent(file)
+        .build())
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void persistentValueCounterIsLockedUntilClosed(@TempDir Path dir) {
+    Path file = dir.resolve("requests");
+    DynamicValueCounter c = DynamicValueCounter.builder(smr, "my.metric")
+        .tagKeys("t1")
+        .persistent(file)
+        .build();
+    c.increment(3, "a");
+    assertThatThrownBy(() -> DynamicValueCounter.builder(new SimpleMeterRegistry(), "my.metric")
+        .tagKeys("t1")
+        .persistent(file)
+        .build())
+        .isInstanceOf(IllegalStateException.class);
+    c.close();
+    SimpleMeterRegistry restarted = new SimpleMeterRegistry();
+    DynamicValueCounter.builder(restarted, "my.metric")
+        .tagKeys("t1")
+        .persistent(file)
+        .build()
+        .close();
+    assertThat(restarted.get("my.metric").tags("t1", "a").functionCounter().count())
+        .isEqualTo(3);
+  }
+
+  @Test
+  void persistentValueCounterCompactsItsJournal(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("requests");
+    Path journal = dir.resolve("requests.series");
+    DynamicValueCounter c = DynamicValueCounter.builder(smr, "my.metric")
+        .tagKeys("t1")
+        .persistent(file)
+        .build();
+    for (int i = 0; i < 10_000; i++) {
+      c.increment(1, "v" + i);
+      if (i >= 3) {
+        c.removeByPrefix("v" + (i - 3));
+      }
+      if (i % 100 == 0) {
+        c.flushJournal();
+        assertThat(Files.size(journal)).isLessThan(3 * 1024 * 24);
+      }
+    }
+    // the survivors restart on lower slots, over the totals of series that are restored first.
+    c.removeByPrefix("v9998");
+    c.close();
+    for (int restart = 0; restart < 3; restart++) {
+      SimpleMeterRegistry restarted = new SimpleMeterRegistry();
+      DynamicValueCounter restored = DynamicValueCounter.builder(restarted, "my.metric")
+          .tagKeys("t1")
+          .persistent(file)
+          .build();
+      assertThat(restored.size()).isEqualTo(2);
+      assertThat(restarted.get("my.metric").tags("t1", "v9997").functionCounter().count())
+          .isEqualTo(1 + restart);
+      assertThat(restarted.get("my.metric").tags("t1", "v9999").functionCounter().count())
+          .isEqualTo(1);
+      restored.increment("v9997");
+      restored.close();
+    }
+    assertThat(Files.size(journal)).isLessThan(64);
+  }
+
+}
@@ -2,12 +2,19 @@ package com.avpines.dynamic.meters.distributionsummary;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
 
 import com.avpines.dynamic.Conditions;
+import com.avpines.dynamic.meters.DynamicMeters;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Statistic;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -117,4 +124,72 @@ class DynamicDistributionSummaryTest {
     ).isInstanceOf(IllegalArgumentException.class);
   }
 
-}
\ No newline at end of file
+  @Test
+  void idleExpiryMustBePositive() {
+    assertThatThrownBy(() ->
+        DynamicDistributionSummary.builder(smr, "my.metric").expireAfterIdle(Duration.ZERO)
+    ).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void recordAllGroupsBySeries() {
+    DynamicDistributionSummary dds = DynamicDistributionSummary.builder(smr, "my.metric")
+        .tagKeys("t1", "t2")
+        .build();
+    String[] reused = new String[2];
+    List<double[]> events = List.of(new double[]{0, 1}, new double[]{1, 2}, new double[]{0, 3});
+    dds.recordAll(events, e -> {
+      reused[0] = "v" + (int) e[0];
+      reused[1] = "x";
+      return reused;
+    }, e -> e[1]);
+    DistributionSummary v0 = smr.get("my.metric").tag("t1", "v0").summary();
+    assertThat(v0.count()).isEqualTo(2);
+    assertThat(v0.totalAmount()).isEqualTo(4);
+    assertThat(v0.max()).isEqualTo(3);
+    assertThat(smr.get("my.metric").tag("t1", "v1").summary().totalAmount()).isEqualTo(2);
+    assertThat(dds.size()).isEqualTo(2);
+  }
+
+  @Test
+  void sampledSummariesScaleThePublishedSummary() {
+    DynamicDistributionSummary dds = DynamicDistributionSummary.builder(smr, "my.metric")
+        .tagKeys("t1")
+        .sampled(10)
+        .build();
+    for (int i = 0; i < 20_000; i++) {
+      dds.record(2, "v1");
+    }
+    // every recorded amount is recorded once, and stands for 10 events in the published summary.
+    DistributionSummary sampled = dds.getOrCreate("v1");
+    assertThat(sampled.count()).isBetween(1_700L, 2_300L);
+    Meter published = smr.get("my.metric").tag("t1", "v1").meter();
+    assertThat(published.getId().getType()).isEqualTo(Meter.Type.DISTRIBUTION_SUMMARY);
+    assertThat(smr.getMeters()).containsExactly(published);
+    Map<Statistic, Double> measures = new EnumMap<>(Statistic.class);
+    published.measure().forEach(m -> measures.put(m.getStatistic(), m.getValue()));
+    assertThat(measures).containsOnly(
+        entry(Statistic.COUNT, 10.0 * sampled.count()),
+        entry(Statistic.TOTAL, 20.0 * sampled.count()),
+        entry(Statistic.MAX, 2.0));
+    assertThat(dds.removeByPrefix("v1")).isEqualTo(1);
+    assertThat(smr.getMeters()).isEmpty();
+    assertThatThrownBy(() -> DynamicDistributionSummary.builder(smr, "my.metric").sampled(0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void summariesRejectRollUps() {
+    DynamicMeters.setPolicy(smr, (name, tagKeys, options) ->
+        options.toBuilder().rollUp("my.metric.by.tenant", List.of("tenant")).build());
+    try {
+      assertThatThrownBy(() ->
+          DynamicDistributionSummary.builder(smr, "my.metric").tagKeys("tenant").build()
+      ).isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("roll-ups");
+    } finally {
+      DynamicMeters.setPolicy(smr, null);
+    }
+  }
+
+}
@@ -148,6 +148,20 @@ class DynamicGaugeTest {
     assertThat(og).isPresent().contains(g);
   }
 
+  @Test
+  void valuesBeyondTheLimitOverflow() {
+    DynamicGauge<AtomicLong> dg = DynamicGauge.builder(smr, "my.metric", AtomicLong.class)
+        .tagKey("queue")
+        .maxTagValues("queue", 1)
+        .build();
+    Gauge orders = dg.getOrCreate(new AtomicLong(3), AtomicLong::get, "orders");
+    Gauge other = dg.getOrCreate(new AtomicLong(5), AtomicLong::get, "payments");
+    assertThat(dg.get("orders")).containsSame(orders);
+    assertThat(dg.get("refunds")).containsSame(other);
+    assertThat(other.getId().getTag("queue")).isEqualTo("OTHER");
+    assertThat(other.value()).isEqualTo(5);
+  }
+
   @Test
   void getGaugeNotExist() {
     DynamicGauge<Set<Double>> dg = DynamicGauge.builder(smr, "hello", new OfType<Set<Double>>() {})
@@ -159,6 +173,25 @@ class DynamicGaugeTest {
     assertThat(og).isEmpty();
   }
 
+  @Test
+  void selfMetricsCountLookups() {
+    DynamicGauge<AtomicLong> dg = DynamicGauge.builder(smr, "my.gauge", AtomicLong.class)
+        .tagKeys("t1")
+        .selfMetrics()
+        .build();
+    AtomicLong value = new AtomicLong();
+    for (int i = 0; i < 3; i++) {
+      dg.getOrCreate(value, AtomicLong::get, "v1");
+    }
+    dg.getOrCreate(value, AtomicLong::get, "v2");
+    assertThat(smr.get("dynamic.meters.lookups").tags("meter", "my.gauge", "result", "hit")
+        .functionCounter().count()).isEqualTo(2);
+    assertThat(smr.get("dynamic.meters.lookups").tags("meter", "my.gauge", "result", "miss")
+        .functionCounter().count()).isEqualTo(2);
+    assertThat(smr.get("dynamic.meters.series").tag("meter", "my.gauge").gauge().value())
+        .isEqualTo(2);
+  }
+
   private boolean between(@NotNull String s, int min, int max) {
     return s.length() >= min && s.length() <= max;
   }
@@ -0,0 +1,99 @@
+package com.avpines.dynamic.meters.gauge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DynamicValueGaugeTest {
+
+  SimpleMeterRegistry smr;
+
+  @BeforeEach
+  void setup() {
+    smr = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void setAndAdd() {
+    DynamicValueGauge g = DynamicValueGauge.builder(smr, "queue.size")
+        .tagKeys("queue")
+        .customizer(b -> b.description("The queue size"))
+        .build();
+    g.set(5, "a");
+    g.add(2, "a");
+    g.add(-1, "b");
+    assertThat(smr.get("queue.size").tag("queue", "a").gauge().value()).isEqualTo(7);
+    assertThat(smr.get("queue.size").tag("queue", "b").gauge().value()).isEqualTo(-1);
+    assertThat(smr.get("queue.size").tag("queue", "a").gauge().getId().getDescription())
+        .isEqualTo("The queue size");
+    g.set(0.5, "a");
+    assertThat(smr.get("queue.size").tag("queue", "a").gauge().value()).isEqualTo(0.5);
+  }
+
+  @Test
+  void evictedSlotsAreReusedFromZero() {
+    DynamicValueGauge g = DynamicValueGauge.builder(smr, "my.metric")
+        .tagKeys("t1")
+        .maxSeries(1)
+        .build();
+    g.set(42, "a");
+    g.add(1, "b");
+    assertThat(smr.getMeters()).hasSize(1);
+    assertThat(smr.get("my.metric").tag("t1", "b").gauge().value()).isEqualTo(1);
+  }
+
+  @Test
+  void concurrentAdds() throws Exception {
+    DynamicValueGauge g = DynamicValueGauge.builder(smr, "my.metric").tagKeys("t1").build();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 10_000; i++) {
+            g.add(1, "v" + (i % 5000));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertThat(smr.get("my.metric").gauges())
+        .hasSize(5000)
+        .allMatch(gauge -> gauge.value() == 8);
+  }
+
+  @Test
+  void offHeap() {
+    DynamicValueGauge g = DynamicValueGauge.builder(smr, "my.metric")
+        .tagKeys("t1")
+        .offHeap()
+        .build();
+    for (int i = 0; i < 10_000; i++) {
+      g.set(i, "v" + i);
+    }
+    g.add(0.25, "v9999");
+    assertThat(smr.get("my.metric").gauges()).hasSize(10_000);
+    assertThat(smr.get("my.metric").tag("t1", "v4096").gauge().value()).isEqualTo(4096);
+    assertThat(smr.get("my.metric").tag("t1", "v9999").gauge().value()).isEqualTo(9999.25);
+  }
+
+  @Test
+  void wrongNumberOfValues() {
+    DynamicValueGauge g = DynamicValueGauge.builder(smr, "my.metric").tagKeys("t1").build();
+    assertThatThrownBy(() -> g.set(1, "a", "b")).isInstanceOf(IllegalArgumentException.class);
+  }
+
+}
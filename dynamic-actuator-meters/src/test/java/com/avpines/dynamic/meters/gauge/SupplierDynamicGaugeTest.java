@@ -150,4 +150,20 @@ class SupplierDynamicGaugeTest {
     assertThat(og).isEmpty();
   }
 
+  @Test
+  void selfMetricsCountLookups() {
+    SupplierDynamicGauge sg = SupplierDynamicGauge.builder(smr, "my.supplier")
+        .tagKeys("t1")
+        .selfMetrics()
+        .build();
+    AtomicLong value = new AtomicLong();
+    for (int i = 0; i < 3; i++) {
+      sg.getOrCreate(value::get, "v1");
+    }
+    assertThat(smr.get("dynamic.meters.lookups").tags("meter", "my.supplier", "result", "hit")
+        .functionCounter().count()).isEqualTo(2);
+    assertThat(smr.get("dynamic.meters.lookups").tags("meter", "my.supplier", "result", "miss")
+        .functionCounter().count()).isEqualTo(1);
+  }
+
 }
\ No newline at end of file
@@ -2,12 +2,28 @@ package com.avpines.dynamic.meters.timer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
 
 import com.avpines.dynamic.Conditions;
+import com.avpines.dynamic.meters.DynamicMeters;
+import com.avpines.dynamic.meters.RecordingBuffer;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Measurement;
 import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Statistic;
 import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleConfig;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -94,6 +110,22 @@ class DynamicTimerTest {
         .hasSize(1);
   }
 
+  @Test
+  void customizersApplyInOrderToEverySeries() {
+    DynamicTimer dt = DynamicTimer.builder(smr, "my.metric")
+        .tagKeys("t1")
+        .customizer(b -> b.description("first").publishPercentiles(0.5))
+        .customizers(List.of(b -> b.description("second"), b -> b.tag("t0", "v0")))
+        .build();
+    dt.getOrCreate("a").record(5, TimeUnit.SECONDS);
+    dt.getOrCreate("b").record(5, TimeUnit.SECONDS);
+    for (String value : new String[]{"a", "b"}) {
+      Timer timer = smr.get("my.metric").tags("t0", "v0", "t1", value).timer();
+      assertThat(timer.getId().getDescription()).isEqualTo("second");
+      assertThat(timer.takeSnapshot().percentileValues()).hasSize(1);
+    }
+  }
+
   @Test
   void wrongNumberOfValues() {
     // we expect values only for the dynamic tags given in the 'tagKeys'.
@@ -111,4 +143,267 @@ class DynamicTimerTest {
     ).isInstanceOf(IllegalArgumentException.class);
   }
 
-}
\ No newline at end of file
+  @Test
+  void boundedSeries() {
+    DynamicTimer dt = DynamicTimer.builder(smr, "my.metric")
+        .tagKeys("tag-1")
+        .maxSeries(100)
+        .build();
+    for (int i = 0; i < 1_000; i++) {
+      dt.getOrCreate("v-" + i).record(1, TimeUnit.SECONDS);
+    }
+    assertThat(dt.size()).isLessThanOrEqualTo(100);
+    assertThat(smr.getMeters()).hasSize(dt.size());
+    // the most recent series survive.
+    assertThat(smr.find("my.metric").tag("tag-1", "v-999").timer()).isNotNull();
+  }
+
+  @Test
+  void asyncRegistrationReplaysRecords() {
+    Queue<Runnable> registrations = new ArrayDeque<>();
+    DynamicTimer dt = DynamicTimer.builder(smr, "my.metric")
+        .tagKeys("tag-1")
+        .customizer(b -> b.publishPercentileHistogram())
+        .asyncRegistration(registrations::add)
+        .build();
+    Timer deferred = dt.getOrCreate("v");
+    deferred.record(1, TimeUnit.SECONDS);
+    deferred.record(3, TimeUnit.SECONDS);
+    assertThat(deferred.count()).isEqualTo(2);
+    assertThat(dt.getOrCreate("v")).isSameAs(deferred);
+    assertThat(smr.getMeters()).isEmpty();
+    registrations.remove().run();
+    Timer registered = smr.get("my.metric").tag("tag-1", "v").timer();
+    assertThat(registered.count()).isEqualTo(2);
+    assertThat(registered.totalTime(TimeUnit.SECONDS)).isEqualTo(4);
+    assertThat(registered.max(TimeUnit.SECONDS)).isEqualTo(3);
+    assertThat(dt.getOrCreate("v")).isSameAs(registered);
+    deferred.record(5, TimeUnit.SECONDS);
+    assertThat(registered.count()).isEqualTo(3);
+  }
+
+  @Test
+  void asyncRegistrationKeepsTheOverflowAndTheCustomizedId() {
+    Queue<Runnable> registrations = new ArrayDeque<>();
+    DynamicTimer dt = DynamicTimer.builder(smr, "my.metric")
+        .tagKeys("tag-1")
+        .customizer(b -> b.description("my description").tag("t0", "v0"))
+        .asyncRegistration(registrations::add)
+        .build();
+    dt.getOrCreate("w");
+    registrations.remove().run();
+    Timer deferred = dt.getOrCreate("v");
+    assertThat(deferred.getId()).isEqualTo(smr.get("my.metric").tag("tag-1", "w").timer().getId()
+        .withTag(Tag.of("tag-1", "v")));
+    assertThat(deferred.getId().getDescription()).isEqualTo("my description");
+    int records = RecordingBuffer.CAPACITY * 2;
+    for (int i = 1; i <= records; i++) {
+      deferred.record(i, TimeUnit.MILLISECONDS);
+    }
+    double total = records * (records + 1) / 2.0;
+    assertThat(deferred.count()).isEqualTo(records);
+    assertThat(deferred.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(total);
+    registrations.remove().run();
+    Timer registered = smr.get("my.metric").tag("tag-1", "v").timer();
+    assertThat(registered.getId().getDescription()).isEqualTo("my description");
+    assertThat(registered.count()).isEqualTo(records);
+    assertThat(registered.totalTime(TimeUnit.MILLISECONDS)).isCloseTo(total, within(1e-3));
+    assertThat(registered.max(TimeUnit.MILLISECONDS)).isEqualTo(records);
+  }
+
+  @Test
+  void recordsCallablesByOutcome() throws Exception {
+    MockClock clock = new MockClock();
+    smr = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    DynamicTimer dt = DynamicTimer.builder(smr, "my.metric")
+        .tagKeys("operation", "exception")
+        .build();
+    OutcomeTagValues place = OutcomeTagValues.of("place");
+    assertThat(dt.recordCallable(() -> {
+      clock.add(2, TimeUnit.SECONDS);
+      return "done";
+    }, place)).isEqualTo("done");
+    assertThatThrownBy(() -> dt.recordCallable(() -> {
+      throw new IOException("down");
+    }, place)).isInstanceOf(IOException.class);
+    Timer success = smr.get("my.metric").tags("operation", "place", "exception", "none").timer();
+    assertThat(success.count()).isEqualTo(1);
+    assertThat(success.totalTime(TimeUnit.SECONDS)).isEqualTo(2);
+    assertThat(smr.get("my.metric").tags("exception", "IOException").timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  void recordsStagesWhenTheyComplete() {
+    MockClock clock = new MockClock();
+    smr = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    DynamicTimer dt = DynamicTimer.builder(smr, "my.metric")
+        .tagKeys("operation", "exception")
+        .build();
+    OutcomeTagValues place = OutcomeTagValues.of("place");
+    CompletableFuture<String> succeeding = new CompletableFuture<>();
+    final CompletionStage<String> timed = dt.recordStage(() -> succeeding, place);
+    assertThat(smr.getMeters()).isEmpty();
+    clock.add(3, TimeUnit.SECONDS);
+    succeeding.complete("done");
+    assertThat(timed.toCompletableFuture().join()).isEqualTo("done");
+    assertThat(smr.get("my.metric").tags("exception", "none").timer()
+        .totalTime(TimeUnit.SECONDS)).isEqualTo(3);
+    CompletableFuture<String> failing = new CompletableFuture<>();
+    CompletionStage<String> failed = dt.recordStage(
+        () -> failing.thenApply(String::toUpperCase), place);
+    failing.completeExceptionally(new IllegalStateException("down"));
+    assertThat(failed.toCompletableFuture()).isCompletedExceptionally();
+    assertThat(smr.get("my.metric").tags("exception", "IllegalStateException").timer().count())
+        .isEqualTo(1);
+    // the tag values of an outcome are shared.
+    assertThat(place.apply(null, new IllegalStateException()))
+        .isSameAs(place.apply(null, new CompletionException(new IllegalStateException())));
+  }
+
+  @Test
+  void samplesChooseTagValuesWhenStopped() {
+    MockClock clock = new MockClock();
+    smr = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    DynamicTimer dt = DynamicTimer.builder(smr, "my.metric").tagKeys("status").build();
+    DynamicTimer.Sample sample = dt.start();
+    clock.add(2, TimeUnit.SECONDS);
+    assertThat(sample.stop("200")).isEqualTo(TimeUnit.SECONDS.toNanos(2));
+    assertThatThrownBy(() -> sample.stop("200")).isInstanceOf(IllegalStateException.class);
+    // a stopped sample is recycled.
+    DynamicTimer.Sample next = dt.start();
+    assertThat(next).isSameAs(sample);
+    DynamicTimer.Sample nested = dt.start();
+    assertThat(nested).isNotSameAs(next);
+    clock.add(1, TimeUnit.SECONDS);
+    nested.stop("500");
+    next.stop("200");
+    Timer ok = smr.get("my.metric").tag("status", "200").timer();
+    assertThat(ok.count()).isEqualTo(2);
+    assertThat(ok.totalTime(TimeUnit.SECONDS)).isEqualTo(3);
+    assertThat(smr.get("my.metric").tag("status", "500").timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  void sampledTimersScaleThePublishedTimer() throws Exception {
+    DynamicTimer dt = DynamicTimer.builder(smr, "my.metric")
+        .tagKeys("status")
+        .sampled(10)
+        .build();
+    for (int i = 0; i < 20_000; i++) {
+      dt.record(3, TimeUnit.MILLISECONDS, "200");
+    }
+    // every sampled duration is recorded once, and stands for 10 events in the published timer.
+    Timer sampled = dt.getOrCreate("200");
+    assertThat(sampled.count()).isBetween(1_700L, 2_300L);
+    Meter published = smr.get("my.metric").tag("status", "200").meter();
+    assertThat(published.getId().getType()).isEqualTo(Meter.Type.TIMER);
+    assertThat(smr.getMeters()).containsExactly(published);
+    assertThat(measure(published, Statistic.COUNT)).isEqualTo(10.0 * sampled.count());
+    assertThat(measure(published, Statistic.TOTAL_TIME))
+        .isCloseTo(0.03 * sampled.count(), within(1e-9));
+    assertThat(measure(published, Statistic.MAX)).isEqualTo(0.003);
+    OutcomeTagValues call = OutcomeTagValues.of("call");
+    DynamicTimer outcomes = DynamicTimer.builder(smr, "my.outcomes")
+        .tagKeys("operation", "exception")
+        .sampled(10)
+        .build();
+    for (int i = 0; i < 20_000; i++) {
+      assertThat(outcomes.recordCallable(() -> "done", call)).isEqualTo("done");
+    }
+    assertThat(measure(smr.get("my.outcomes").meter(), Statistic.COUNT))
+        .isBetween(17_000.0, 23_000.0);
+    assertThat(dt.removeByPrefix("200")).isEqualTo(1);
+    assertThat(smr.find("my.metric").meters()).isEmpty();
+  }
+
+  @Test
+  void sampledTimersScaleTheRecordsOfDeferredTimers() {
+    Queue<Runnable> registrations = new ArrayDeque<>();
+    DynamicTimer dt = DynamicTimer.builder(smr, "my.metric")
+        .tagKeys("status")
+        .sampled(10)
+        .asyncRegistration(registrations::add)
+        .build();
+    for (int i = 0; i < 20_000; i++) {
+      dt.record(3, TimeUnit.MILLISECONDS, "200");
+    }
+    assertThat(smr.getMeters()).isEmpty();
+    registrations.remove().run();
+    Timer sampled = dt.getOrCreate("200");
+    assertThat(sampled.count()).isBetween(1_700L, 2_300L);
+    assertThat(measure(smr.get("my.metric").tag("status", "200").meter(), Statistic.COUNT))
+        .isEqualTo(10.0 * sampled.count());
+  }
+
+  private static double measure(Meter meter, Statistic statistic) {
+    for (Measurement measurement : meter.measure()) {
+      if (measurement.getStatistic() == statistic) {
+        return measurement.getValue();
+      }
+    }
+    throw new AssertionError(String.format("No '%s' measurement", statistic));
+  }
+
+  @Test
+  void rollUpsSumCountsAndTotalTimes() {
+    DynamicTimer dt = DynamicTimer.builder(smr, "my.metric")
+        .tagKeys("endpoint", "status")
+        .rollUp("my.metric.by.status", "status")
+        .build();
+    dt.getOrCreate("/a", "200").record(1, TimeUnit.SECONDS);
+    dt.getOrCreate("/b", "200").record(2, TimeUnit.SECONDS);
+    dt.getOrCreate("/a", "500").record(4, TimeUnit.SECONDS);
+    FunctionTimer ok = smr.get("my.metric.by.status").tag("status", "200").functionTimer();
+    assertThat(ok.count()).isEqualTo(2);
+    assertThat(ok.totalTime(TimeUnit.SECONDS)).isEqualTo(3);
+    assertThat(dt.removeByPrefix("/a", "200")).isEqualTo(1);
+    assertThat(ok.count()).isEqualTo(2);
+    assertThat(ok.totalTime(TimeUnit.SECONDS)).isEqualTo(3);
+    assertThat(smr.get("my.metric.by.status").tag("status", "500").functionTimer().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void timersDoNotBufferAmounts() {
+    DynamicMeters.setPolicy(smr, (name, tagKeys, options) ->
+        options.toBuilder().flushInterval(Duration.ofSeconds(1)).build());
+    try {
+      assertThatThrownBy(() -> DynamicTimer.builder(smr, "my.metric").tagKeys("t1").build())
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("does not buffer");
+    } finally {
+      DynamicMeters.setPolicy(smr, null);
+    }
+  }
+
+  @Test
+  void preRegisteredTimersArePublishedEmpty() {
+    DynamicTimer dt = DynamicTimer.builder(smr, "my.metric")
+        .tagKeys("status")
+        .preRegister(List.of(new String[]{"200"}, new String[]{"500"}))
+        .build();
+    assertThat(dt.size()).isEqualTo(2);
+    assertThat(smr.get("my.metric").timers()).hasSize(2);
+    assertThat(smr.get("my.metric").tag("status", "500").timer().count()).isZero();
+    dt.record(1, TimeUnit.SECONDS, "500");
+    assertThat(dt.size()).isEqualTo(2);
+    assertThat(smr.get("my.metric").tag("status", "500").timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  void durationsBeyondTheTagValueLimitOverflow() {
+    DynamicTimer dt = DynamicTimer.builder(smr, "my.metric")
+        .tagKeys("path")
+        .maxTagValues("path", 2, "other-path")
+        .build();
+    for (int i = 0; i < 5; i++) {
+      dt.record(i, TimeUnit.SECONDS, "/p" + i);
+    }
+    assertThat(dt.size()).isEqualTo(3);
+    Timer overflow = smr.get("my.metric").tag("path", "other-path").timer();
+    assertThat(overflow.count()).isEqualTo(3);
+    assertThat(overflow.totalTime(TimeUnit.SECONDS)).isEqualTo(9);
+    assertThat(overflow.max(TimeUnit.SECONDS)).isEqualTo(4);
+  }
+
+}